@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.ethereumkeyj.core.jce.BatchVerifier;
+import org.ethereumkeyj.core.jce.ECKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inbound message verification: one {@link ECKey#verify(byte[], ECKey.ECDSASignature, byte[])} per signature
+ * against a {@link BatchVerifier} over the same entries, signed by a small set of peers.
+ *
+ * <p>The GC profiler only counts allocation on the benchmark thread, so {@link #batch()} hides what its executor
+ * threads allocate; {@link #batchOnCallerThread()} runs the same chunks on the benchmark thread and reports all
+ * of it.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchVerifierBenchmark
+{
+
+  @Param({"256"})
+  public int size;
+
+  @Param({"16"})
+  public int signers;
+
+  private byte[][] hashes;
+  private ECKey.ECDSASignature[] signatures;
+  private byte[][] pubKeys;
+  private BatchVerifier verifier;
+  private BatchVerifier callerThreadVerifier;
+
+  @Setup
+  public void setup()
+  {
+    Random random = new Random(42);
+    ECKey[] keys = new ECKey[signers];
+    for(int i = 0; i < signers; i++)
+    {
+      keys[i] = new ECKey();
+    }
+    hashes = new byte[size][];
+    signatures = new ECKey.ECDSASignature[size];
+    pubKeys = new byte[size][];
+    verifier = new BatchVerifier();
+    callerThreadVerifier = new BatchVerifier(Runnable::run);
+    for(int i = 0; i < size; i++)
+    {
+      ECKey key = keys[i % signers];
+      hashes[i] = new byte[32];
+      random.nextBytes(hashes[i]);
+      signatures[i] = key.sign(hashes[i]);
+      pubKeys[i] = key.getPubKey();
+      verifier.add(hashes[i], signatures[i], pubKeys[i]);
+      callerThreadVerifier.add(hashes[i], signatures[i], pubKeys[i]);
+    }
+  }
+
+  @Benchmark
+  public int sequential()
+  {
+    int valid = 0;
+    for(int i = 0; i < size; i++)
+    {
+      if(ECKey.verify(hashes[i], signatures[i], pubKeys[i]))
+      {
+        valid++;
+      }
+    }
+    return valid;
+  }
+
+  @Benchmark
+  public BitSet batch()
+  {
+    return verifier.verify();
+  }
+
+  @Benchmark
+  public BitSet batchOnCallerThread()
+  {
+    return callerThreadVerifier.verify();
+  }
+
+  @Benchmark
+  public boolean batchAllValid()
+  {
+    return verifier.verifyAll();
+  }
+}
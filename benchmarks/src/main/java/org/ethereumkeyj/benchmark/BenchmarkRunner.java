@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Accepts the regular JMH command line and
+ * always attaches the GC profiler so every run reports allocation rates
+ * (gc.alloc.rate.norm is the number to watch for regressions).
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar                 # all suites
+ * java -jar target/benchmarks.jar HashUtil -f 1   # a single suite
+ * </pre>
+ */
+public class BenchmarkRunner
+{
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException
+  {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    Options options = new OptionsBuilder()
+            .parent(commandLine)
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+
+  private BenchmarkRunner()
+  {
+
+  }
+}
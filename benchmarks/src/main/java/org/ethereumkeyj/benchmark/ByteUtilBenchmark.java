@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.util.encoders.Hex;
+import org.ethereumkeyj.core.util.ByteUtil;
+import org.ethereumkeyj.core.util.HashUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * EIP-55 checksum encoding of a 20-byte address.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ByteUtilBenchmark
+{
+
+  private final byte[] address = ByteUtil.hexStringToBytes("6f5b635f45b745ad2cb5fa42a986259f1a0534df");
+
+  @Benchmark
+  public String toChecksumHexString()
+  {
+    return ByteUtil.toChecksumHexString(address);
+  }
+
+  /**
+   * The string-concatenating implementation ByteUtil had before {@link org.ethereumkeyj.core.util.HexCodec}.
+   */
+  @Benchmark
+  public String toChecksumHexStringLegacy()
+  {
+    String result = "";
+    String hexAddress = Hex.toHexString(address).toLowerCase();
+    char[] hexAddressArray = hexAddress.toCharArray();
+    char[] sha3Array = Hex.toHexString(HashUtil.sha3(hexAddress.getBytes())).toCharArray();
+    for(int i = 0; i < hexAddressArray.length; i++)
+    {
+      if(Integer.parseInt("" + sha3Array[i], 16) >= 8)
+      {
+        result += ("" + hexAddressArray[i]).toUpperCase();
+      }
+      else
+      {
+        result += hexAddressArray[i];
+      }
+    }
+    return result;
+  }
+}
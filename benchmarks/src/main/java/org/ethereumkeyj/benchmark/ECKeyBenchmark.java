@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.asn1.x9.X9IntegerConverter;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import org.ethereumkeyj.core.jce.ECKey;
+import org.ethereumkeyj.core.jce.Secp256k1Signer;
+import org.ethereumkeyj.core.util.ByteUtil;
+import org.ethereumkeyj.core.util.HashUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Key generation, ECDSA sign, verify and public key recovery on secp256k1, on the curve selected by
+ * {@link ECKey#CURVE_PROPERTY}, by default Bouncy Castle's custom curve. {@link ECKeyNativeCurveBenchmark} and
+ * {@link ECKeyGenericCurveBenchmark} run the same operations on the other implementations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ECKeyBenchmark
+{
+
+  private static final byte[] PRIVATE_KEY = ByteUtil.hexStringToBytes(
+          "0c276dea6126fc41da8303d13f53fdbf4c5b69c8a0cbe8526a8f56483f1b51e5");
+
+  private ECKey key;
+  private Secp256k1Signer signer;
+  private byte[] messageHash;
+  private byte[] pubKey;
+  private ECKey.ECDSASignature signature;
+  private int recId;
+  private Map<ECKey, Integer> registry;
+
+  @Setup
+  public void setup()
+  {
+    key = ECKey.fromPrivate(PRIVATE_KEY);
+    signer = new Secp256k1Signer(key);
+    messageHash = HashUtil.sha3("ethereumKeyJ benchmark message".getBytes());
+    pubKey = key.getPubKey();
+    signature = key.sign(messageHash);
+    recId = signature.v - 27;
+    registry = new HashMap<>();
+    registry.put(key, 1);
+  }
+
+  @Benchmark
+  public ECKey newKey()
+  {
+    return new ECKey();
+  }
+
+  @Benchmark
+  public ECKey fromPrivate()
+  {
+    return ECKey.fromPrivate(PRIVATE_KEY);
+  }
+
+  @Benchmark
+  public byte[] publicKeyFromPrivate()
+  {
+    return ECKey.publicKeyFromPrivate(key.getPrivKey(), false);
+  }
+
+  @Benchmark
+  public ECKey.ECDSASignature sign()
+  {
+    return key.sign(messageHash);
+  }
+
+  @Benchmark
+  public ECKey.ECDSASignature signWithKeyRecovery()
+  {
+    return key.signWithKeyRecovery(messageHash);
+  }
+
+  @Benchmark
+  public ECKey.ECDSASignature signerSign()
+  {
+    return signer.sign(messageHash);
+  }
+
+  @Benchmark
+  public boolean verify()
+  {
+    return ECKey.verify(messageHash, signature, pubKey);
+  }
+
+  @Benchmark
+  public byte[] recoverPubBytesFromSignature()
+  {
+    return ECKey.recoverPubBytesFromSignature(recId, signature, messageHash);
+  }
+
+  /**
+   * The generic SEC1 recovery the library used before the secp256k1 fast path: point decompression, an
+   * {@code n * R} order check and the double scalar multiplication.
+   */
+  @Benchmark
+  public byte[] recoverPubBytesGeneric()
+  {
+    BigInteger n = ECKey.CURVE.getN();
+    X9IntegerConverter x9 = new X9IntegerConverter();
+    byte[] compEnc = x9.integerToBytes(signature.r, 1 + x9.getByteLength(ECKey.CURVE.getCurve()));
+    compEnc[0] = (byte) ((recId & 1) == 1 ? 0x03 : 0x02);
+    ECPoint R = ECKey.CURVE.getCurve().decodePoint(compEnc);
+    if(!R.multiply(n).isInfinity())
+    {
+      return null;
+    }
+    BigInteger e = new BigInteger(1, messageHash);
+    BigInteger rInv = signature.r.modInverse(n);
+    BigInteger srInv = rInv.multiply(signature.s).mod(n);
+    BigInteger eInvrInv = rInv.multiply(e.negate().mod(n)).mod(n);
+    return ECAlgorithms.sumOfTwoMultiplies(ECKey.CURVE.getG(), eInvrInv, R, srInv).getEncoded(false);
+  }
+
+  @Benchmark
+  public byte[] getPubKey()
+  {
+    return key.getPubKey();
+  }
+
+  @Benchmark
+  public ByteBuffer getPubKeyView()
+  {
+    return key.getPubKeyView();
+  }
+
+  /**
+   * What {@link ECKey#hashCode()} cost before the encoding was cached.
+   */
+  @Benchmark
+  public int hashCodeUncached()
+  {
+    return Arrays.hashCode(key.getPubKeyPoint().getEncoded(false));
+  }
+
+  /**
+   * A registry lookup with a key parsed from its encoding, as for a key arriving from the network.
+   */
+  @Benchmark
+  public Integer registryLookup()
+  {
+    return registry.get(ECKey.fromPublicOnly(pubKey));
+  }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import org.ethereumkeyj.core.jce.ECKey;
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * {@link ECKeyBenchmark} on the BigInteger based curve, as the baseline for the faster implementations.
+ */
+@Fork(value = 1, jvmArgsAppend = "-D" + ECKey.CURVE_PROPERTY + "=generic")
+public class ECKeyGenericCurveBenchmark extends ECKeyBenchmark
+{
+}
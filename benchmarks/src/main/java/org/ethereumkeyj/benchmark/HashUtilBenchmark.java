@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.ethereumkeyj.core.cryptohash.Keccak256;
+import org.ethereumkeyj.core.util.HashUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Keccak-256 throughput. 32 bytes is a hash or private key, 136 bytes is
+ * exactly one Keccak-256 block (the padding then needs a second one), 1 KB is
+ * a typical transaction payload and 1 MB measures raw absorb speed. Run with
+ * {@code -t <threads>} to check that the per-thread digests scale across cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashUtilBenchmark
+{
+
+  @Param({"32", "136", "1024", "1048576"})
+  public int size;
+
+  private byte[] input;
+  private final byte[] output = new byte[32];
+
+  @Setup
+  public void setup()
+  {
+    input = new byte[size];
+    new Random(42).nextBytes(input);
+  }
+
+  @Benchmark
+  public byte[] sha3()
+  {
+    return HashUtil.sha3(input);
+  }
+
+  @Benchmark
+  public byte[] sha256()
+  {
+    return HashUtil.sha256(input);
+  }
+
+  @Benchmark
+  public byte[] keccak256IntoBuffer()
+  {
+    Keccak256.hash(input, 0, input.length, output, 0);
+    return output;
+  }
+}
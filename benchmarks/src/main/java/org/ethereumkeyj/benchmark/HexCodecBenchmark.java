@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.util.encoders.Hex;
+import org.ethereumkeyj.core.util.HexCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link HexCodec} against the Bouncy Castle {@link Hex} calls that ByteUtil used before, for address, private key
+ * and public key sized inputs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HexCodecBenchmark
+{
+
+  @Param({"20", "32", "65"})
+  private int length;
+
+  private byte[] data;
+  private String hex;
+  private String prefixedHex;
+  private byte[] ascii;
+  private byte[] asciiOut;
+  private char[] chars;
+  private byte[] decoded;
+  private StringBuilder builder;
+
+  @Setup
+  public void setup()
+  {
+    data = new byte[length];
+    new Random(25).nextBytes(data);
+    hex = Hex.toHexString(data);
+    prefixedHex = "0x" + hex;
+    ascii = hex.getBytes(StandardCharsets.US_ASCII);
+    asciiOut = new byte[2 * length];
+    chars = new char[2 * length];
+    decoded = new byte[length];
+    builder = new StringBuilder(2 + 2 * length);
+  }
+
+  @Benchmark
+  public String encodeBouncyCastle()
+  {
+    return Hex.toHexString(data);
+  }
+
+  @Benchmark
+  public String encode()
+  {
+    return HexCodec.encode(data);
+  }
+
+  @Benchmark
+  public char[] encodeIntoChars()
+  {
+    HexCodec.encode(data, 0, data.length, chars, 0);
+    return chars;
+  }
+
+  @Benchmark
+  public byte[] encodeIntoAscii()
+  {
+    HexCodec.encode(data, 0, data.length, asciiOut, 0);
+    return asciiOut;
+  }
+
+  @Benchmark
+  public StringBuilder appendPrefixed()
+  {
+    builder.setLength(0);
+    return HexCodec.append(builder.append("0x"), data);
+  }
+
+  /**
+   * The former ByteUtil.hexStringToBytes: cut the prefix, then decode.
+   */
+  @Benchmark
+  public byte[] decodePrefixedBouncyCastle()
+  {
+    String data = prefixedHex.startsWith("0x") ? prefixedHex.substring(2) : prefixedHex;
+    return Hex.decode(data);
+  }
+
+  @Benchmark
+  public byte[] decodePrefixed()
+  {
+    return HexCodec.decode(prefixedHex);
+  }
+
+  @Benchmark
+  public byte[] decodeIntoArray()
+  {
+    HexCodec.decode(hex, 0, hex.length(), decoded, 0);
+    return decoded;
+  }
+
+  @Benchmark
+  public byte[] decodeAsciiBouncyCastle()
+  {
+    return Hex.decode(ascii);
+  }
+
+  @Benchmark
+  public byte[] decodeAsciiBuffer()
+  {
+    return HexCodec.decode(ByteBuffer.wrap(ascii));
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.ethereumkeyj.core.util.ByteUtil;
+import org.ethereumkeyj.core.util.RLP;
+import org.ethereumkeyj.core.util.RLPItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RLP list encoding of the nine items of a signed legacy transaction, and decoding of a block-sized list of such
+ * transactions with {@link RLPItem} views against a decoder that copies every string into its own array.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RLPBenchmark
+{
+
+  private static final int BLOCK_TRANSACTIONS = 200;
+
+  private byte[][] elements;
+  private byte[] block;
+
+  @Setup
+  public void setup()
+  {
+    byte[] r = ByteUtil.hexStringToBytes("ad1c2dba8fe9737ca996404d38f1579adb949c4fe81115d53c3cad0753015a9b");
+    byte[] s = ByteUtil.hexStringToBytes("28fe692859afa6fa72fbcd687af96c366fc31a7e0ac2a6ab61336ae10f3adf7c");
+    elements = new byte[][]
+    {
+      RLP.encodeElement(null),
+      RLP.encodeElement(ByteUtil.hexStringToBytes("012a05f200")),
+      RLP.encodeElement(ByteUtil.hexStringToBytes("5208")),
+      RLP.encodeElement(ByteUtil.hexStringToBytes("718863e4ffc6d9cc4c40ba6abe6ee5a2ec5a395c")),
+      RLP.encodeElement(ByteUtil.hexStringToBytes("0de0b6b3a7640000")),
+      RLP.encodeElement(null),
+      RLP.encodeInt(42),
+      RLP.encodeElement(r),
+      RLP.encodeElement(s)
+    };
+    byte[][] transactions = new byte[BLOCK_TRANSACTIONS][];
+    Arrays.fill(transactions, RLP.encodeList(elements));
+    block = RLP.encodeList(transactions);
+  }
+
+  @Benchmark
+  public byte[] encodeList()
+  {
+    return RLP.encodeList(elements);
+  }
+
+  @Benchmark
+  public long decodeView()
+  {
+    long total = 0;
+    for(RLPItem transaction : RLP.decode(block))
+    {
+      for(RLPItem field : transaction)
+      {
+        total += field.getPayloadLength();
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  public long decodeCopy()
+  {
+    long total = 0;
+    for(Object transaction : (List<?>) decodeCopying(block, 0))
+    {
+      for(Object field : (List<?>) transaction)
+      {
+        total += ((byte[]) field).length;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Baseline decoder in the style of a copy-based RLP parser: every list becomes an {@link ArrayList} and every
+   * string a fresh array.
+   */
+  private static Object decodeCopying(byte[] data, int offset)
+  {
+    int prefix = data[offset] & 0xFF;
+    if(prefix < 0x80)
+    {
+      return new byte[]{data[offset]};
+    }
+    int headerLength;
+    int length;
+    if(prefix <= 0xb7 || prefix >= 0xc0 && prefix <= 0xf7)
+    {
+      headerLength = 1;
+      length = prefix - (prefix < 0xc0 ? 0x80 : 0xc0);
+    }
+    else
+    {
+      int lengthOfLength = prefix - (prefix < 0xc0 ? 0xb7 : 0xf7);
+      headerLength = 1 + lengthOfLength;
+      length = 0;
+      for(int i = 0; i < lengthOfLength; i++)
+      {
+        length = (length << 8) | (data[offset + 1 + i] & 0xFF);
+      }
+    }
+    int start = offset + headerLength;
+    if(prefix < 0xc0)
+    {
+      return Arrays.copyOfRange(data, start, start + length);
+    }
+    List<Object> items = new ArrayList<>();
+    for(int index = start; index < start + length; index += encodedLength(data, index))
+    {
+      items.add(decodeCopying(data, index));
+    }
+    return items;
+  }
+
+  private static int encodedLength(byte[] data, int offset)
+  {
+    int prefix = data[offset] & 0xFF;
+    if(prefix < 0x80)
+    {
+      return 1;
+    }
+    if(prefix <= 0xb7 || prefix >= 0xc0 && prefix <= 0xf7)
+    {
+      return 1 + prefix - (prefix < 0xc0 ? 0x80 : 0xc0);
+    }
+    int lengthOfLength = prefix - (prefix < 0xc0 ? 0xb7 : 0xf7);
+    int length = 0;
+    for(int i = 0; i < lengthOfLength; i++)
+    {
+      length = (length << 8) | (data[offset + 1 + i] & 0xFF);
+    }
+    return 1 + lengthOfLength + length;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.ethereumkeyj.core.secp256k1.Secp256k1Engine;
+import org.ethereumkeyj.core.util.ByteUtil;
+import org.ethereumkeyj.core.util.HashUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The byte-array operations of {@link Secp256k1Engine}, into preallocated outputs; gc.alloc.rate.norm should stay
+ * at zero.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Secp256k1EngineBenchmark
+{
+
+  private static final byte[] PRIVATE_KEY = ByteUtil.hexStringToBytes(
+          "0c276dea6126fc41da8303d13f53fdbf4c5b69c8a0cbe8526a8f56483f1b51e5");
+
+  private final Secp256k1Engine engine = new Secp256k1Engine();
+  private final byte[] pubKey = new byte[65];
+  private final byte[] signature = new byte[64];
+  private final byte[] out = new byte[65];
+  private byte[] messageHash;
+  private int recId;
+
+  @Setup
+  public void setup()
+  {
+    messageHash = HashUtil.sha3("ethereumKeyJ benchmark message".getBytes());
+    engine.publicKey(PRIVATE_KEY, 0, pubKey, 0);
+    recId = engine.sign(PRIVATE_KEY, 0, messageHash, 0, signature, 0);
+  }
+
+  @Benchmark
+  public byte[] publicKey()
+  {
+    engine.publicKey(PRIVATE_KEY, 0, out, 0);
+    return out;
+  }
+
+  @Benchmark
+  public int sign()
+  {
+    return engine.sign(PRIVATE_KEY, 0, messageHash, 0, out, 0);
+  }
+
+  @Benchmark
+  public boolean verify()
+  {
+    return engine.verify(messageHash, 0, signature, 0, pubKey, 0, 65);
+  }
+
+  @Benchmark
+  public boolean recover()
+  {
+    return engine.recover(messageHash, 0, signature, 0, recId, out, 0);
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import org.ethereumkeyj.core.secp256k1.GeneratorTable;
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * {@link Secp256k1EngineBenchmark} with the widest generator table, 8 bits: about 650 KB instead of 75 KB and 32
+ * instead of 64 additions per {@code k * G}. Verification and recovery gain from it; signing and key derivation
+ * scan 8160 instead of 960 entries in constant time and lose.
+ */
+@Fork(value = 1, jvmArgsAppend = "-D" + GeneratorTable.WIDTH_PROPERTY + "=8")
+public class Secp256k1EngineWideTableBenchmark extends Secp256k1EngineBenchmark
+{
+}
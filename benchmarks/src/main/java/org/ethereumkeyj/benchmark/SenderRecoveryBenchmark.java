@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.security.SignatureException;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.ethereumkeyj.core.jce.ECKey;
+import org.ethereumkeyj.core.jce.SenderRecovery;
+import org.ethereumkeyj.core.util.ByteUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sender recovery for a block of transactions: one {@link ECKey#signatureToAddress(byte[], ECKey.ECDSASignature)}
+ * per signature against {@link SenderRecovery#recoverAddresses(byte[][], byte[][], byte[][], byte[], byte[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SenderRecoveryBenchmark
+{
+
+  @Param({"200"})
+  public int size;
+
+  private byte[][] hashes;
+  private byte[][] r;
+  private byte[][] s;
+  private byte[] v;
+  private ECKey.ECDSASignature[] signatures;
+  private byte[] addresses;
+
+  @Setup
+  public void setup()
+  {
+    Random random = new Random(42);
+    hashes = new byte[size][];
+    r = new byte[size][];
+    s = new byte[size][];
+    v = new byte[size];
+    signatures = new ECKey.ECDSASignature[size];
+    addresses = new byte[size * 20];
+    for(int i = 0; i < size; i++)
+    {
+      ECKey key = new ECKey();
+      hashes[i] = new byte[32];
+      random.nextBytes(hashes[i]);
+      signatures[i] = key.sign(hashes[i]);
+      r[i] = ByteUtil.bigIntegerToBytes(signatures[i].r, 32);
+      s[i] = ByteUtil.bigIntegerToBytes(signatures[i].s, 32);
+      v[i] = signatures[i].v;
+    }
+  }
+
+  @Benchmark
+  public byte[][] sequential() throws SignatureException
+  {
+    byte[][] result = new byte[size][];
+    for(int i = 0; i < size; i++)
+    {
+      result[i] = ECKey.signatureToAddress(hashes[i], signatures[i]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public BitSet batch()
+  {
+    return SenderRecovery.recoverAddresses(hashes, r, s, v, addresses);
+  }
+}
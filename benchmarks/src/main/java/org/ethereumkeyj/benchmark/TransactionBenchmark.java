@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.ethereumkeyj.core.AccessList;
+import org.ethereumkeyj.core.Settings;
+import org.ethereumkeyj.core.Transaction;
+import org.ethereumkeyj.core.TransactionBuilder;
+import org.ethereumkeyj.core.TypedTransaction;
+import org.ethereumkeyj.core.Wallet;
+import org.ethereumkeyj.core.jce.Secp256k1Signer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Signing, encoding and parsing of a legacy EIP-155 value transfer, and sign+encode of the same transfer as typed
+ * EIP-2930 and EIP-1559 transactions with a two-entry access list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionBenchmark
+{
+
+  private Wallet from;
+  private Wallet to;
+  private Transaction signed;
+  private byte[] raw;
+  private AccessList accessList;
+  private Secp256k1Signer signer;
+
+  @Setup
+  public void setup()
+  {
+    from = Wallet.loadFromPrivate("d20486c9ab8fdfff4d4645563b9ef617d7c69e23d3ded425bf1391acb93b6696");
+    to = Wallet.loadFromAddress("0x718863e4fFC6D9CC4c40ba6ABE6EE5A2ec5a395c");
+    signed = newTransaction();
+    signed.sign(from);
+    raw = signed.getEncoded().clone();
+    signer = new Secp256k1Signer(from.getKey());
+    accessList = new AccessList()
+            .add(new byte[20], new byte[32 * 4], 0, 4)
+            .add(new byte[20]);
+  }
+
+  private Transaction newTransaction()
+  {
+    return TransactionBuilder.create(to, BigInteger.ONE, BigInteger.TEN, null,
+            Settings.GAS_PRICE, Settings.GAS_LIMIT, Settings.ROPSPTEN);
+  }
+
+  @Benchmark
+  public Transaction sign()
+  {
+    Transaction transaction = newTransaction();
+    transaction.sign(from);
+    return transaction;
+  }
+
+  /**
+   * The {@link org.ethereumkeyj.core.SigningService} path: the key is parsed once, outside the measurement.
+   */
+  @Benchmark
+  public byte[] signAndEncodePreparsed()
+  {
+    Transaction transaction = newTransaction();
+    transaction.sign(signer);
+    return transaction.getEncoded();
+  }
+
+  @Benchmark
+  public byte[] signAndEncodeLegacy()
+  {
+    Transaction transaction = newTransaction();
+    transaction.sign(from);
+    return transaction.getEncoded();
+  }
+
+  @Benchmark
+  public byte[] signAndEncodeAccessList()
+  {
+    TypedTransaction transaction = TransactionBuilder.createAccessList(to, BigInteger.ONE, BigInteger.TEN, null,
+            Settings.GAS_PRICE, Settings.GAS_LIMIT, Settings.ROPSPTEN, accessList);
+    transaction.sign(from);
+    return transaction.getEncoded();
+  }
+
+  @Benchmark
+  public byte[] signAndEncodeDynamicFee()
+  {
+    TypedTransaction transaction = TransactionBuilder.createDynamicFee(to, BigInteger.ONE, BigInteger.TEN, null,
+            BigInteger.ONE, Settings.GAS_PRICE, Settings.GAS_LIMIT, Settings.ROPSPTEN, accessList);
+    transaction.sign(from);
+    return transaction.getEncoded();
+  }
+
+  @Benchmark
+  public byte[] getEncoded()
+  {
+    return signed.getEncoded();
+  }
+
+  /**
+   * Full encoding of the signed transaction; the setter drops the cached encoding.
+   */
+  @Benchmark
+  public byte[] reencodeSigned()
+  {
+    signed.setNonce(signed.getNonce());
+    return signed.getEncoded();
+  }
+
+  @Benchmark
+  public byte[] encodeFresh()
+  {
+    return newTransaction().getEncoded();
+  }
+
+  /**
+   * Relay path: parse a raw transaction and compute its hash, without touching the fields.
+   */
+  @Benchmark
+  public byte[] parseAndHash()
+  {
+    return new Transaction(raw).getHash();
+  }
+
+  @Benchmark
+  public byte[] parseAndReadValue()
+  {
+    return new Transaction(raw).getValue();
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.ethereumkeyj.core.Wallet;
+import org.ethereumkeyj.core.WalletBatch;
+import org.ethereumkeyj.core.util.ByteUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bulk private key import: one {@link Wallet#loadFromPrivate(String)} per key against
+ * {@link WalletBatch#loadFromPrivate(List)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WalletBatchBenchmark
+{
+
+  @Param({"1000"})
+  public int size;
+
+  private List<byte[]> keys;
+  private List<String> hexKeys;
+
+  @Setup
+  public void setup()
+  {
+    Random random = new Random(42);
+    keys = new ArrayList<>(size);
+    hexKeys = new ArrayList<>(size);
+    for(int i = 0; i < size; i++)
+    {
+      byte[] key = new byte[32];
+      random.nextBytes(key);
+      key[0] &= 0x7f;
+      keys.add(key);
+      hexKeys.add(ByteUtil.toHexString(key));
+    }
+  }
+
+  /**
+   * Wallets from {@link Wallet#loadFromPrivate(String)} derive their public key lazily, so the address is read to
+   * do the same work as the batch.
+   */
+  @Benchmark
+  public List<Wallet> sequential()
+  {
+    List<Wallet> wallets = new ArrayList<>(size);
+    for(String key : hexKeys)
+    {
+      Wallet wallet = Wallet.loadFromPrivate(key);
+      wallet.getAddress();
+      wallets.add(wallet);
+    }
+    return wallets;
+  }
+
+  @Benchmark
+  public List<Wallet> batch()
+  {
+    return WalletBatch.loadFromPrivate(keys);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.ethereumkeyj.core.Wallet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Wallet creation from fresh randomness and from an existing private key. {@code newWallet} generates a key pair,
+ * {@code loadFromPrivate} only holds the key, and the {@code WithAddress} variants also derive the checksummed
+ * address.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WalletBenchmark
+{
+
+  private static final String PRIVATE_KEY = "0c276dea6126fc41da8303d13f53fdbf4c5b69c8a0cbe8526a8f56483f1b51e5";
+
+  @Benchmark
+  public Wallet newWallet()
+  {
+    return Wallet.newWallet();
+  }
+
+  @Benchmark
+  public Wallet loadFromPrivate()
+  {
+    return Wallet.loadFromPrivate(PRIVATE_KEY);
+  }
+
+  @Benchmark
+  public String newWalletWithAddress()
+  {
+    return Wallet.newWallet().getAddress();
+  }
+
+  @Benchmark
+  public String loadFromPrivateWithAddress()
+  {
+    return Wallet.loadFromPrivate(PRIVATE_KEY).getAddress();
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.ethereumkeyj.core.util.RLPWriter;
+
+/**
+ * EIP-2930 access list: addresses and the storage keys a transaction plans to touch.
+ *
+ * <p>Addresses and keys are kept by reference and written straight from the caller's arrays when the transaction
+ * is encoded. Keys can be given one array each or packed back to back in a single array, so building a list with
+ * many keys does not copy them.</p>
+ *
+ * <p>A transaction keeps a read-only snapshot of the list it was built with, so adding to the list afterwards does
+ * not change the transaction's cached encoding and hash.</p>
+ */
+public class AccessList
+{
+
+  private static final int ADDRESS_LENGTH = 20;
+  private static final int KEY_LENGTH = 32;
+  /** Encoded size of an address and of a storage key: one header byte each. */
+  private static final int ENCODED_ADDRESS_LENGTH = ADDRESS_LENGTH + 1;
+  private static final int ENCODED_KEY_LENGTH = KEY_LENGTH + 1;
+
+  private final List<Entry> entries;
+
+  public AccessList()
+  {
+    this.entries = new ArrayList<>();
+  }
+
+  private AccessList(List<Entry> entries)
+  {
+    this.entries = entries;
+  }
+
+  /**
+   * @return a list with the current entries that throws {@link UnsupportedOperationException} on {@code add}
+   */
+  AccessList snapshot()
+  {
+    return new AccessList(Collections.unmodifiableList(new ArrayList<>(entries)));
+  }
+
+  /**
+   * @param address 20-byte address
+   * @param storageKeys 32-byte storage keys
+   * @return this list
+   * @throws UnsupportedOperationException if this is the list of a transaction
+   */
+  public AccessList add(byte[] address, byte[]... storageKeys)
+  {
+    for(byte[] key : storageKeys)
+    {
+      checkLength(key, KEY_LENGTH, "Storage key");
+    }
+    entries.add(new Entry(checkLength(address, ADDRESS_LENGTH, "Address"), storageKeys.clone(), null, 0,
+            storageKeys.length));
+    return this;
+  }
+
+  /**
+   * Adds an address with {@code count} storage keys stored back to back in {@code packedKeys} from {@code offset}.
+   *
+   * @param address 20-byte address
+   * @param packedKeys array holding the keys, 32 bytes each
+   * @param offset index of the first key byte
+   * @param count number of keys
+   * @return this list
+   * @throws UnsupportedOperationException if this is the list of a transaction
+   */
+  public AccessList add(byte[] address, byte[] packedKeys, int offset, int count)
+  {
+    if(offset < 0 || count < 0 || offset + (long) count * KEY_LENGTH > packedKeys.length)
+    {
+      throw new IllegalArgumentException("Packed storage keys out of range");
+    }
+    entries.add(new Entry(checkLength(address, ADDRESS_LENGTH, "Address"), null, packedKeys, offset, count));
+    return this;
+  }
+
+  private static byte[] checkLength(byte[] value, int length, String name)
+  {
+    if(value.length != length)
+    {
+      throw new IllegalArgumentException(name + " must be " + length + " bytes");
+    }
+    return value;
+  }
+
+  public int size()
+  {
+    return entries.size();
+  }
+
+  public byte[] getAddress(int index)
+  {
+    return entries.get(index).address;
+  }
+
+  public int getStorageKeyCount(int index)
+  {
+    return entries.get(index).count;
+  }
+
+  /**
+   * @return encoded size of the list in bytes
+   */
+  int getEncodedLength()
+  {
+    int payloadLength = 0;
+    for(Entry entry : entries)
+    {
+      payloadLength += RLPWriter.sizeOfList(entry.payloadLength());
+    }
+    return RLPWriter.sizeOfList(payloadLength);
+  }
+
+  void write(RLPWriter writer)
+  {
+    int payloadLength = 0;
+    for(Entry entry : entries)
+    {
+      payloadLength += RLPWriter.sizeOfList(entry.payloadLength());
+    }
+    writer.writeListHeader(payloadLength);
+    for(Entry entry : entries)
+    {
+      writer.writeListHeader(entry.payloadLength())
+              .writeString(entry.address)
+              .writeListHeader(entry.count * ENCODED_KEY_LENGTH);
+      for(int i = 0; i < entry.count; i++)
+      {
+        if(entry.keys != null)
+        {
+          writer.writeString(entry.keys[i]);
+        }
+        else
+        {
+          writer.writeString(entry.packedKeys, entry.offset + i * KEY_LENGTH, KEY_LENGTH);
+        }
+      }
+    }
+  }
+
+  private static class Entry
+  {
+
+    private final byte[] address;
+    private final byte[][] keys;
+    private final byte[] packedKeys;
+    private final int offset;
+    private final int count;
+
+    Entry(byte[] address, byte[][] keys, byte[] packedKeys, int offset, int count)
+    {
+      this.address = address;
+      this.keys = keys;
+      this.packedKeys = packedKeys;
+      this.offset = offset;
+      this.count = count;
+    }
+
+    int payloadLength()
+    {
+      return ENCODED_ADDRESS_LENGTH + RLPWriter.sizeOfList(count * ENCODED_KEY_LENGTH);
+    }
+  }
+}
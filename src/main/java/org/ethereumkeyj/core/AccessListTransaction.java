@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import org.ethereumkeyj.core.util.RLPWriter;
+
+/**
+ * EIP-2930 (type 1) transaction: a legacy gas price plus an access list.
+ */
+public class AccessListTransaction extends TypedTransaction
+{
+
+  public static final byte TYPE = 1;
+
+  private final byte[] gasPrice;
+
+  public AccessListTransaction(int chainId, byte[] nonce, byte[] gasPrice, byte[] gasLimit, byte[] receiveAddress,
+          byte[] value, byte[] data, AccessList accessList)
+  {
+    super(chainId, nonce, gasLimit, receiveAddress, value, data, accessList);
+    this.gasPrice = gasPrice;
+  }
+
+  @Override
+  public byte getType()
+  {
+    return TYPE;
+  }
+
+  @Override
+  int feeFieldsLength()
+  {
+    return RLPWriter.sizeOfString(gasPrice);
+  }
+
+  @Override
+  void writeFeeFields(RLPWriter writer)
+  {
+    writer.writeString(gasPrice);
+  }
+
+  public byte[] getGasPrice()
+  {
+    return gasPrice;
+  }
+}
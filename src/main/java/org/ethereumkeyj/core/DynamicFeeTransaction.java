@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import org.ethereumkeyj.core.util.RLPWriter;
+
+/**
+ * EIP-1559 (type 2) transaction: a priority fee and a fee cap instead of a gas price.
+ */
+public class DynamicFeeTransaction extends TypedTransaction
+{
+
+  public static final byte TYPE = 2;
+
+  private final byte[] maxPriorityFeePerGas;
+  private final byte[] maxFeePerGas;
+
+  public DynamicFeeTransaction(int chainId, byte[] nonce, byte[] maxPriorityFeePerGas, byte[] maxFeePerGas,
+          byte[] gasLimit, byte[] receiveAddress, byte[] value, byte[] data, AccessList accessList)
+  {
+    super(chainId, nonce, gasLimit, receiveAddress, value, data, accessList);
+    this.maxPriorityFeePerGas = maxPriorityFeePerGas;
+    this.maxFeePerGas = maxFeePerGas;
+  }
+
+  @Override
+  public byte getType()
+  {
+    return TYPE;
+  }
+
+  @Override
+  int feeFieldsLength()
+  {
+    return RLPWriter.sizeOfString(maxPriorityFeePerGas) + RLPWriter.sizeOfString(maxFeePerGas);
+  }
+
+  @Override
+  void writeFeeFields(RLPWriter writer)
+  {
+    writer.writeString(maxPriorityFeePerGas)
+            .writeString(maxFeePerGas);
+  }
+
+  public byte[] getMaxPriorityFeePerGas()
+  {
+    return maxPriorityFeePerGas;
+  }
+
+  public byte[] getMaxFeePerGas()
+  {
+    return maxFeePerGas;
+  }
+}
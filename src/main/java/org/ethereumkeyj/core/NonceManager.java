@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out account nonces to concurrent signers without a global lock.
+ *
+ * <p>Each address has its own counter; assigning a nonce is a single atomic increment on that counter, so threads
+ * signing for different accounts never touch shared state and threads signing for the same account only race on
+ * one compare-and-swap. The address lookup goes through a {@link ConcurrentHashMap}, whose reads are lock-free.</p>
+ *
+ * <p>A nonce that was assigned but will not be used, e.g. because signing or broadcasting failed, must be
+ * {@linkplain #release(String, long) released}. Releasing the most recently assigned nonce rolls the counter back;
+ * releasing an older one leaves a gap, and gaps are handed out again, lowest first, before the counter moves on.
+ * Until a gap is filled, transactions with higher nonces will not be mined.</p>
+ *
+ * <p>Addresses are compared ignoring case. An address starts at nonce 0 unless {@link #reset(String, long)} sets
+ * it, typically to the transaction count reported by a node.</p>
+ */
+public class NonceManager
+{
+
+  /**
+   * Keyed by lower case address, plus an alias entry for every other spelling seen, so that the fast path is a
+   * single lookup without converting the address.
+   */
+  private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+
+  private Account account(String address)
+  {
+    Account account = accounts.get(address);
+    if(account == null)
+    {
+      account = accounts.computeIfAbsent(address.toLowerCase(Locale.ROOT), key -> new Account());
+      accounts.putIfAbsent(address, account);
+    }
+    return account;
+  }
+
+  /**
+   * Assigns the next nonce of an address: the lowest released gap if there is one, otherwise the next new nonce.
+   *
+   * @param address account address
+   * @return the nonce to sign with
+   */
+  public long acquire(String address)
+  {
+    return account(address).acquire();
+  }
+
+  /**
+   * Gives back a nonce that was acquired but will not be used.
+   *
+   * @param address account address
+   * @param nonce a nonce returned by {@link #acquire(String)} and not released yet
+   * @throws IllegalArgumentException if the nonce was never handed out, or is below the nonce of the last
+   *         {@link #reset(String, long)}
+   */
+  public void release(String address, long nonce)
+  {
+    account(address).release(nonce);
+  }
+
+  /**
+   * Sets the next nonce of an address and forgets its gaps. Must not race with signers of the same address.
+   * Nonces below {@code nextNonce} count as used from then on: releasing one that was acquired before the reset is
+   * rejected instead of handing it out again.
+   *
+   * @param address account address
+   * @param nextNonce the nonce the next {@link #acquire(String)} returns
+   */
+  public void reset(String address, long nextNonce)
+  {
+    if(nextNonce < 0)
+    {
+      throw new IllegalArgumentException("Nonce must not be negative");
+    }
+    Account account = account(address);
+    account.floor = nextNonce;
+    account.gaps.clear();
+    account.next.set(nextNonce);
+  }
+
+  /**
+   * @param address account address
+   * @return the nonce a new transaction would get if there were no gaps
+   */
+  public long getNextNonce(String address)
+  {
+    return account(address).next.get();
+  }
+
+  /**
+   * @param address account address
+   * @return released nonces below {@link #getNextNonce(String)} that have not been assigned again, ascending
+   */
+  public long[] getGaps(String address)
+  {
+    return account(address).gaps.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  private static final class Account
+  {
+
+    private final AtomicLong next = new AtomicLong();
+    /**
+     * Only touched when nonces are released, so the common path is the increment of {@link #next}.
+     */
+    private final ConcurrentSkipListSet<Long> gaps = new ConcurrentSkipListSet<>();
+    /**
+     * Next nonce set by the last reset; everything below it is taken.
+     */
+    private volatile long floor;
+
+    long acquire()
+    {
+      if(!gaps.isEmpty())
+      {
+        Long gap = gaps.pollFirst();
+        if(gap != null)
+        {
+          return gap;
+        }
+      }
+      return next.getAndIncrement();
+    }
+
+    void release(long nonce)
+    {
+      if(nonce < 0 || nonce >= next.get())
+      {
+        throw new IllegalArgumentException("Nonce " + nonce + " was not assigned");
+      }
+      if(nonce < floor)
+      {
+        throw new IllegalArgumentException("Nonce " + nonce + " is below the reset nonce " + floor);
+      }
+      // releasing the newest nonce rolls the counter back, any other one becomes a gap
+      if(!next.compareAndSet(nonce + 1, nonce) && !gaps.add(nonce))
+      {
+        throw new IllegalArgumentException("Nonce " + nonce + " was already released");
+      }
+      collapse();
+    }
+
+    /**
+     * Moves the counter back over gaps that ended up directly below it.
+     */
+    private void collapse()
+    {
+      while(true)
+      {
+        long top = next.get();
+        if(!gaps.remove(top - 1))
+        {
+          return;
+        }
+        if(!next.compareAndSet(top, top - 1))
+        {
+          // a signer took a new nonce meanwhile, so this one stays a gap
+          gaps.add(top - 1);
+          return;
+        }
+      }
+    }
+  }
+}
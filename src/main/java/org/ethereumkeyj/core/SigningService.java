@@ -0,0 +1,429 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import java.math.BigInteger;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.ethereumkeyj.core.jce.Secp256k1Signer;
+import org.ethereumkeyj.core.util.LatencyHistogram;
+
+/**
+ * Signs transactions for a set of registered accounts on a fixed pool of worker threads.
+ *
+ * <p>The private key of an account is taken from the wallet once when it is added and kept in a
+ * {@link Secp256k1Signer}, which signs on the calling worker's own engine or nonce generator, so signing neither
+ * re-parses keys nor shares mutable state between threads. Transactions wait in a bounded queue: {@code submit} blocks while the queue is full and
+ * {@code trySubmit} gives up after a timeout, which lets producers feel backpressure instead of growing an
+ * unbounded backlog. Each submission completes with the signed raw transaction.</p>
+ *
+ * <p>The service records the time from submission to completion and the time spent signing in
+ * {@link LatencyHistogram}s, and counts submitted, signed, failed and rejected transactions.</p>
+ */
+public class SigningService implements AutoCloseable
+{
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  private static final long POLL_INTERVAL_MILLIS = 100;
+
+  private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+  private final BlockingQueue<Job> queue;
+  private final Thread[] workers;
+  private volatile boolean shutdown;
+
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final LatencyHistogram signingTime = new LatencyHistogram();
+  private final LongAdder submitted = new LongAdder();
+  private final LongAdder signed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final long startNanos = System.nanoTime();
+
+  public SigningService(int workerCount)
+  {
+    this(workerCount, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Starts the workers.
+   *
+   * @param workerCount number of signing threads
+   * @param queueCapacity number of transactions that may wait for a worker
+   */
+  public SigningService(int workerCount, int queueCapacity)
+  {
+    if(workerCount < 1)
+    {
+      throw new IllegalArgumentException("Worker count must be positive");
+    }
+    if(queueCapacity < 1)
+    {
+      throw new IllegalArgumentException("Queue capacity must be positive");
+    }
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.workers = new Thread[workerCount];
+    for(int i = 0; i < workerCount; i++)
+    {
+      workers[i] = new Thread(this::work, "signing-service-" + i);
+      workers[i].setDaemon(true);
+      workers[i].start();
+    }
+  }
+
+  /**
+   * Registers the account of a wallet, replacing an earlier registration of the same address.
+   *
+   * @param wallet wallet with a private key
+   * @throws IllegalArgumentException if the wallet has no private key or the key is out of range
+   */
+  public void addAccount(Wallet wallet)
+  {
+    BigInteger privKey = wallet.getPrivKey();
+    if(privKey == null)
+    {
+      throw new IllegalArgumentException("Wallet " + wallet.getAddress() + " has no private key");
+    }
+    accounts.put(key(wallet.getAddress()), new Account(privKey));
+  }
+
+  /**
+   * @param address account address, any case
+   * @return true if the account was registered
+   */
+  public boolean removeAccount(String address)
+  {
+    return accounts.remove(key(address)) != null;
+  }
+
+  public boolean hasAccount(String address)
+  {
+    return accounts.containsKey(key(address));
+  }
+
+  private static String key(String address)
+  {
+    return address.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Queues a transaction, waiting while the queue is full.
+   *
+   * @param from address of a registered account
+   * @param transaction the transaction to sign; must not be used by the caller until the result completes
+   * @return completes with the signed raw transaction
+   * @throws IllegalArgumentException if the account is not registered
+   * @throws RejectedExecutionException if the service is shut down
+   * @throws InterruptedException if interrupted while waiting for space in the queue
+   */
+  public CompletableFuture<byte[]> submit(String from, Transaction transaction) throws InterruptedException
+  {
+    return enqueue(from, signer -> sign(transaction, signer), -1);
+  }
+
+  /**
+   * @see #submit(String, Transaction)
+   */
+  public CompletableFuture<byte[]> submit(String from, TypedTransaction transaction) throws InterruptedException
+  {
+    return enqueue(from, signer -> sign(transaction, signer), -1);
+  }
+
+  /**
+   * Queues a transaction, waiting at most the given time for space in the queue.
+   *
+   * @param from address of a registered account
+   * @param transaction the transaction to sign; must not be used by the caller until the result completes
+   * @param timeout how long to wait, 0 to fail at once when the queue is full
+   * @param unit unit of the timeout
+   * @return completes with the signed raw transaction
+   * @throws IllegalArgumentException if the account is not registered
+   * @throws RejectedExecutionException if the queue stayed full or the service is shut down
+   * @throws InterruptedException if interrupted while waiting for space in the queue
+   */
+  public CompletableFuture<byte[]> trySubmit(String from, Transaction transaction, long timeout, TimeUnit unit)
+          throws InterruptedException
+  {
+    return enqueue(from, signer -> sign(transaction, signer), unit.toNanos(Math.max(0, timeout)));
+  }
+
+  /**
+   * @see #trySubmit(String, Transaction, long, TimeUnit)
+   */
+  public CompletableFuture<byte[]> trySubmit(String from, TypedTransaction transaction, long timeout, TimeUnit unit)
+          throws InterruptedException
+  {
+    return enqueue(from, signer -> sign(transaction, signer), unit.toNanos(Math.max(0, timeout)));
+  }
+
+  private static byte[] sign(Transaction transaction, Secp256k1Signer signer)
+  {
+    transaction.sign(signer);
+    return transaction.getEncoded();
+  }
+
+  private static byte[] sign(TypedTransaction transaction, Secp256k1Signer signer)
+  {
+    transaction.sign(signer);
+    return transaction.getEncoded();
+  }
+
+  /**
+   * @param timeoutNanos negative to wait until there is space
+   */
+  private CompletableFuture<byte[]> enqueue(String from, Function<Secp256k1Signer, byte[]> task, long timeoutNanos)
+          throws InterruptedException
+  {
+    Account account = accounts.get(key(from));
+    if(account == null)
+    {
+      throw new IllegalArgumentException("Unknown account " + from);
+    }
+    if(shutdown)
+    {
+      throw new RejectedExecutionException("Signing service is shut down");
+    }
+    Job job = new Job(account, task);
+    boolean queued;
+    if(timeoutNanos < 0)
+    {
+      queue.put(job);
+      queued = true;
+    }
+    else
+    {
+      queued = queue.offer(job, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+    if(!queued)
+    {
+      rejected.increment();
+      throw new RejectedExecutionException("Signing queue is full");
+    }
+    if(shutdown && queue.remove(job))
+    {
+      // shut down while waiting, the workers may already be gone
+      throw new RejectedExecutionException("Signing service is shut down");
+    }
+    submitted.increment();
+    return job.result;
+  }
+
+  private void work()
+  {
+    while(!shutdown || !queue.isEmpty())
+    {
+      Job job;
+      try
+      {
+        job = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      }
+      catch(InterruptedException e)
+      {
+        // shutdownNow: stop without draining
+        return;
+      }
+      if(job != null)
+      {
+        run(job);
+      }
+    }
+  }
+
+  private void run(Job job)
+  {
+    long start = System.nanoTime();
+    try
+    {
+      byte[] raw = job.task.apply(job.account.signer);
+      long end = System.nanoTime();
+      signingTime.record(end - start);
+      latency.record(end - job.submitted);
+      signed.increment();
+      job.result.complete(raw);
+    }
+    catch(Throwable e)
+    {
+      failed.increment();
+      job.result.completeExceptionally(e);
+      if(e instanceof VirtualMachineError && !(e instanceof StackOverflowError))
+      {
+        // the caller has its result; the JVM is in trouble, let the worker die like any thread would
+        throw (VirtualMachineError) e;
+      }
+    }
+  }
+
+  /**
+   * Stops accepting transactions. Queued transactions are still signed.
+   */
+  public void shutdown()
+  {
+    shutdown = true;
+  }
+
+  /**
+   * Stops accepting transactions and interrupts the workers; transactions still in the queue are completed
+   * exceptionally.
+   */
+  public void shutdownNow()
+  {
+    shutdown = true;
+    for(Thread worker : workers)
+    {
+      worker.interrupt();
+    }
+    Job job;
+    while((job = queue.poll()) != null)
+    {
+      failed.increment();
+      job.result.completeExceptionally(new RejectedExecutionException("Signing service is shut down"));
+    }
+  }
+
+  /**
+   * Waits for the workers to finish after {@link #shutdown()}.
+   *
+   * @return true if all workers finished in time
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+  {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for(Thread worker : workers)
+    {
+      long remaining = deadline - System.nanoTime();
+      if(remaining > 0)
+      {
+        TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+      }
+      if(worker.isAlive())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Shuts down and waits until the queue is drained. If the calling thread is interrupted it stops waiting and
+   * keeps its interrupt status set; the workers still drain the queue.
+   */
+  @Override
+  public void close()
+  {
+    shutdown();
+    try
+    {
+      for(Thread worker : workers)
+      {
+        worker.join();
+      }
+    }
+    catch(InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return time from submission to the signed result, in nanoseconds
+   */
+  public LatencyHistogram getLatency()
+  {
+    return latency;
+  }
+
+  /**
+   * @return time a worker spent signing and encoding, in nanoseconds
+   */
+  public LatencyHistogram getSigningTime()
+  {
+    return signingTime;
+  }
+
+  public long getSubmittedCount()
+  {
+    return submitted.sum();
+  }
+
+  public long getSignedCount()
+  {
+    return signed.sum();
+  }
+
+  public long getFailedCount()
+  {
+    return failed.sum();
+  }
+
+  /**
+   * @return submissions turned away because the queue stayed full
+   */
+  public long getRejectedCount()
+  {
+    return rejected.sum();
+  }
+
+  public int getQueueSize()
+  {
+    return queue.size();
+  }
+
+  /**
+   * @return signed transactions per second since the service started
+   */
+  public double getThroughput()
+  {
+    long elapsed = System.nanoTime() - startNanos;
+    return elapsed <= 0 ? 0 : signed.sum() * 1e9 / elapsed;
+  }
+
+  /**
+   * Parsed key material of one account, shared by all workers.
+   */
+  private static final class Account
+  {
+
+    private final Secp256k1Signer signer;
+
+    Account(BigInteger privKey)
+    {
+      // checks the key range when the account is added rather than on its first transaction
+      this.signer = new Secp256k1Signer(privKey);
+    }
+  }
+
+  private static final class Job
+  {
+
+    private final Account account;
+    private final Function<Secp256k1Signer, byte[]> task;
+    private final long submitted = System.nanoTime();
+    private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+    Job(Account account, Function<Secp256k1Signer, byte[]> task)
+    {
+      this.account = account;
+      this.task = task;
+    }
+  }
+}
@@ -15,20 +15,37 @@
  */
 package org.ethereumkeyj.core;
 
-import org.bouncycastle.util.BigIntegers;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.function.Function;
 import org.ethereumkeyj.core.jce.ECKey;
-import org.ethereumkeyj.core.util.ByteUtil;
+import org.ethereumkeyj.core.jce.Secp256k1Signer;
 import org.ethereumkeyj.core.util.HashUtil;
 import org.ethereumkeyj.core.util.RLP;
+import org.ethereumkeyj.core.util.RLPEncodable;
+import org.ethereumkeyj.core.util.RLPItem;
+import org.ethereumkeyj.core.util.RLPWriter;
 
 /**
+ * Legacy Ethereum transaction, with EIP-155 replay protection when it has a chain id.
+ *
+ * <p>Byte arrays passed to the constructors and setters, and returned by the getters, are not copied. The
+ * encoding and hash are cached until a setter is called, so an array must not be modified while the transaction
+ * uses it: to change a field, pass a new array to its setter.</p>
  *
  * @author baso10
  */
-public class Transaction
+public class Transaction implements RLPEncodable
 {
 
+  private static final int FIELD_COUNT = 9;
+
   private ECKey.ECDSASignature signature;
+  /**
+   * v of the signature as encoded. {@link ECKey.ECDSASignature#v} is a byte and cannot hold EIP-155 values of chain
+   * ids above 109.
+   */
+  private int v;
 
   private byte[] nonce;
   private byte[] gasPrice;
@@ -38,6 +55,20 @@ public class Transaction
   private byte[] data;
   private int chainId;
 
+  /**
+   * Encoding of the current field values, either the raw bytes the transaction was created from or the result of
+   * the last {@link #getEncoded()}. Cleared by every change.
+   */
+  private byte[] rlpEncoded;
+  private byte[] hash;
+  /**
+   * Fields of a raw transaction are decoded on first access.
+   */
+  private boolean parsed = true;
+
+  /**
+   * Creates an unsigned transaction. The arrays are kept, not copied, and must not be modified afterwards.
+   */
   public Transaction(byte[] nonce, byte[] gasPrice, byte[] gasLimit, byte[] receiveAddress, byte[] value,
           byte[] data, int chainId)
   {
@@ -50,114 +81,337 @@ public class Transaction
     this.chainId = chainId;
   }
 
+  /**
+   * Creates a transaction from its RLP encoding, signed or unsigned. The bytes are kept as they are: the fields are
+   * decoded on first access, and {@link #getEncoded()} and {@link #getHash()} reuse them until the transaction is
+   * changed.
+   *
+   * @param rawTransaction RLP list of the nine transaction fields, not copied
+   * @throws IllegalArgumentException if the bytes are not a single RLP list
+   */
   public Transaction(byte[] rawTransaction)
   {
-    throw new UnsupportedOperationException("Not implemented yet.");
+    if(!RLP.decode(rawTransaction).isList())
+    {
+      throw new IllegalArgumentException("Transaction encoding is not an RLP list");
+    }
+    this.rlpEncoded = rawTransaction;
+    this.parsed = false;
+  }
+
+  private void parse()
+  {
+    if(parsed)
+    {
+      return;
+    }
+    RLPItem list = RLP.decode(rlpEncoded);
+    Iterator<RLPItem> fields = list.iterator();
+    RLPItem[] items = new RLPItem[FIELD_COUNT];
+    for(int i = 0; i < FIELD_COUNT; i++)
+    {
+      if(!fields.hasNext())
+      {
+        throw new IllegalArgumentException("Transaction has " + i + " fields, expected " + FIELD_COUNT);
+      }
+      items[i] = fields.next();
+      if(items[i].isList())
+      {
+        throw new IllegalArgumentException("Transaction field " + i + " is a list");
+      }
+    }
+    if(fields.hasNext())
+    {
+      throw new IllegalArgumentException("Transaction has more than " + FIELD_COUNT + " fields");
+    }
+    this.nonce = items[0].getBytes();
+    this.gasPrice = items[1].getBytes();
+    this.gasLimit = items[2].getBytes();
+    this.receiveAddress = items[3].getBytes();
+    this.value = items[4].getBytes();
+    this.data = items[5].getBytes();
+    int v = items[6].asInt();
+    if(items[7].getPayloadLength() == 0 && items[8].getPayloadLength() == 0)
+    {
+      // unsigned, v holds the EIP-155 chain id
+      this.chainId = v;
+    }
+    else
+    {
+      this.signature = new ECKey.ECDSASignature(items[7].asBigInteger(), items[8].asBigInteger());
+      this.signature.v = signatureV(v);
+      this.v = v;
+      // EIP-155: v = CHAIN_ID * 2 + 35 or v = CHAIN_ID * 2 + 36
+      this.chainId = v >= 35 ? (v - 35) / 2 : 0;
+    }
+    this.parsed = true;
+  }
+
+  /**
+   * Drops the cached encoding and hash before a field changes.
+   */
+  private void modified()
+  {
+    parse();
+    rlpEncoded = null;
+    hash = null;
   }
 
   public void sign(Wallet from)
   {
-    ECKey ecKey = ECKey.fromPrivate(ByteUtil.hexStringToBytes(from.getPrivateKey()));
+    sign(from::sign);
+  }
 
-    this.signature = ecKey.sign(HashUtil.sha3(getEncoded()));
+  /**
+   * Signs with a signer bound to the private key, which checks and converts the key only once. The signature is
+   * the same as with {@link #sign(Wallet)}.
+   *
+   * @param signer signer for the sending account
+   */
+  public void sign(Secp256k1Signer signer)
+  {
+    sign(signer::sign);
+  }
+
+  private void sign(Function<byte[], ECKey.ECDSASignature> signer)
+  {
+    // the signing preimage is the unsigned encoding, also when re-signing
+    if(getSignature() != null)
+    {
+      modified();
+      this.signature = null;
+    }
+    ECKey.ECDSASignature newSignature = signer.apply(getHash());
 
     // Apply EIP-155 chainId. v = CHAIN_ID * 2 + 35 or v = CHAIN_ID * 2 + 36
     // from ecKey.sign => sig.v = (byte) (recId + 27);
+    int newV = newSignature.v;
     if(chainId > 0)
     {
-      this.signature.v += chainId * 2 + 8;
+      newV += chainId * 2 + 8;
+      newSignature.v = signatureV(newV);
     }
+    modified();
+    this.signature = newSignature;
+    this.v = newV;
   }
 
   public byte[] getNonce()
   {
+    parse();
     return nonce;
   }
 
   public void setNonce(byte[] nonce)
   {
+    modified();
     this.nonce = nonce;
   }
 
   public byte[] getGasPrice()
   {
+    parse();
     return gasPrice;
   }
 
   public void setGasPrice(byte[] gasPrice)
   {
+    modified();
     this.gasPrice = gasPrice;
   }
 
   public byte[] getGasLimit()
   {
+    parse();
     return gasLimit;
   }
 
   public void setGasLimit(byte[] gasLimit)
   {
+    modified();
     this.gasLimit = gasLimit;
   }
 
   public byte[] getReceiveAddress()
   {
+    parse();
     return receiveAddress;
   }
 
   public void setReceiveAddress(byte[] receiveAddress)
   {
+    modified();
     this.receiveAddress = receiveAddress;
   }
 
   public byte[] getValue()
   {
+    parse();
     return value;
   }
 
   public void setValue(byte[] value)
   {
+    modified();
     this.value = value;
   }
 
   public byte[] getData()
   {
+    parse();
     return data;
   }
 
   public void setData(byte[] data)
   {
+    modified();
     this.data = data;
   }
 
+  public int getChainId()
+  {
+    parse();
+    return chainId;
+  }
+
+  /**
+   * @return v of the signature, including the EIP-155 chain id; 0 if the transaction is not signed
+   */
+  public int getV()
+  {
+    parse();
+    return signature == null ? 0 : v;
+  }
+
+  /**
+   * v in the single byte of {@link ECKey.ECDSASignature#v}: as is up to 255, otherwise the recovery header 27 or 28.
+   */
+  private static byte signatureV(int v)
+  {
+    return (byte) (v <= 0xFF ? v : 27 + ((v - 35) & 1));
+  }
+
+  /**
+   * @return the signature, or null if the transaction is not signed; see {@link #getV()} for the full v
+   */
+  public ECKey.ECDSASignature getSignature()
+  {
+    parse();
+    return signature;
+  }
+
+  /**
+   * Returns the RLP encoding: the signing preimage before {@link #sign(Wallet)}, the signed transaction after. The
+   * result is cached until the transaction is changed and must not be modified.
+   *
+   * @return the encoding
+   */
   public byte[] getEncoded()
   {
+    if(rlpEncoded == null)
+    {
+      rlpEncoded = encode();
+    }
+    return rlpEncoded;
+  }
+
+  /**
+   * @return size of {@link #getEncoded()} in bytes
+   */
+  @Override
+  public int getEncodedLength()
+  {
+    return rlpEncoded != null ? rlpEncoded.length : RLPWriter.sizeOfList(payloadLength());
+  }
+
+  /**
+   * Writes {@link #getEncoded()} to the buffer without allocating an intermediate array.
+   *
+   * @param out receives {@link #getEncodedLength()} bytes at its position
+   */
+  @Override
+  public void writeEncoded(ByteBuffer out)
+  {
+    if(rlpEncoded != null)
+    {
+      out.put(rlpEncoded);
+    }
+    else
+    {
+      write(new RLPWriter(out), payloadLength());
+    }
+  }
+
+  private byte[] encode()
+  {
+    int payloadLength = payloadLength();
+    byte[] encoded = new byte[RLPWriter.sizeOfList(payloadLength)];
+    write(new RLPWriter(encoded), payloadLength);
+    return encoded;
+  }
 
-    byte[] nonceRaw = nonce == null || (this.nonce.length == 1 && this.nonce[0] == 0) ? RLP.encodeElement(null) : RLP.encodeElement(nonce);
-    byte[] gasPriceRaw = RLP.encodeElement(this.gasPrice);
-    byte[] gasLimitRaw = RLP.encodeElement(this.gasLimit);
-    byte[] receiveAddressRaw = RLP.encodeElement(this.receiveAddress);
-    byte[] valueRaw = RLP.encodeElement(this.value);
-    byte[] dataRaw = this.data == null ? RLP.encodeElement(null) : RLP.encodeElement(this.data);
+  private byte[] encodedNonce()
+  {
+    // a zero nonce is the empty string
+    return nonce == null || (this.nonce.length == 1 && this.nonce[0] == 0) ? null : nonce;
+  }
+
+  private int payloadLength()
+  {
+    parse();
+    int length = RLPWriter.sizeOfString(encodedNonce())
+            + RLPWriter.sizeOfString(gasPrice)
+            + RLPWriter.sizeOfString(gasLimit)
+            + RLPWriter.sizeOfString(receiveAddress)
+            + RLPWriter.sizeOfString(value)
+            + RLPWriter.sizeOfString(data);
+    if(signature != null)
+    {
+      length += RLPWriter.sizeOfLong(v)
+              + RLPWriter.sizeOfBigInteger(signature.r)
+              + RLPWriter.sizeOfBigInteger(signature.s);
+    }
+    else
+    {
+      // EIP-155 signing preimage: chainId, 0, 0
+      length += RLPWriter.sizeOfLong(chainId) + 2;
+    }
+    return length;
+  }
 
-    byte[] v, r, s;
-    if(this.signature != null)
+  private void write(RLPWriter writer, int payloadLength)
+  {
+    writer.writeListHeader(payloadLength)
+            .writeString(encodedNonce())
+            .writeString(gasPrice)
+            .writeString(gasLimit)
+            .writeString(receiveAddress)
+            .writeString(value)
+            .writeString(data);
+    if(signature != null)
     {
-      v = RLP.encodeInt(signature.v);
-      r = RLP.encodeElement(BigIntegers.asUnsignedByteArray(signature.r));
-      s = RLP.encodeElement(BigIntegers.asUnsignedByteArray(signature.s));
+      writer.writeLong(v)
+              .writeBigInteger(signature.r)
+              .writeBigInteger(signature.s);
     }
     else
     {
-      v = RLP.encodeInt(chainId);
-      r = RLP.encodeElement(ByteUtil.EMPTY_BYTE_ARRAY);
-      s = RLP.encodeElement(ByteUtil.EMPTY_BYTE_ARRAY);
+      writer.writeLong(chainId)
+              .writeString(null)
+              .writeString(null);
     }
-    return RLP.encodeList(nonceRaw, gasPriceRaw, gasLimitRaw, receiveAddressRaw, valueRaw, dataRaw, v, r, s);
   }
-  
+
+  /**
+   * @return Keccak-256 of {@link #getEncoded()}, cached like the encoding and not to be modified
+   */
   public byte[] getHash()
   {
-    return HashUtil.sha3(getEncoded());
+    if(hash == null)
+    {
+      hash = HashUtil.sha3(getEncoded());
+    }
+    return hash;
   }
 
 }
@@ -17,7 +17,8 @@ package org.ethereumkeyj.core;
 
 import java.math.BigInteger;
 import org.bouncycastle.util.BigIntegers;
-import org.bouncycastle.util.encoders.Hex;
+import org.ethereumkeyj.core.util.ByteUtil;
+import org.ethereumkeyj.core.util.HexCodec;
 
 /**
  *
@@ -33,16 +34,106 @@ public class TransactionBuilder
 
   public static Transaction create(Wallet to, BigInteger amountInWei, BigInteger nonce, byte[] data, BigInteger gasPrice, BigInteger gasLimit, int chainId)
   {
-    byte[] nonceRaw = BigIntegers.asUnsignedByteArray(nonce == null ? BigInteger.ZERO : nonce);
+    return newTransaction(to, amountInWei, nonceBytes(nonce), data, gasPrice, gasLimit, chainId);
+  }
+
+  /**
+   * Creates a transaction with the next nonce of {@code from}. The nonce is assigned without locking, so any number
+   * of threads may build transactions for the same account. If the transaction is not sent, give its nonce back
+   * with {@link NonceManager#release(String, long)}.
+   *
+   * @param nonces assigns the nonce
+   * @param from the sending wallet
+   */
+  public static Transaction create(NonceManager nonces, Wallet from, Wallet to, BigInteger amountInWei, byte[] data,
+          BigInteger gasPrice, BigInteger gasLimit, int chainId)
+  {
+    long nonce = nonces.acquire(from.getAddress());
+    return newTransaction(to, amountInWei, ByteUtil.longToBytesNoLeadZeroes(nonce), data, gasPrice, gasLimit, chainId);
+  }
+
+  private static Transaction newTransaction(Wallet to, BigInteger amountInWei, byte[] nonceRaw, byte[] data, BigInteger gasPrice, BigInteger gasLimit, int chainId)
+  {
     byte[] gasPriceRaw = BigIntegers.asUnsignedByteArray(gasPrice);
     byte[] gasLimitRaw = BigIntegers.asUnsignedByteArray(gasLimit);
-    byte[] receiveAddress = Hex.decode(to.getAddress().substring(2));
+    byte[] receiveAddress = HexCodec.decode(to.getAddress());
     byte[] value = BigIntegers.asUnsignedByteArray(amountInWei);
     byte[] dataRaw = data == null ? new byte[0] : data;
 
     return new Transaction(nonceRaw, gasPriceRaw, gasLimitRaw, receiveAddress, value, dataRaw, chainId);
   }
 
+  public static AccessListTransaction createAccessList(Wallet to, BigInteger amountInWei, BigInteger nonce, byte[] data,
+          BigInteger gasPrice, BigInteger gasLimit, int chainId, AccessList accessList)
+  {
+    return newAccessList(to, amountInWei, nonceBytes(nonce), data, gasPrice, gasLimit, chainId, accessList);
+  }
+
+  /**
+   * EIP-2930 variant of {@link #create(NonceManager, Wallet, Wallet, BigInteger, byte[], BigInteger, BigInteger, int)}.
+   */
+  public static AccessListTransaction createAccessList(NonceManager nonces, Wallet from, Wallet to,
+          BigInteger amountInWei, byte[] data, BigInteger gasPrice, BigInteger gasLimit, int chainId,
+          AccessList accessList)
+  {
+    long nonce = nonces.acquire(from.getAddress());
+    return newAccessList(to, amountInWei, ByteUtil.longToBytesNoLeadZeroes(nonce), data, gasPrice, gasLimit,
+            chainId, accessList);
+  }
+
+  private static AccessListTransaction newAccessList(Wallet to, BigInteger amountInWei, byte[] nonceRaw,
+          byte[] data, BigInteger gasPrice, BigInteger gasLimit, int chainId, AccessList accessList)
+  {
+    return new AccessListTransaction(chainId,
+            nonceRaw,
+            BigIntegers.asUnsignedByteArray(gasPrice),
+            BigIntegers.asUnsignedByteArray(gasLimit),
+            HexCodec.decode(to.getAddress()),
+            BigIntegers.asUnsignedByteArray(amountInWei),
+            data == null ? new byte[0] : data,
+            accessList);
+  }
+
+  public static DynamicFeeTransaction createDynamicFee(Wallet to, BigInteger amountInWei, BigInteger nonce, byte[] data,
+          BigInteger maxPriorityFeePerGas, BigInteger maxFeePerGas, BigInteger gasLimit, int chainId,
+          AccessList accessList)
+  {
+    return newDynamicFee(to, amountInWei, nonceBytes(nonce), data, maxPriorityFeePerGas, maxFeePerGas, gasLimit,
+            chainId, accessList);
+  }
+
+  /**
+   * EIP-1559 variant of {@link #create(NonceManager, Wallet, Wallet, BigInteger, byte[], BigInteger, BigInteger, int)}.
+   */
+  public static DynamicFeeTransaction createDynamicFee(NonceManager nonces, Wallet from, Wallet to,
+          BigInteger amountInWei, byte[] data, BigInteger maxPriorityFeePerGas, BigInteger maxFeePerGas,
+          BigInteger gasLimit, int chainId, AccessList accessList)
+  {
+    long nonce = nonces.acquire(from.getAddress());
+    return newDynamicFee(to, amountInWei, ByteUtil.longToBytesNoLeadZeroes(nonce), data, maxPriorityFeePerGas,
+            maxFeePerGas, gasLimit, chainId, accessList);
+  }
+
+  private static DynamicFeeTransaction newDynamicFee(Wallet to, BigInteger amountInWei, byte[] nonceRaw,
+          byte[] data, BigInteger maxPriorityFeePerGas, BigInteger maxFeePerGas, BigInteger gasLimit, int chainId,
+          AccessList accessList)
+  {
+    return new DynamicFeeTransaction(chainId,
+            nonceRaw,
+            BigIntegers.asUnsignedByteArray(maxPriorityFeePerGas),
+            BigIntegers.asUnsignedByteArray(maxFeePerGas),
+            BigIntegers.asUnsignedByteArray(gasLimit),
+            HexCodec.decode(to.getAddress()),
+            BigIntegers.asUnsignedByteArray(amountInWei),
+            data == null ? new byte[0] : data,
+            accessList);
+  }
+
+  private static byte[] nonceBytes(BigInteger nonce)
+  {
+    return BigIntegers.asUnsignedByteArray(nonce == null ? BigInteger.ZERO : nonce);
+  }
+
   private TransactionBuilder()
   {
 
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import java.nio.ByteBuffer;
+import org.ethereumkeyj.core.jce.ECKey;
+import org.ethereumkeyj.core.jce.Secp256k1Signer;
+import org.ethereumkeyj.core.util.HashUtil;
+import org.ethereumkeyj.core.util.RLPEncodable;
+import org.ethereumkeyj.core.util.RLPWriter;
+
+/**
+ * EIP-2718 typed transaction: a type byte followed by the RLP list of the fields.
+ *
+ * <p>Subclasses only describe their fee fields; the rest of the pipeline is shared. Like {@link Transaction}, the
+ * signing preimage and the signed encoding are each written in one pass into an array of the exact size by
+ * {@link RLPWriter}, and the encoding and hash are cached until the transaction is signed again. As there, the
+ * field arrays are kept, not copied, and must not be modified once the transaction is built.</p>
+ */
+public abstract class TypedTransaction implements RLPEncodable
+{
+
+  private final int chainId;
+  private final byte[] nonce;
+  private final byte[] gasLimit;
+  private final byte[] receiveAddress;
+  private final byte[] value;
+  private final byte[] data;
+  private final AccessList accessList;
+
+  private ECKey.ECDSASignature signature;
+
+  private byte[] rlpEncoded;
+  private byte[] hash;
+
+  TypedTransaction(int chainId, byte[] nonce, byte[] gasLimit, byte[] receiveAddress, byte[] value, byte[] data,
+          AccessList accessList)
+  {
+    this.chainId = chainId;
+    this.nonce = nonce;
+    this.gasLimit = gasLimit;
+    this.receiveAddress = receiveAddress;
+    this.value = value;
+    this.data = data;
+    this.accessList = (accessList == null ? new AccessList() : accessList).snapshot();
+  }
+
+  /**
+   * @return the EIP-2718 transaction type
+   */
+  public abstract byte getType();
+
+  /**
+   * @return encoded size of the fee fields between nonce and gas limit
+   */
+  abstract int feeFieldsLength();
+
+  abstract void writeFeeFields(RLPWriter writer);
+
+  /**
+   * Signs the transaction. The signature replaces any previous one.
+   *
+   * @param from wallet holding the private key
+   */
+  public void sign(Wallet from)
+  {
+    setSignature(from.sign(getSigningHash()));
+  }
+
+  /**
+   * Signs with a signer bound to the private key, which checks and converts the key only once. The signature is
+   * the same as with {@link #sign(Wallet)}.
+   *
+   * @param signer signer for the sending account
+   */
+  public void sign(Secp256k1Signer signer)
+  {
+    setSignature(signer.sign(getSigningHash()));
+  }
+
+  private void setSignature(ECKey.ECDSASignature newSignature)
+  {
+    rlpEncoded = null;
+    hash = null;
+    this.signature = newSignature;
+  }
+
+  /**
+   * @return Keccak-256 of the type byte and the unsigned fields
+   */
+  public byte[] getSigningHash()
+  {
+    return HashUtil.sha3(encode(false));
+  }
+
+  /**
+   * @return the type byte followed by the RLP list of all fields, cached and not to be modified
+   */
+  public byte[] getEncoded()
+  {
+    if(rlpEncoded == null)
+    {
+      rlpEncoded = encode(signature != null);
+    }
+    return rlpEncoded;
+  }
+
+  /**
+   * @return Keccak-256 of {@link #getEncoded()}, cached and not to be modified
+   */
+  public byte[] getHash()
+  {
+    if(hash == null)
+    {
+      hash = HashUtil.sha3(getEncoded());
+    }
+    return hash;
+  }
+
+  @Override
+  public int getEncodedLength()
+  {
+    return rlpEncoded != null ? rlpEncoded.length : 1 + RLPWriter.sizeOfList(payloadLength(signature != null));
+  }
+
+  @Override
+  public void writeEncoded(ByteBuffer out)
+  {
+    if(rlpEncoded != null)
+    {
+      out.put(rlpEncoded);
+    }
+    else
+    {
+      boolean signed = signature != null;
+      write(new RLPWriter(out), signed, payloadLength(signed));
+    }
+  }
+
+  private byte[] encode(boolean signed)
+  {
+    int payloadLength = payloadLength(signed);
+    byte[] encoded = new byte[1 + RLPWriter.sizeOfList(payloadLength)];
+    write(new RLPWriter(encoded), signed, payloadLength);
+    return encoded;
+  }
+
+  private int payloadLength(boolean signed)
+  {
+    int length = RLPWriter.sizeOfLong(chainId)
+            + RLPWriter.sizeOfString(nonce)
+            + feeFieldsLength()
+            + RLPWriter.sizeOfString(gasLimit)
+            + RLPWriter.sizeOfString(receiveAddress)
+            + RLPWriter.sizeOfString(value)
+            + RLPWriter.sizeOfString(data)
+            + accessList.getEncodedLength();
+    if(signed)
+    {
+      length += RLPWriter.sizeOfLong(getYParity())
+              + RLPWriter.sizeOfBigInteger(signature.r)
+              + RLPWriter.sizeOfBigInteger(signature.s);
+    }
+    return length;
+  }
+
+  private void write(RLPWriter writer, boolean signed, int payloadLength)
+  {
+    writer.writeRaw(getType())
+            .writeListHeader(payloadLength)
+            .writeLong(chainId)
+            .writeString(nonce);
+    writeFeeFields(writer);
+    writer.writeString(gasLimit)
+            .writeString(receiveAddress)
+            .writeString(value)
+            .writeString(data);
+    accessList.write(writer);
+    if(signed)
+    {
+      writer.writeLong(getYParity())
+              .writeBigInteger(signature.r)
+              .writeBigInteger(signature.s);
+    }
+  }
+
+  private int getYParity()
+  {
+    // ECKey.sign sets v = recId + 27
+    return (signature.v - 27) & 1;
+  }
+
+  public int getChainId()
+  {
+    return chainId;
+  }
+
+  public byte[] getNonce()
+  {
+    return nonce;
+  }
+
+  public byte[] getGasLimit()
+  {
+    return gasLimit;
+  }
+
+  public byte[] getReceiveAddress()
+  {
+    return receiveAddress;
+  }
+
+  public byte[] getValue()
+  {
+    return value;
+  }
+
+  public byte[] getData()
+  {
+    return data;
+  }
+
+  /**
+   * @return read-only copy of the access list the transaction was built with
+   */
+  public AccessList getAccessList()
+  {
+    return accessList;
+  }
+
+  /**
+   * @return the signature with {@code v} = y-parity + 27, or null if the transaction is not signed
+   */
+  public ECKey.ECDSASignature getSignature()
+  {
+    return signature;
+  }
+}
@@ -15,73 +15,177 @@
  */
 package org.ethereumkeyj.core;
 
+import java.math.BigInteger;
 import org.ethereumkeyj.core.jce.ECKey;
 import org.ethereumkeyj.core.util.ByteUtil;
 
+/**
+ * An account address together with its key pair, if known.
+ *
+ * <p>Only what the wallet was created from is computed up front. Wallets created from a private key hold just the
+ * scalar: the public key, the checksummed address and the hex strings are derived on first request and memoised,
+ * so key generation jobs that only store the private key never pay for the point multiplication or the Keccak
+ * checksum. Signing uses the scalar directly and does not need the public key either.</p>
+ *
+ * <p>Wallets are thread-safe. The derived fields are volatile and computed without locking: threads that race on
+ * the first request may each compute the same value, and one of them is kept.</p>
+ */
 public class Wallet
 {
 
-  private final String address;
-  private final String publicKey;
-  private final String privateKey;
+  /**
+   * Private key, or null if the wallet has none or its key does not expose the scalar.
+   */
+  private final BigInteger privKey;
+  private volatile ECKey key;
+  private volatile String address;
+  private volatile String publicKey;
+  private volatile String privateKey;
 
-  private Wallet(String address, String publicKey, String privateKey)
+  private Wallet(BigInteger privKey, ECKey key, String address)
   {
+    this.privKey = privKey;
+    this.key = key;
     this.address = address;
-    this.publicKey = publicKey;
-    this.privateKey = privateKey;
   }
 
+  /**
+   * @return a wallet with a new random key pair, see {@link ECKey#ECKey()}
+   */
   public static Wallet newWallet()
   {
-    ECKey ecKey = new ECKey();
-    byte[] address = ecKey.getAddress();
-    byte[] pubKey = ecKey.getPubKey();
-    byte[] privKeyBytes = ecKey.getPrivKeyBytes();
-
-    return new Wallet("0x" + ByteUtil.toChecksumHexString(address), ByteUtil.toHexString(pubKey), ByteUtil.toHexString(privKeyBytes));
+    return fromKey(new ECKey());
   }
 
+  /**
+   * @param privateKey hex private key, without 0x
+   * @throws IllegalArgumentException if the key is not in the range [1, n)
+   */
   public static Wallet loadFromPrivate(String privateKey)
   {
-    ECKey ecKey = ECKey.fromPrivate(ByteUtil.hexStringToBytes(privateKey));
-    byte[] address = ecKey.getAddress();
-    byte[] pubKey = ecKey.getPubKey();
-    byte[] privKeyBytes = ecKey.getPrivKeyBytes();
-
-    return new Wallet(
-            "0x" + ByteUtil.toChecksumHexString(address),
-            ByteUtil.toHexString(pubKey),
-            ByteUtil.toHexString(privKeyBytes));
+    BigInteger d = new BigInteger(1, ByteUtil.hexStringToBytes(privateKey));
+    if(d.signum() == 0 || d.compareTo(ECKey.CURVE.getN()) >= 0)
+    {
+      throw new IllegalArgumentException("Private key out of range");
+    }
+    return new Wallet(d, null, null);
   }
 
   public static Wallet loadFromPublic(String publicKey)
   {
-    ECKey ecKey = ECKey.fromPublicOnly(ByteUtil.hexStringToBytes(publicKey));
-    byte[] address = ecKey.getAddress();
-    byte[] pubKey = ecKey.getPubKey();
-
-    return new Wallet("0x" + ByteUtil.toChecksumHexString(address), ByteUtil.toHexString(pubKey), null);
+    return fromKey(ECKey.fromPublicOnly(ByteUtil.hexStringToBytes(publicKey)));
   }
 
   public static Wallet loadFromAddress(String address)
   {
-    return new Wallet(address, null, null);
+    return new Wallet(null, null, address);
   }
 
+  static Wallet fromKey(ECKey key)
+  {
+    BigInteger d = null;
+    if(key.hasPrivKey())
+    {
+      try
+      {
+        d = key.getPrivKey();
+      }
+      catch(ECKey.MissingPrivateKeyException e)
+      {
+        // held by a provider that does not expose it, signing goes through the key
+      }
+    }
+    return new Wallet(d, key, null);
+  }
+
+  /**
+   * @return the checksummed address with 0x prefix
+   */
   public String getAddress()
   {
-    return address;
+    String value = address;
+    if(value == null)
+    {
+      value = "0x" + ByteUtil.toChecksumHexString(getKey().getAddress());
+      address = value;
+    }
+    return value;
   }
 
+  /**
+   * @return the uncompressed public key in hex, or null if the wallet was loaded from an address
+   */
   public String getPublicKey()
   {
-    return publicKey;
+    String value = publicKey;
+    if(value == null)
+    {
+      ECKey ecKey = getKey();
+      if(ecKey == null)
+      {
+        return null;
+      }
+      value = ByteUtil.toHexString(ecKey.getPubKey());
+      publicKey = value;
+    }
+    return value;
   }
 
+  /**
+   * @return the 32-byte private key in hex, or null if the wallet has no private key
+   */
   public String getPrivateKey()
   {
-    return privateKey;
+    String value = privateKey;
+    if(value == null && privKey != null)
+    {
+      value = ByteUtil.toHexString(ByteUtil.bigIntegerToBytes(privKey, 32));
+      privateKey = value;
+    }
+    return value;
+  }
+
+  /**
+   * @return the key, with its public point derived on first request, or null if the wallet was loaded from an
+   * address
+   */
+  public ECKey getKey()
+  {
+    ECKey value = key;
+    if(value == null && privKey != null)
+    {
+      value = ECKey.fromPrivate(privKey);
+      key = value;
+    }
+    return value;
+  }
+
+  /**
+   * @return the private scalar, or null if the wallet has none or it is not accessible
+   */
+  BigInteger getPrivKey()
+  {
+    return privKey;
+  }
+
+  /**
+   * Signs a 32-byte hash with the private key. Does not derive the public key.
+   *
+   * @param messageHash the hash to sign
+   * @return canonical signature with v = recId + 27
+   * @throws ECKey.MissingPrivateKeyException if the wallet has no private key
+   */
+  ECKey.ECDSASignature sign(byte[] messageHash)
+  {
+    if(privKey != null)
+    {
+      return ECKey.sign(privKey, messageHash);
+    }
+    if(key == null)
+    {
+      throw new ECKey.MissingPrivateKeyException();
+    }
+    return key.sign(messageHash);
   }
 
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import org.ethereumkeyj.core.jce.ECKey;
+
+/**
+ * Bulk variant of {@link Wallet#loadFromPrivate(String)} for importing large numbers of keys.
+ *
+ * <p>Public keys are derived with {@link ECKey#fromPrivate(BigInteger[])}, which converts each slice of keys to
+ * affine form with a single field inversion (Montgomery's trick), and slices are processed in
+ * parallel on a fork-join pool. The resulting wallets are identical to the ones produced one by one and are
+ * returned in input order.</p>
+ */
+public class WalletBatch
+{
+
+  /**
+   * Keys per fork-join leaf. Large enough that the shared inversion is amortised, small enough to keep all
+   * cores busy on moderate batches.
+   */
+  private static final int LEAF_SIZE = 64;
+
+  public static List<Wallet> loadFromPrivate(List<byte[]> privateKeys)
+  {
+    return loadFromPrivate(privateKeys, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Loads wallets for the given raw 32-byte private keys.
+   *
+   * @param privateKeys big-endian private keys, each in the range [1, n)
+   * @param pool the pool to run on
+   * @return one wallet per key, in input order
+   * @throws IllegalArgumentException if a key is out of range
+   */
+  public static List<Wallet> loadFromPrivate(List<byte[]> privateKeys, ForkJoinPool pool)
+  {
+    byte[][] keys = privateKeys.toArray(new byte[privateKeys.size()][]);
+    Wallet[] wallets = new Wallet[keys.length];
+    pool.invoke(new DeriveTask(keys, wallets, 0, keys.length));
+    return Arrays.asList(wallets);
+  }
+
+  /**
+   * Streaming variant: reads {@code chunkSize} keys at a time, derives each chunk in parallel and hands the
+   * wallets to {@code consumer} in input order. Memory use is bounded by the chunk size.
+   *
+   * @param privateKeys big-endian private keys, each in the range [1, n)
+   * @param chunkSize number of keys derived together
+   * @param consumer receives the wallets, on the calling thread
+   */
+  public static void loadFromPrivate(Iterator<byte[]> privateKeys, int chunkSize, Consumer<? super Wallet> consumer)
+  {
+    if(chunkSize < 1)
+    {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    List<byte[]> chunk = new ArrayList<>(chunkSize);
+    while(privateKeys.hasNext())
+    {
+      chunk.add(privateKeys.next());
+      if(chunk.size() == chunkSize || !privateKeys.hasNext())
+      {
+        loadFromPrivate(chunk).forEach(consumer);
+        chunk.clear();
+      }
+    }
+  }
+
+  private static void derive(byte[][] keys, Wallet[] wallets, int from, int to)
+  {
+    BigInteger n = ECKey.CURVE.getN();
+    BigInteger[] privs = new BigInteger[to - from];
+    for(int i = 0; i < privs.length; i++)
+    {
+      BigInteger priv = new BigInteger(1, keys[from + i]);
+      if(priv.signum() == 0 || priv.compareTo(n) >= 0)
+      {
+        throw new IllegalArgumentException("Private key at index " + (from + i) + " is out of range");
+      }
+      privs[i] = priv;
+    }
+    ECKey[] ecKeys = ECKey.fromPrivate(privs);
+    for(int i = 0; i < ecKeys.length; i++)
+    {
+      wallets[from + i] = Wallet.fromKey(ecKeys[i]);
+    }
+  }
+
+  @SuppressWarnings("serial")
+  private static class DeriveTask extends RecursiveAction
+  {
+
+    private final byte[][] keys;
+    private final Wallet[] wallets;
+    private final int from;
+    private final int to;
+
+    DeriveTask(byte[][] keys, Wallet[] wallets, int from, int to)
+    {
+      this.keys = keys;
+      this.wallets = wallets;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if(to - from <= LEAF_SIZE)
+      {
+        derive(keys, wallets, from, to);
+      }
+      else
+      {
+        int mid = (from + to) >>> 1;
+        invokeAll(new DeriveTask(keys, wallets, from, mid), new DeriveTask(keys, wallets, mid, to));
+      }
+    }
+  }
+
+  private WalletBatch()
+  {
+
+  }
+}
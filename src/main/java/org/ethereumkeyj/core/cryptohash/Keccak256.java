@@ -16,6 +16,8 @@
 
 package org.ethereumkeyj.core.cryptohash;
 
+import java.nio.ByteBuffer;
+
 /**
  * <p>This class implements the Keccak-256 digest algorithm under the
  * {@link org.ethereum.crypto.cryptohash.Digest} API.</p>
@@ -61,6 +63,60 @@ public class Keccak256 extends KeccakCore {
 		super("eth-keccak-256");
 	}
 
+	/**
+	 * Compute the Keccak-256 hash of {@code len} bytes of
+	 * {@code in} starting at {@code off}, and write the 32-byte
+	 * digest into {@code out} at {@code outOff}. Unlike the
+	 * {@link java.security.MessageDigest} API, this allocates
+	 * nothing: the permutation state lives in local variables.
+	 *
+	 * @param in       the input data
+	 * @param off      the input offset
+	 * @param len      the input length
+	 * @param out      the output buffer
+	 * @param outOff   the output offset
+	 */
+	public static void hash(byte[] in, int off, int len,
+		byte[] out, int outOff)
+	{
+		checkRange(in, off, len);
+		checkRange(out, outOff, 32);
+		sponge(136, in, null, off, len, out, null, outOff, 0, 32);
+	}
+
+	/**
+	 * Compute the Keccak-256 hash of {@code len} bytes of
+	 * {@code in} and write its rightmost 20 bytes (the Ethereum
+	 * address form) into {@code out} at {@code outOff}.
+	 *
+	 * @param in       the input data
+	 * @param off      the input offset
+	 * @param len      the input length
+	 * @param out      the output buffer
+	 * @param outOff   the output offset
+	 */
+	public static void hashOmit12(byte[] in, int off, int len,
+		byte[] out, int outOff)
+	{
+		checkRange(in, off, len);
+		checkRange(out, outOff, 20);
+		sponge(136, in, null, off, len, out, null, outOff, 12, 32);
+	}
+
+	/**
+	 * Compute the Keccak-256 hash of the remaining bytes of
+	 * {@code in} and write the 32-byte digest at the current
+	 * position of {@code out}. Both positions are advanced; heap
+	 * and direct buffers are supported without copying.
+	 *
+	 * @param in    the input data
+	 * @param out   the output buffer
+	 */
+	public static void hash(ByteBuffer in, ByteBuffer out)
+	{
+		sponge(136, 32, in, out);
+	}
+
 	/** @see org.ethereum.crypto.cryptohash.Digest */
 	public Digest copy()
 	{
@@ -16,6 +16,8 @@
 
 package org.ethereumkeyj.core.cryptohash;
 
+import java.nio.ByteBuffer;
+
 /**
  * <p>This class implements the Keccak-256 digest algorithm under the
  * {@link Digest} API.</p>
@@ -61,6 +63,41 @@ public class Keccak512 extends KeccakCore {
 		super("eth-keccak-512");
 	}
 
+	/**
+	 * Compute the Keccak-512 hash of {@code len} bytes of
+	 * {@code in} starting at {@code off}, and write the 64-byte
+	 * digest into {@code out} at {@code outOff}. Unlike the
+	 * {@link java.security.MessageDigest} API, this allocates
+	 * nothing: the permutation state lives in local variables.
+	 *
+	 * @param in       the input data
+	 * @param off      the input offset
+	 * @param len      the input length
+	 * @param out      the output buffer
+	 * @param outOff   the output offset
+	 */
+	public static void hash(byte[] in, int off, int len,
+		byte[] out, int outOff)
+	{
+		checkRange(in, off, len);
+		checkRange(out, outOff, 64);
+		sponge(72, in, null, off, len, out, null, outOff, 0, 64);
+	}
+
+	/**
+	 * Compute the Keccak-512 hash of the remaining bytes of
+	 * {@code in} and write the 64-byte digest at the current
+	 * position of {@code out}. Both positions are advanced; heap
+	 * and direct buffers are supported without copying.
+	 *
+	 * @param in    the input data
+	 * @param out   the output buffer
+	 */
+	public static void hash(ByteBuffer in, ByteBuffer out)
+	{
+		sponge(72, 64, in, out);
+	}
+
 	/** @see Digest */
 	public Digest copy()
 	{
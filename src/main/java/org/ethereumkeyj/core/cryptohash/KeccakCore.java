@@ -16,6 +16,11 @@
 
 package org.ethereumkeyj.core.cryptohash;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+
 /**
  * This class implements the core operations for the Keccak digest
  * algorithm.
@@ -534,6 +539,235 @@ abstract class KeccakCore extends DigestEngine{
 		}
 	}
 
+	/**
+	 * One-shot Keccak sponge over {@code len} bytes of input, with
+	 * the whole permutation state held in local variables so that no
+	 * object is allocated. Input is read from {@code in} or, when that
+	 * is {@code null}, from {@code bin} at absolute positions; the
+	 * digest bytes {@code [from, to)} are written to {@code out} or,
+	 * when that is {@code null}, to {@code bout} at absolute
+	 * positions. The digest must fit in a single squeeze
+	 * ({@code to <= rate}), which holds for Keccak-256 and Keccak-512.
+	 *
+	 * @param rate   the rate in bytes (136 or 72)
+	 * @param in     the input array, or {@code null}
+	 * @param bin    the input buffer, used when {@code in} is {@code null}
+	 * @param off    the input offset
+	 * @param len    the input length
+	 * @param out    the output array, or {@code null}
+	 * @param bout   the output buffer, used when {@code out} is {@code null}
+	 * @param outOff the output offset
+	 * @param from   the first digest byte to output
+	 * @param to     one past the last digest byte to output
+	 */
+	static void sponge(int rate, byte[] in, ByteBuffer bin, int off, int len,
+		byte[] out, ByteBuffer bout, int outOff, int from, int to)
+	{
+		long a00 = 0, a01 = 0, a02 = 0, a03 = 0, a04 = 0;
+		long a05 = 0, a06 = 0, a07 = 0, a08 = 0, a09 = 0;
+		long a10 = 0, a11 = 0, a12 = 0, a13 = 0, a14 = 0;
+		long a15 = 0, a16 = 0, a17 = 0, a18 = 0, a19 = 0;
+		long a20 = 0, a21 = 0, a22 = 0, a23 = 0, a24 = 0;
+		long b00, b01, b02, b03, b04, b05, b06, b07, b08, b09;
+		long b10, b11, b12, b13, b14, b15, b16, b17, b18, b19;
+		long b20, b21, b22, b23, b24;
+		long c0, c1, c2, c3, c4, d0, d1, d2, d3, d4;
+
+		int end = off + len;
+		int block = off;
+		for (;;) {
+			/* Absorb one block; the last one is padded on the fly. */
+			a00 ^= lane(in, bin, block, end, rate, 0);
+			a01 ^= lane(in, bin, block, end, rate, 1);
+			a02 ^= lane(in, bin, block, end, rate, 2);
+			a03 ^= lane(in, bin, block, end, rate, 3);
+			a04 ^= lane(in, bin, block, end, rate, 4);
+			a05 ^= lane(in, bin, block, end, rate, 5);
+			a06 ^= lane(in, bin, block, end, rate, 6);
+			a07 ^= lane(in, bin, block, end, rate, 7);
+			a08 ^= lane(in, bin, block, end, rate, 8);
+			if (rate > 72) {
+				a09 ^= lane(in, bin, block, end, rate, 9);
+				a10 ^= lane(in, bin, block, end, rate, 10);
+				a11 ^= lane(in, bin, block, end, rate, 11);
+				a12 ^= lane(in, bin, block, end, rate, 12);
+				a13 ^= lane(in, bin, block, end, rate, 13);
+				a14 ^= lane(in, bin, block, end, rate, 14);
+				a15 ^= lane(in, bin, block, end, rate, 15);
+				a16 ^= lane(in, bin, block, end, rate, 16);
+			}
+
+			for (int j = 0; j < 24; j ++) {
+				/* theta */
+				c0 = a00 ^ a05 ^ a10 ^ a15 ^ a20;
+				c1 = a01 ^ a06 ^ a11 ^ a16 ^ a21;
+				c2 = a02 ^ a07 ^ a12 ^ a17 ^ a22;
+				c3 = a03 ^ a08 ^ a13 ^ a18 ^ a23;
+				c4 = a04 ^ a09 ^ a14 ^ a19 ^ a24;
+				d0 = c4 ^ Long.rotateLeft(c1, 1);
+				d1 = c0 ^ Long.rotateLeft(c2, 1);
+				d2 = c1 ^ Long.rotateLeft(c3, 1);
+				d3 = c2 ^ Long.rotateLeft(c4, 1);
+				d4 = c3 ^ Long.rotateLeft(c0, 1);
+
+				/* rho and pi */
+				b00 = a00 ^ d0;
+				b10 = Long.rotateLeft(a01 ^ d1, 1);
+				b20 = Long.rotateLeft(a02 ^ d2, 62);
+				b05 = Long.rotateLeft(a03 ^ d3, 28);
+				b15 = Long.rotateLeft(a04 ^ d4, 27);
+				b16 = Long.rotateLeft(a05 ^ d0, 36);
+				b01 = Long.rotateLeft(a06 ^ d1, 44);
+				b11 = Long.rotateLeft(a07 ^ d2, 6);
+				b21 = Long.rotateLeft(a08 ^ d3, 55);
+				b06 = Long.rotateLeft(a09 ^ d4, 20);
+				b07 = Long.rotateLeft(a10 ^ d0, 3);
+				b17 = Long.rotateLeft(a11 ^ d1, 10);
+				b02 = Long.rotateLeft(a12 ^ d2, 43);
+				b12 = Long.rotateLeft(a13 ^ d3, 25);
+				b22 = Long.rotateLeft(a14 ^ d4, 39);
+				b23 = Long.rotateLeft(a15 ^ d0, 41);
+				b08 = Long.rotateLeft(a16 ^ d1, 45);
+				b18 = Long.rotateLeft(a17 ^ d2, 15);
+				b03 = Long.rotateLeft(a18 ^ d3, 21);
+				b13 = Long.rotateLeft(a19 ^ d4, 8);
+				b14 = Long.rotateLeft(a20 ^ d0, 18);
+				b24 = Long.rotateLeft(a21 ^ d1, 2);
+				b09 = Long.rotateLeft(a22 ^ d2, 61);
+				b19 = Long.rotateLeft(a23 ^ d3, 56);
+				b04 = Long.rotateLeft(a24 ^ d4, 14);
+
+				/* chi and iota */
+				a00 = b00 ^ (~b01 & b02) ^ RC[j];
+				a01 = b01 ^ (~b02 & b03);
+				a02 = b02 ^ (~b03 & b04);
+				a03 = b03 ^ (~b04 & b00);
+				a04 = b04 ^ (~b00 & b01);
+				a05 = b05 ^ (~b06 & b07);
+				a06 = b06 ^ (~b07 & b08);
+				a07 = b07 ^ (~b08 & b09);
+				a08 = b08 ^ (~b09 & b05);
+				a09 = b09 ^ (~b05 & b06);
+				a10 = b10 ^ (~b11 & b12);
+				a11 = b11 ^ (~b12 & b13);
+				a12 = b12 ^ (~b13 & b14);
+				a13 = b13 ^ (~b14 & b10);
+				a14 = b14 ^ (~b10 & b11);
+				a15 = b15 ^ (~b16 & b17);
+				a16 = b16 ^ (~b17 & b18);
+				a17 = b17 ^ (~b18 & b19);
+				a18 = b18 ^ (~b19 & b15);
+				a19 = b19 ^ (~b15 & b16);
+				a20 = b20 ^ (~b21 & b22);
+				a21 = b21 ^ (~b22 & b23);
+				a22 = b22 ^ (~b23 & b24);
+				a23 = b23 ^ (~b24 & b20);
+				a24 = b24 ^ (~b20 & b21);
+			}
+
+			if (end - block < rate)
+				break;
+			block += rate;
+		}
+
+		squeeze(a00, 0, out, bout, outOff, from, to);
+		squeeze(a01, 1, out, bout, outOff, from, to);
+		squeeze(a02, 2, out, bout, outOff, from, to);
+		squeeze(a03, 3, out, bout, outOff, from, to);
+		if (to > 32) {
+			squeeze(a04, 4, out, bout, outOff, from, to);
+			squeeze(a05, 5, out, bout, outOff, from, to);
+			squeeze(a06, 6, out, bout, outOff, from, to);
+			squeeze(a07, 7, out, bout, outOff, from, to);
+		}
+	}
+
+	/**
+	 * One-shot hash of the remaining bytes of {@code in}, writing
+	 * {@code dlen} digest bytes at the position of {@code out}.
+	 * Both buffer positions are advanced.
+	 */
+	static void sponge(int rate, int dlen, ByteBuffer in, ByteBuffer out)
+	{
+		if (out.isReadOnly())
+			throw new ReadOnlyBufferException();
+		if (out.remaining() < dlen)
+			throw new BufferOverflowException();
+		int len = in.remaining();
+		byte[] oa = out.hasArray() ? out.array() : null;
+		int outOff = out.position()
+			+ (out.hasArray() ? out.arrayOffset() : 0);
+		if (in.hasArray())
+			sponge(rate, in.array(), null,
+				in.arrayOffset() + in.position(), len,
+				oa, out, outOff, 0, dlen);
+		else
+			sponge(rate, null, in, in.position(), len,
+				oa, out, outOff, 0, dlen);
+		in.position(in.limit());
+		out.position(out.position() + dlen);
+	}
+
+	/**
+	 * Check that {@code [off, off + len)} lies within {@code buf}.
+	 */
+	static void checkRange(byte[] buf, int off, int len)
+	{
+		if (off < 0 || len < 0 || off > buf.length - len)
+			throw new ArrayIndexOutOfBoundsException("off=" + off
+				+ ", len=" + len + ", length=" + buf.length);
+	}
+
+	/**
+	 * Read lane {@code i} of the block starting at {@code block}.
+	 * Bytes at or beyond {@code end} are replaced by the Keccak
+	 * padding (0x01 right after the data, 0x80 in the last byte of
+	 * the block).
+	 */
+	private static long lane(byte[] in, ByteBuffer bin, int block,
+		int end, int rate, int i)
+	{
+		int pos = block + (i << 3);
+		if (pos + 8 <= end) {
+			if (in != null)
+				return decodeLELong(in, pos);
+			long v = bin.getLong(pos);
+			return bin.order() == ByteOrder.LITTLE_ENDIAN
+				? v : Long.reverseBytes(v);
+		}
+		long v = 0;
+		for (int k = 0; k < 8 && pos + k < end; k ++) {
+			int b = in != null ? in[pos + k] : bin.get(pos + k);
+			v |= (b & 0xFFL) << (k << 3);
+		}
+		int pad = end - block - (i << 3);
+		if (pad >= 0 && pad < 8)
+			v ^= 0x01L << (pad << 3);
+		if (i == (rate >>> 3) - 1)
+			v ^= 0x80L << 56;
+		return v;
+	}
+
+	/**
+	 * Write the bytes of lane {@code i} that fall in the digest
+	 * range {@code [from, to)}.
+	 */
+	private static void squeeze(long v, int i, byte[] out,
+		ByteBuffer bout, int outOff, int from, int to)
+	{
+		int first = i << 3;
+		for (int k = 0; k < 8; k ++) {
+			int idx = first + k;
+			if (idx >= from && idx < to) {
+				byte b = (byte)(v >>> (k << 3));
+				if (out != null)
+					out[outOff + idx - from] = b;
+				else
+					bout.put(outOff + idx - from, b);
+			}
+		}
+	}
+
 	/** @see org.ethereum.crypto.cryptohash.DigestEngine */
 	protected void doPadding(byte[] out, int off)
 	{
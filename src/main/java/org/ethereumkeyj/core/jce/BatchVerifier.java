@@ -0,0 +1,270 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.jce;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import org.ethereumkeyj.core.util.BIUtil;
+
+/**
+ * Verifies many ECDSA signatures at once, with the same results as
+ * {@link ECKey#verify(byte[], ECKey.ECDSASignature, byte[])} for each entry, except that an entry whose public key
+ * does not decode to a curve point is reported invalid instead of throwing {@link IllegalArgumentException}.
+ *
+ * <p>Entries are split into chunks that run on the configured executor. Within a chunk the {@code s^-1 mod n}
+ * values are computed with a single modular inversion and the resulting points are converted to affine form with
+ * a single field inversion (Montgomery's trick). Decoded public key points are cached across calls, so repeated
+ * signers skip both point decompression and the wNAF precomputation Bouncy Castle stores on the point.</p>
+ *
+ * <p>Adding entries is not thread-safe; a verifier is filled by one thread and then verified.</p>
+ */
+public class BatchVerifier
+{
+
+  /**
+   * Entries per task. Large enough that the shared inversions are amortised.
+   */
+  private static final int CHUNK_SIZE = 64;
+
+  public static final int DEFAULT_CACHE_SIZE = 4096;
+
+  private final Executor executor;
+  private final int cacheSize;
+  private final ConcurrentHashMap<ByteBuffer, ECPoint> points = new ConcurrentHashMap<>();
+
+  private final List<byte[]> hashes = new ArrayList<>();
+  private final List<ECKey.ECDSASignature> signatures = new ArrayList<>();
+  private final List<byte[]> pubKeys = new ArrayList<>();
+
+  public BatchVerifier()
+  {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public BatchVerifier(Executor executor)
+  {
+    this(executor, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * @param executor runs the verification chunks
+   * @param cacheSize maximum number of decoded public keys kept between calls, 0 disables the cache
+   */
+  public BatchVerifier(Executor executor, int cacheSize)
+  {
+    if(cacheSize < 0)
+    {
+      throw new IllegalArgumentException("Cache size must not be negative");
+    }
+    this.executor = executor;
+    this.cacheSize = cacheSize;
+  }
+
+  /**
+   * Adds an entry to the batch.
+   *
+   * @param hash hash of the signed data
+   * @param signature signature
+   * @param pub public key bytes, compressed or uncompressed
+   * @return the index of the entry in the result of {@link #verify()}
+   */
+  public int add(byte[] hash, ECKey.ECDSASignature signature, byte[] pub)
+  {
+    hashes.add(hash);
+    signatures.add(signature);
+    pubKeys.add(pub);
+    return hashes.size() - 1;
+  }
+
+  public int size()
+  {
+    return hashes.size();
+  }
+
+  /**
+   * Removes all entries. Cached public keys are kept.
+   */
+  public void clear()
+  {
+    hashes.clear();
+    signatures.clear();
+    pubKeys.clear();
+  }
+
+  /**
+   * Verifies every entry.
+   *
+   * @return a bit set with bit {@code i} set if entry {@code i} is valid
+   */
+  public BitSet verify()
+  {
+    boolean[] valid = new boolean[size()];
+    run(valid, null);
+    BitSet result = new BitSet(valid.length);
+    for(int i = 0; i < valid.length; i++)
+    {
+      if(valid[i])
+      {
+        result.set(i);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks whether every entry is valid. Stops all chunks as soon as one invalid entry is found.
+   *
+   * @return true if all entries are valid
+   */
+  public boolean verifyAll()
+  {
+    AtomicBoolean failed = new AtomicBoolean();
+    run(new boolean[size()], failed);
+    return !failed.get();
+  }
+
+  private void run(boolean[] valid, AtomicBoolean failed)
+  {
+    int count = valid.length;
+    if(count <= CHUNK_SIZE)
+    {
+      // not worth a hand-off
+      verifyRange(0, count, valid, failed);
+      return;
+    }
+    CompletableFuture<?>[] tasks = new CompletableFuture<?>[(count + CHUNK_SIZE - 1) / CHUNK_SIZE];
+    for(int t = 0; t < tasks.length; t++)
+    {
+      int from = t * CHUNK_SIZE;
+      int to = Math.min(count, from + CHUNK_SIZE);
+      tasks[t] = CompletableFuture.runAsync(() -> verifyRange(from, to, valid, failed), executor);
+    }
+    CompletableFuture.allOf(tasks).join();
+  }
+
+  private void verifyRange(int from, int to, boolean[] valid, AtomicBoolean failed)
+  {
+    BigInteger n = ECKey.CURVE.getN();
+    BigInteger[] w = new BigInteger[to - from];
+    for(int i = 0; i < w.length; i++)
+    {
+      ECKey.ECDSASignature signature = signatures.get(from + i);
+      if(signature.validateComponents())
+      {
+        w[i] = signature.s;
+      }
+      else if(failed != null)
+      {
+        failed.set(true);
+        return;
+      }
+    }
+    BIUtil.modInverseAll(w, n);
+
+    ECPoint G = ECKey.CURVE.getG();
+    ECPoint[] results = new ECPoint[w.length];
+    for(int i = 0; i < w.length; i++)
+    {
+      if(w[i] == null || failed != null && failed.get())
+      {
+        continue;
+      }
+      ECPoint q = publicPoint(pubKeys.get(from + i));
+      if(q != null)
+      {
+        BigInteger e = calculateE(n, hashes.get(from + i));
+        BigInteger u1 = e.multiply(w[i]).mod(n);
+        BigInteger u2 = signatures.get(from + i).r.multiply(w[i]).mod(n);
+        ECPoint point = ECAlgorithms.sumOfTwoMultiplies(G, u1, q, u2);
+        if(!point.isInfinity())
+        {
+          results[i] = point;
+        }
+      }
+      if(results[i] == null && failed != null)
+      {
+        failed.set(true);
+        return;
+      }
+    }
+    if(failed != null && failed.get())
+    {
+      return;
+    }
+
+    ECKey.CURVE.getCurve().normalizeAll(results);
+    for(int i = 0; i < results.length; i++)
+    {
+      valid[from + i] = results[i] != null
+              && results[i].getAffineXCoord().toBigInteger().mod(n).equals(signatures.get(from + i).r);
+      if(!valid[from + i] && failed != null)
+      {
+        failed.set(true);
+        return;
+      }
+    }
+  }
+
+  private ECPoint publicPoint(byte[] pub)
+  {
+    ECPoint point = cacheSize == 0 ? null : points.get(ByteBuffer.wrap(pub));
+    if(point == null)
+    {
+      try
+      {
+        point = ECKey.CURVE.getCurve().decodePoint(pub);
+      }
+      catch(IllegalArgumentException ex)
+      {
+        return null;
+      }
+      if(cacheSize > 0)
+      {
+        if(points.size() >= cacheSize)
+        {
+          points.clear();
+        }
+        points.put(ByteBuffer.wrap(pub.clone()), point);
+      }
+    }
+    return point;
+  }
+
+  /**
+   * Same truncation as Bouncy Castle's {@code ECDSASigner}: the leftmost bits of the hash, as many as n has.
+   */
+  private static BigInteger calculateE(BigInteger n, byte[] hash)
+  {
+    int log2n = n.bitLength();
+    int messageBitLength = hash.length * 8;
+    BigInteger e = new BigInteger(1, hash);
+    if(log2n < messageBitLength)
+    {
+      e = e.shiftRight(messageBitLength - log2n);
+    }
+    return e;
+  }
+}
@@ -30,8 +30,11 @@ package org.ethereumkeyj.core.jce;
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+import org.ethereumkeyj.core.secp256k1.GeneratorTable;
+import org.ethereumkeyj.core.secp256k1.Secp256k1Engine;
 import org.ethereumkeyj.core.util.ByteUtil;
 import org.ethereumkeyj.core.util.BIUtil;
+import org.ethereumkeyj.core.util.DigestPool;
 import org.ethereumkeyj.core.util.HashUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +42,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.security.InvalidKeyException;
 import java.security.KeyPair;
@@ -63,6 +67,7 @@ import org.bouncycastle.asn1.x9.X9ECParameters;
 import org.bouncycastle.asn1.x9.X9IntegerConverter;
 import org.bouncycastle.crypto.agreement.ECDHBasicAgreement;
 import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
 import org.bouncycastle.crypto.engines.AESFastEngine;
 import org.bouncycastle.crypto.modes.SICBlockCipher;
 import org.bouncycastle.crypto.params.ECDomainParameters;
@@ -78,7 +83,6 @@ import org.bouncycastle.jce.spec.ECParameterSpec;
 import org.bouncycastle.jce.spec.ECPrivateKeySpec;
 import org.bouncycastle.jce.spec.ECPublicKeySpec;
 import org.bouncycastle.math.ec.ECAlgorithms;
-import org.bouncycastle.math.ec.ECCurve;
 import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.util.BigIntegers;
 import org.bouncycastle.util.encoders.Base64;
@@ -128,15 +132,36 @@ public class ECKey implements Serializable
   // https://docs.oracle.com/javase/8/docs/technotes/guides/security/SunProviders.html
   private static Provider provider;
   
+  /**
+   * System property selecting the curve implementation: {@code custom} (default) uses Bouncy Castle's
+   * {@code SecP256K1Curve} with fixed-size field arithmetic and the GLV endomorphism throughout, {@code native}
+   * signs, verifies and recovers 32-byte hashes with {@link Secp256k1Engine} and uses {@code SecP256K1Curve} for
+   * everything else, {@code generic} the BigInteger based {@code ECCurve.Fp}. All have the same parameters, point
+   * encodings and signatures. {@code native} allocates almost nothing but, with its constant-time {@code k * G},
+   * signs slower than {@code custom}, so it is opt-in.
+   */
+  public static final String CURVE_PROPERTY = "ethereumkeyj.curve";
+
+  static final boolean NATIVE;
+
   static
   {
+    String curve = System.getProperty(CURVE_PROPERTY, "custom");
+    NATIVE = "native".equals(curve);
     // All clients must agree on the curve to use by agreement. Ethereum uses secp256k1.
-    X9ECParameters params = SECNamedCurves.getByName("secp256k1");
+    X9ECParameters params = "generic".equals(curve)
+            ? SECNamedCurves.getByName("secp256k1")
+            : CustomNamedCurves.getByName("secp256k1");
     CURVE = new ECDomainParameters(params.getCurve(), params.getG(), params.getN(), params.getH());
     CURVE_SPEC = new ECParameterSpec(params.getCurve(), params.getG(), params.getN(), params.getH());
     HALF_CURVE_ORDER = params.getN().shiftRight(1);
     secureRandom = new SecureRandom();
     provider = EthSecurityProvider.getInstance();
+    if(NATIVE)
+    {
+      // keep the table build off the first key derivation or signature
+      GeneratorTable.buildInBackground();
+    }
   }
 
   // The two parts of the key. If "priv" is set, "pub" can always be calculated. If "pub" is set but not "priv", we
@@ -147,10 +172,19 @@ public class ECKey implements Serializable
 
 
 
-  // Transient because it's calculated on demand.
-  transient private byte[] pubKeyHash;
-  transient private byte[] nodeId;
+  // Transient because they are calculated on demand. Volatile so that a key shared between threads never exposes
+  // a half-written array; two threads may both compute a value, and either result is the same.
+  transient private volatile byte[] pubEncoded;
+  transient private volatile byte[] pubKeyHash;
+  transient private volatile byte[] nodeId;
+  transient private int hash;
   
+  // RFC 6979 nonce generators, reused per thread by doSign and Secp256k1Signer
+  static final DigestPool<HMacDSAKCalculator> K_CALCULATORS =
+          new DigestPool<>("HMAC-DSA-K", () -> new HMacDSAKCalculator(new SHA256Digest()));
+  // fixed-size arithmetic with all temporaries preallocated, one per thread
+  static final DigestPool<Secp256k1Engine> ENGINES = new DigestPool<>("secp256k1", Secp256k1Engine::new);
+
   private static final BigInteger SECP256K1N = new BigInteger("fffffffffffffffffffffffffffffffebaaedce6af48a03bbfd25e8cd0364141", 16);
 
 
@@ -256,7 +290,8 @@ public class ECKey implements Serializable
     }
     else
     {
-      this.pub = pub;
+      // affine once, instead of a field inversion in every encoding and comparison
+      this.pub = pub.normalize();
     }
   }
 
@@ -335,7 +370,96 @@ public class ECKey implements Serializable
    */
   public static ECKey fromPrivate(BigInteger privKey)
   {
-    return new ECKey(privKey, CURVE.getG().multiply(privKey));
+    if(isEngineScalar(privKey))
+    {
+      byte[] pub = enginePublicKey(privKey);
+      ECKey key = new ECKey(privKey, trustedPoint(pub));
+      key.pubEncoded = pub;
+      return key;
+    }
+    return new ECKey(privKey, publicPointFromPrivate(privKey));
+  }
+
+  /**
+   * Creates ECKeys for several private keys at once, with a single field inversion for all of their public keys.
+   *
+   * @param privKeys private keys, each in [1, n)
+   * @return one key per private key, in the same order
+   * @throws IllegalArgumentException if a private key is out of range
+   */
+  public static ECKey[] fromPrivate(BigInteger[] privKeys)
+  {
+    for(BigInteger privKey : privKeys)
+    {
+      check(privKey.signum() > 0 && privKey.compareTo(CURVE.getN()) < 0, "Private key out of range");
+    }
+    ECKey[] keys = new ECKey[privKeys.length];
+    if(NATIVE)
+    {
+      byte[] priv = new byte[privKeys.length * 32];
+      byte[] pub = new byte[privKeys.length * 65];
+      for(int i = 0; i < privKeys.length; i++)
+      {
+        System.arraycopy(BigIntegers.asUnsignedByteArray(32, privKeys[i]), 0, priv, i * 32, 32);
+      }
+      ENGINES.get().publicKeys(priv, 0, privKeys.length, pub, 0);
+      for(int i = 0; i < keys.length; i++)
+      {
+        byte[] encoded = Arrays.copyOfRange(pub, i * 65, (i + 1) * 65);
+        keys[i] = new ECKey(privKeys[i], trustedPoint(encoded));
+        keys[i].pubEncoded = encoded;
+      }
+      return keys;
+    }
+    ECPoint[] points = new ECPoint[privKeys.length];
+    for(int i = 0; i < points.length; i++)
+    {
+      points[i] = Secp256k1Signer.BASE_MULTIPLIER.multiply(CURVE.getG(), privKeys[i]);
+    }
+    CURVE.getCurve().normalizeAll(points);
+    for(int i = 0; i < keys.length; i++)
+    {
+      keys[i] = new ECKey(privKeys[i], points[i]);
+    }
+    return keys;
+  }
+
+  private static boolean isEngineScalar(BigInteger privKey)
+  {
+    return NATIVE && privKey.signum() > 0 && privKey.compareTo(CURVE.getN()) < 0;
+  }
+
+  private static byte[] enginePublicKey(BigInteger privKey)
+  {
+    byte[] pub = new byte[65];
+    ENGINES.get().publicKey(BigIntegers.asUnsignedByteArray(32, privKey), 0, pub, 0);
+    return pub;
+  }
+
+  /**
+   * The point of an uncompressed encoding known to be on the curve, without decodePoint's validation.
+   */
+  private static ECPoint trustedPoint(byte[] pub)
+  {
+    return CURVE.getCurve().createPoint(new BigInteger(1, Arrays.copyOfRange(pub, 1, 33)),
+            new BigInteger(1, Arrays.copyOfRange(pub, 33, 65)));
+  }
+
+  /**
+   * k * G with the shared {@link GeneratorTable} through the thread's engine by default, with the fixed-point comb
+   * of {@code ECDSASigner} on the Bouncy Castle curves. Scalars outside [1, n) keep the generic multiplication.
+   */
+  private static ECPoint publicPointFromPrivate(BigInteger privKey)
+  {
+    if(isEngineScalar(privKey))
+    {
+      return trustedPoint(enginePublicKey(privKey));
+    }
+    if(privKey.signum() <= 0 || privKey.compareTo(CURVE.getN()) >= 0)
+    {
+      return CURVE.getG().multiply(privKey);
+    }
+    return Secp256k1Signer.BASE_MULTIPLIER.multiply(CURVE.getG(), privKey).normalize();
   }
 
   /**
@@ -402,7 +526,13 @@ public class ECKey implements Serializable
    */
   public static ECKey fromPublicOnly(byte[] pub)
   {
-    return new ECKey(null, CURVE.getCurve().decodePoint(pub));
+    ECKey key = new ECKey(null, CURVE.getCurve().decodePoint(pub));
+    if(pub.length == 65 && pub[0] == 0x04)
+    {
+      // decodePoint accepted it, so it is the key's uncompressed encoding already
+      key.pubEncoded = pub.clone();
+    }
+    return key;
   }
 
 //  /**
@@ -471,8 +601,11 @@ public class ECKey implements Serializable
    */
   public static byte[] publicKeyFromPrivate(BigInteger privKey, boolean compressed)
   {
-    ECPoint point = CURVE.getG().multiply(privKey);
-    return point.getEncoded(compressed);
+    if(!compressed && isEngineScalar(privKey))
+    {
+      return enginePublicKey(privKey);
+    }
+    return publicPointFromPrivate(privKey).getEncoded(compressed);
   }
 
   /**
@@ -483,8 +616,7 @@ public class ECKey implements Serializable
    */
   public static byte[] computeAddress(byte[] pubBytes)
   {
-    return HashUtil.sha3omit12(
-            Arrays.copyOfRange(pubBytes, 1, pubBytes.length));
+    return HashUtil.sha3omit12(pubBytes, 1, pubBytes.length - 1);
   }
 
   /**
@@ -505,11 +637,23 @@ public class ECKey implements Serializable
    */
   public byte[] getAddress()
   {
-    if(pubKeyHash == null)
+    byte[] value = pubKeyHash;
+    if(value == null)
     {
-      pubKeyHash = computeAddress(this.pub);
+      value = computeAddress(encoded());
+      pubKeyHash = value;
     }
-    return pubKeyHash;
+    return value;
+  }
+
+  /**
+   * The address without a copy; unlike {@link #getAddress()} the view cannot be used to change the cached value.
+   *
+   * @return read-only buffer over the 20-byte address
+   */
+  public ByteBuffer getAddressView()
+  {
+    return ByteBuffer.wrap(getAddress()).asReadOnlyBuffer();
   }
 
   /**
@@ -531,11 +675,13 @@ public class ECKey implements Serializable
    */
   public byte[] getNodeId()
   {
-    if(nodeId == null)
+    byte[] value = nodeId;
+    if(value == null)
     {
-      nodeId = pubBytesWithoutFormat(this.pub);
+      value = Arrays.copyOfRange(encoded(), 1, 65);
+      nodeId = value;
     }
-    return nodeId;
+    return value;
   }
 
   /**
@@ -559,7 +705,31 @@ public class ECKey implements Serializable
    */
   public byte[] getPubKey()
   {
-    return pub.getEncoded(/* compressed */false);
+    return encoded().clone();
+  }
+
+  /**
+   * The encoded public key without a copy, for callers that only read it.
+   *
+   * @return read-only buffer over the 65-byte encoded public key
+   */
+  public ByteBuffer getPubKeyView()
+  {
+    return ByteBuffer.wrap(encoded()).asReadOnlyBuffer();
+  }
+
+  /**
+   * The cached uncompressed encoding, never handed out.
+   */
+  private byte[] encoded()
+  {
+    byte[] value = pubEncoded;
+    if(value == null)
+    {
+      value = pub.getEncoded(/* compressed */false);
+      pubEncoded = value;
+    }
+    return value;
   }
 
   /**
@@ -611,7 +781,7 @@ public class ECKey implements Serializable
   public String toString()
   {
     StringBuilder b = new StringBuilder();
-    b.append("pub:").append(Hex.toHexString(pub.getEncoded(false)));
+    b.append("pub:").append(Hex.toHexString(encoded()));
     return b.toString();
   }
 
@@ -858,7 +1028,8 @@ public class ECKey implements Serializable
 
   /**
    * Signs the given hash and returns the R and S components as BigIntegers
-   * and put them in ECDSASignature
+   * and put them in ECDSASignature. For keys with an accessible private scalar
+   * the recovery id is known from signing and v is set as well.
    *
    * @param input to sign
    * @return ECDSASignature signature that contains the R and S components
@@ -876,11 +1047,7 @@ public class ECKey implements Serializable
     }
     if(privKey instanceof BCECPrivateKey)
     {
-      ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
-      ECPrivateKeyParameters privKeyParams = new ECPrivateKeyParameters(((BCECPrivateKey) privKey).getD(), CURVE);
-      signer.init(true, privKeyParams);
-      BigInteger[] components = signer.generateSignature(input);
-      return new ECDSASignature(components[0], components[1]).toCanonicalised();
+      return sign(((BCECPrivateKey) privKey).getD(), input);
     }
     else
     {
@@ -902,16 +1069,56 @@ public class ECKey implements Serializable
   /**
    * Takes the keccak hash (32 bytes) of data and returns the ECDSA signature
    *
+   * The recovery id is taken from the nonce point during signing. Keys whose
+   * private scalar is not accessible (e.g. held by a PKCS#11 provider) fall back
+   * to {@link #signWithKeyRecovery(byte[])}.
+   *
    * @param messageHash -
    * @return -
    * @throws IllegalStateException if this ECKey does not have the private part.
    */
   public ECDSASignature sign(byte[] messageHash)
+  {
+    if(privKey instanceof BCECPrivateKey)
+    {
+      return sign(((BCECPrivateKey) privKey).getD(), messageHash);
+    }
+    return signWithKeyRecovery(messageHash);
+  }
+
+  /**
+   * Signs with a bare private scalar, without building a key object or deriving
+   * the public key. The signature is the one {@link #sign(byte[])} produces for
+   * the same key.
+   *
+   * @param privKey private key in the range [1, n)
+   * @param messageHash 32-byte hash
+   * @return canonical signature with v set
+   */
+  public static ECDSASignature sign(BigInteger privKey, byte[] messageHash)
+  {
+    if(NATIVE)
+    {
+      return Secp256k1Signer.sign(ENGINES.get(), BigIntegers.asUnsignedByteArray(32, privKey), messageHash);
+    }
+    return Secp256k1Signer.sign(privKey, messageHash, K_CALCULATORS.get());
+  }
+
+  /**
+   * Takes the keccak hash (32 bytes) of data and returns the ECDSA signature,
+   * finding the recovery id by recovering public keys until one matches this key.
+   * Works with any provider but costs up to four key recoveries on top of signing.
+   *
+   * @param messageHash -
+   * @return -
+   * @throws IllegalStateException if this ECKey does not have the private part.
+   */
+  public ECDSASignature signWithKeyRecovery(byte[] messageHash)
   {
     ECDSASignature sig = doSign(messageHash);
     // Now we have to work backwards to figure out the recId needed to recover the signature.
     int recId = -1;
-    byte[] thisKey = this.pub.getEncoded(/* compressed */false);
+    byte[] thisKey = encoded();
     for(int i = 0; i < 4; i++)
     {
       byte[] k = ECKey.recoverPubBytesFromSignature(i, sig, messageHash);
@@ -1135,6 +1342,10 @@ public class ECKey implements Serializable
    */
   public static boolean verify(byte[] data, ECDSASignature signature, byte[] pub)
   {
+    if(NATIVE && data.length == 32 && isEngineEncoding(pub) && isEngineSignature(signature))
+    {
+      return ENGINES.get().verify(data, 0, toBytes(signature), 0, pub, 0, pub.length);
+    }
     ECDSASigner signer = new ECDSASigner();
     ECPublicKeyParameters params = new ECPublicKeyParameters(CURVE.getCurve().decodePoint(pub), CURVE);
     signer.init(false, params);
@@ -1151,6 +1362,34 @@ public class ECKey implements Serializable
     }
   }
 
+  /**
+   * Compressed and uncompressed points; hybrid encodings and the point at infinity are left to Bouncy Castle.
+   */
+  private static boolean isEngineEncoding(byte[] pub)
+  {
+    return (pub.length == 65 && pub[0] == 0x04) || (pub.length == 33 && (pub[0] == 0x02 || pub[0] == 0x03));
+  }
+
+  /**
+   * r and s in [1, n), the only values {@link Secp256k1Engine} accepts as 32-byte components.
+   */
+  private static boolean isEngineSignature(ECDSASignature signature)
+  {
+    BigInteger n = CURVE.getN();
+    return signature.r.signum() > 0 && signature.r.compareTo(n) < 0
+            && signature.s.signum() > 0 && signature.s.compareTo(n) < 0;
+  }
+
+  private static byte[] toBytes(ECDSASignature signature)
+  {
+    byte[] bytes = new byte[64];
+    byte[] r = BigIntegers.asUnsignedByteArray(signature.r);
+    byte[] s = BigIntegers.asUnsignedByteArray(signature.s);
+    System.arraycopy(r, 0, bytes, 32 - r.length, r.length);
+    System.arraycopy(s, 0, bytes, 64 - s.length, s.length);
+    return bytes;
+  }
+
   /**
    * Verifies the given ASN.1 encoded ECDSA signature against a hash using the public key.
    *
@@ -1175,7 +1414,7 @@ public class ECKey implements Serializable
    */
   public boolean verify(byte[] data, byte[] signature)
   {
-    return ECKey.verify(data, signature, getPubKey());
+    return ECKey.verify(data, signature, encoded());
   }
 
   /**
@@ -1187,7 +1426,7 @@ public class ECKey implements Serializable
    */
   public boolean verify(byte[] sigHash, ECDSASignature signature)
   {
-    return ECKey.verify(sigHash, signature, getPubKey());
+    return ECKey.verify(sigHash, signature, encoded());
   }
 
   /**
@@ -1197,7 +1436,7 @@ public class ECKey implements Serializable
    */
   public boolean isPubKeyCanonical()
   {
-    return isPubKeyCanonical(pub.getEncoded(/* uncompressed */false));
+    return isPubKeyCanonical(encoded());
   }
 
   /**
@@ -1255,6 +1494,11 @@ public class ECKey implements Serializable
     check(sig.r.signum() >= 0, "r must be positive");
     check(sig.s.signum() >= 0, "s must be positive");
     check(messageHash != null, "messageHash must not be null");
+    if(NATIVE && messageHash.length == 32 && recId <= 3 && isEngineSignature(sig))
+    {
+      byte[] pub = new byte[65];
+      return ENGINES.get().recover(messageHash, 0, toBytes(sig), 0, recId, pub, 0) ? pub : null;
+    }
     // 1.0 For j from 0 to h   (h == recId here and the loop is outside this function)
     //   1.1 Let x = r + jn
     BigInteger n = CURVE.getN();  // Curve order.
@@ -1267,8 +1511,7 @@ public class ECKey implements Serializable
     //        do another iteration of Step 1.
     //
     // More concisely, what these points mean is to use X as a compressed public key.
-    ECCurve.Fp curve = (ECCurve.Fp) CURVE.getCurve();
-    BigInteger prime = curve.getQ();  // Bouncy Castle is not consistent about the letter it uses for the prime.
+    BigInteger prime = CURVE.getCurve().getField().getCharacteristic();
     if(x.compareTo(prime) >= 0)
     {
       // Cannot have point co-ordinates larger than this as everything takes place modulo Q.
@@ -1276,12 +1519,21 @@ public class ECKey implements Serializable
     }
     // Compressed keys require you to know an extra bit of data about the y-coord as there are two possibilities.
     // So it's encoded in the recId.
-    ECPoint R = decompressKey(x, (recId & 1) == 1);
-    //   1.4. If nR != point at infinity, then do another iteration of Step 1 (callers responsibility).
-    if(!R.multiply(n).isInfinity())
+    ECPoint R;
+    try
     {
+      R = decompressKey(x, (recId & 1) == 1);
+    }
+    catch(IllegalArgumentException ex)
+    {
+      // x is not the abscissa of a curve point
       return null;
     }
+    //   1.4. If nR != point at infinity, then do another iteration of Step 1 (callers responsibility).
+    //
+    // secp256k1 has cofactor 1, so every point on the curve has order n and nR is always infinity. The check
+    // would cost a full scalar multiplication and is skipped.
+    //
     //   1.5. Compute e from M using Steps 2 and 3 of ECDSA signature verification.
     BigInteger e = new BigInteger(1, messageHash);
     //   1.6. For k from 1 to 2 do the following.   (loop is outside this function via iterating recId)
@@ -1299,7 +1551,13 @@ public class ECKey implements Serializable
     BigInteger rInv = sig.r.modInverse(n);
     BigInteger srInv = rInv.multiply(sig.s).mod(n);
     BigInteger eInvrInv = rInv.multiply(eInv).mod(n);
-    ECPoint.Fp q = (ECPoint.Fp) ECAlgorithms.sumOfTwoMultiplies(CURVE.getG(), eInvrInv, R, srInv);
+    // Shamir's trick interleaves both terms over one doubling chain; G's wNAF precomputation is cached on the
+    // generator, so only R's odd multiples are computed per call.
+    ECPoint q = ECAlgorithms.sumOfTwoMultiplies(CURVE.getG(), eInvrInv, R, srInv).normalize();
+    if(q.isInfinity())
+    {
+      return null;
+    }
     return q.getEncoded(/* compressed */false);
   }
 
@@ -1397,18 +1655,19 @@ public class ECKey implements Serializable
     {
       return false;
     }
-    if(pub != null && !pub.equals(ecKey.pub))
-    {
-      return false;
-    }
-
-    return true;
+    return Arrays.equals(encoded(), ecKey.encoded());
   }
 
   @Override
   public int hashCode()
   {
-    return Arrays.hashCode(getPubKey());
+    int h = hash;
+    if(h == 0)
+    {
+      h = Arrays.hashCode(encoded());
+      hash = h;
+    }
+    return h;
   }
 
   @SuppressWarnings("serial")
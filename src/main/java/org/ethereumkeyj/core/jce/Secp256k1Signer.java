@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.jce;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.util.BigIntegers;
+import org.ethereumkeyj.core.secp256k1.Secp256k1Engine;
+
+/**
+ * Deterministic (RFC 6979) ECDSA signer bound to one private key, for signing many hashes with the same key.
+ *
+ * <p>Compared to {@link ECKey#sign(byte[])} it checks and converts the key once, computes {@code k * G} with the
+ * same fixed-point comb as {@code ECDSASigner}, and derives the recovery id directly from the nonce point instead
+ * of trying public key recoveries. It holds nothing but the key: the HMAC nonce generator, or with the
+ * {@code native} {@link ECKey#CURVE_PROPERTY} the {@link Secp256k1Engine}, is the calling thread's, shared with
+ * {@link ECKey}. Signatures are identical to the ones produced by {@link ECKey#sign(byte[])}: canonical (low S)
+ * with {@code v} set to {@code recId + 27}.</p>
+ *
+ * <p>Instances are thread-safe.</p>
+ */
+public final class Secp256k1Signer
+{
+
+  /**
+   * The base point multiplier of {@code ECDSASigner}; its comb reads the same table entries for every scalar.
+   */
+  static final ECMultiplier BASE_MULTIPLIER = new FixedPointCombMultiplier();
+
+  private final BigInteger privKey;
+  /**
+   * 32-byte big-endian key for the engine, null unless native.
+   */
+  private final byte[] privKeyBytes;
+
+  /**
+   * @param key a key with its private part
+   * @throws ECKey.MissingPrivateKeyException if the key has no accessible private scalar
+   */
+  public Secp256k1Signer(ECKey key)
+  {
+    this(key.getPrivKey());
+  }
+
+  public Secp256k1Signer(BigInteger privKey)
+  {
+    BigInteger n = ECKey.CURVE.getN();
+    if(privKey.signum() <= 0 || privKey.compareTo(n) >= 0)
+    {
+      throw new IllegalArgumentException("Private key out of range");
+    }
+    this.privKey = privKey;
+    this.privKeyBytes = ECKey.NATIVE ? BigIntegers.asUnsignedByteArray(32, privKey) : null;
+  }
+
+  /**
+   * Signs a 32-byte hash.
+   *
+   * @param messageHash the hash to sign
+   * @return canonical signature with v set
+   */
+  public ECKey.ECDSASignature sign(byte[] messageHash)
+  {
+    return privKeyBytes != null
+            ? sign(ECKey.ENGINES.get(), privKeyBytes, messageHash)
+            : sign(privKey, messageHash, ECKey.K_CALCULATORS.get());
+  }
+
+  static ECKey.ECDSASignature sign(Secp256k1Engine engine, byte[] privKey, byte[] messageHash)
+  {
+    checkHashLength(messageHash);
+    byte[] signature = new byte[64];
+    int recId = engine.sign(privKey, 0, messageHash, 0, signature, 0);
+    return ECKey.ECDSASignature.fromComponents(Arrays.copyOfRange(signature, 0, 32),
+            Arrays.copyOfRange(signature, 32, 64), (byte) (recId + 27));
+  }
+
+  private static void checkHashLength(byte[] messageHash)
+  {
+    if(messageHash.length != 32)
+    {
+      throw new IllegalArgumentException("Expected 32 byte input to ECDSA signature, not " + messageHash.length);
+    }
+  }
+
+  /**
+   * The ECDSA signing equations of {@link org.bouncycastle.crypto.signers.ECDSASigner}, keeping the nonce point
+   * so that the recovery id comes for free: bit 0 is the parity of R.y and bit 1 is set when R.x overflowed the
+   * curve order. Negating S for the low-S form negates R, which flips the parity bit.
+   */
+  static ECKey.ECDSASignature sign(BigInteger privKey, byte[] messageHash, HMacDSAKCalculator kCalculator)
+  {
+    checkHashLength(messageHash);
+    BigInteger n = ECKey.CURVE.getN();
+    BigInteger e = new BigInteger(1, messageHash);
+    ECPoint g = ECKey.CURVE.getG();
+    kCalculator.init(n, privKey, messageHash);
+
+    BigInteger r, s;
+    int recId;
+    do
+    {
+      BigInteger k;
+      BigInteger x;
+      ECPoint p;
+      do
+      {
+        k = kCalculator.nextK();
+        p = BASE_MULTIPLIER.multiply(g, k).normalize();
+        x = p.getAffineXCoord().toBigInteger();
+        r = x.mod(n);
+      }
+      while(r.signum() == 0);
+
+      recId = (p.getAffineYCoord().testBitZero() ? 1 : 0) | (x.compareTo(n) >= 0 ? 2 : 0);
+      s = k.modInverse(n).multiply(e.add(privKey.multiply(r))).mod(n);
+    }
+    while(s.signum() == 0);
+
+    if(s.compareTo(ECKey.HALF_CURVE_ORDER) > 0)
+    {
+      s = n.subtract(s);
+      recId ^= 1;
+    }
+    ECKey.ECDSASignature signature = new ECKey.ECDSASignature(r, s);
+    signature.v = (byte) (recId + 27);
+    return signature;
+  }
+}
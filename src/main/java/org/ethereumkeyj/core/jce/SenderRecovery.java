@@ -0,0 +1,255 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.jce;
+
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.ethereumkeyj.core.cryptohash.Keccak256;
+
+/**
+ * Bulk variant of {@link ECKey#signatureToAddress(byte[], ECKey.ECDSASignature)} for recovering the senders of
+ * many signatures, e.g. all transactions of a block.
+ *
+ * <p>Addresses are written into one caller-supplied array, 20 bytes per entry. Entries are processed in
+ * parallel slices. With the native curve a slice goes through
+ * {@link org.ethereumkeyj.core.secp256k1.Secp256k1Engine#recoverAll}, which shares one scalar inversion for the
+ * {@code r^-1 mod n} values and one field inversion for the affine conversion across the slice; otherwise each
+ * entry is recovered on its own. No {@link ECKey} objects are created.</p>
+ */
+public class SenderRecovery
+{
+
+  /**
+   * Entries per fork-join leaf. Large enough that the shared inversions are amortised.
+   */
+  private static final int LEAF_SIZE = 64;
+
+  public static BitSet recoverAddresses(byte[][] hashes, byte[][] r, byte[][] s, byte[] v, byte[] addresses)
+  {
+    return recoverAddresses(hashes, r, s, v, addresses, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Same as {@link #recoverAddresses(byte[][], byte[][], byte[][], long[], byte[], ForkJoinPool)} for
+   * {@code v} values that fit into a signed byte.
+   */
+  public static BitSet recoverAddresses(byte[][] hashes, byte[][] r, byte[][] s, byte[] v, byte[] addresses,
+          ForkJoinPool pool)
+  {
+    long[] values = new long[v.length];
+    for(int i = 0; i < v.length; i++)
+    {
+      values[i] = v[i];
+    }
+    return recoverAddresses(hashes, r, s, values, addresses, pool);
+  }
+
+  public static BitSet recoverAddresses(byte[][] hashes, byte[][] r, byte[][] s, long[] v, byte[] addresses)
+  {
+    return recoverAddresses(hashes, r, s, v, addresses, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Recovers the sender address of every entry.
+   *
+   * <p>Entry {@code i} is the 32-byte {@code hashes[i]} signed with the big-endian unsigned components
+   * {@code r[i]} and {@code s[i]} and the value {@code v[i]} as found in a transaction: the y-parity 0 or 1 of a
+   * typed transaction, a header 27 to 34 as in {@link ECKey.ECDSASignature#v}, or an EIP-155
+   * {@code chainId * 2 + 35} or {@code chainId * 2 + 36}. Its address is written to
+   * {@code addresses[20 * i, 20 * i + 20)}. Entries whose sender cannot be recovered are left untouched and their
+   * bit is clear in the result.</p>
+   *
+   * @param hashes message hashes
+   * @param r signature r components
+   * @param s signature s components
+   * @param v signature v values
+   * @param addresses receives the addresses, at least {@code 20 * hashes.length} bytes
+   * @param pool the pool to run on
+   * @return a bit set with bit {@code i} set if entry {@code i} was recovered
+   * @throws IllegalArgumentException if the arrays do not have matching lengths
+   */
+  public static BitSet recoverAddresses(byte[][] hashes, byte[][] r, byte[][] s, long[] v, byte[] addresses,
+          ForkJoinPool pool)
+  {
+    int count = hashes.length;
+    if(r.length != count || s.length != count || v.length != count)
+    {
+      throw new IllegalArgumentException("Signature components do not match the number of hashes");
+    }
+    if(addresses.length < count * 20)
+    {
+      throw new IllegalArgumentException("Address array too small, need " + count * 20 + " bytes");
+    }
+    boolean[] recovered = new boolean[count];
+    pool.invoke(new RecoverTask(hashes, r, s, v, addresses, recovered, 0, count));
+    BitSet result = new BitSet(count);
+    for(int i = 0; i < count; i++)
+    {
+      if(recovered[i])
+      {
+        result.set(i);
+      }
+    }
+    return result;
+  }
+
+  private static void recover(byte[][] hashes, byte[][] r, byte[][] s, long[] v, byte[] addresses,
+          boolean[] recovered, int from, int to)
+  {
+    int len = to - from;
+    byte[] hashBytes = new byte[len * 32];
+    byte[] sigs = new byte[len * 64];
+    int[] recIds = new int[len];
+    for(int i = 0; i < len; i++)
+    {
+      byte[] hash = hashes[from + i];
+      if(hash.length != 32 || !copyUnsigned(r[from + i], sigs, i * 64) || !copyUnsigned(s[from + i], sigs, i * 64 + 32))
+      {
+        // rejected by recoverAll
+        recIds[i] = -1;
+        continue;
+      }
+      System.arraycopy(hash, 0, hashBytes, i * 32, 32);
+      recIds[i] = recId(v[from + i]);
+    }
+
+    if(ECKey.NATIVE)
+    {
+      byte[] pubs = new byte[len * 65];
+      BitSet ok = ECKey.ENGINES.get().recoverAll(hashBytes, 0, sigs, 0, recIds, len, pubs, 0);
+      for(int i = ok.nextSetBit(0); i >= 0; i = ok.nextSetBit(i + 1))
+      {
+        Keccak256.hashOmit12(pubs, i * 65 + 1, 64, addresses, (from + i) * 20);
+        recovered[from + i] = true;
+      }
+      return;
+    }
+
+    BigInteger n = ECKey.CURVE.getN();
+    for(int i = 0; i < len; i++)
+    {
+      if(recIds[i] < 0)
+      {
+        continue;
+      }
+      BigInteger ri = new BigInteger(1, r[from + i]);
+      BigInteger si = new BigInteger(1, s[from + i]);
+      if(ri.signum() == 0 || ri.compareTo(n) >= 0 || si.signum() == 0 || si.compareTo(n) >= 0)
+      {
+        continue;
+      }
+      byte[] pub = ECKey.recoverPubBytesFromSignature(recIds[i], new ECKey.ECDSASignature(ri, si), hashes[from + i]);
+      if(pub != null)
+      {
+        Keccak256.hashOmit12(pub, 1, 64, addresses, (from + i) * 20);
+        recovered[from + i] = true;
+      }
+    }
+  }
+
+  /**
+   * Copies a big-endian unsigned value right-aligned into 32 bytes of {@code out}.
+   *
+   * @return false if the value does not fit
+   */
+  private static boolean copyUnsigned(byte[] value, byte[] out, int off)
+  {
+    int skip = 0;
+    while(skip < value.length && value[skip] == 0)
+    {
+      skip++;
+    }
+    int length = value.length - skip;
+    if(length > 32)
+    {
+      return false;
+    }
+    System.arraycopy(value, skip, out, off + 32 - length, length);
+    return true;
+  }
+
+  /**
+   * Headers 27 to 34 follow the rules of {@link ECKey#signatureToKeyBytes(byte[], ECKey.ECDSASignature)}.
+   *
+   * @return the recovery id, or -1 if {@code v} is out of range
+   */
+  private static int recId(long v)
+  {
+    if(v == 0 || v == 1)
+    {
+      return (int) v;
+    }
+    if(v >= 35)
+    {
+      // EIP-155: v = CHAIN_ID * 2 + 35 or v = CHAIN_ID * 2 + 36
+      return (int) ((v - 35) & 1);
+    }
+    if(v < 27 || v > 34)
+    {
+      return -1;
+    }
+    return (int) (v >= 31 ? v - 31 : v - 27);
+  }
+
+  @SuppressWarnings("serial")
+  private static class RecoverTask extends RecursiveAction
+  {
+
+    private final byte[][] hashes;
+    private final byte[][] r;
+    private final byte[][] s;
+    private final long[] v;
+    private final byte[] addresses;
+    private final boolean[] recovered;
+    private final int from;
+    private final int to;
+
+    RecoverTask(byte[][] hashes, byte[][] r, byte[][] s, long[] v, byte[] addresses, boolean[] recovered,
+            int from, int to)
+    {
+      this.hashes = hashes;
+      this.r = r;
+      this.s = s;
+      this.v = v;
+      this.addresses = addresses;
+      this.recovered = recovered;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if(to - from <= LEAF_SIZE)
+      {
+        recover(hashes, r, s, v, addresses, recovered, from, to);
+      }
+      else
+      {
+        int mid = (from + to) >>> 1;
+        invokeAll(new RecoverTask(hashes, r, s, v, addresses, recovered, from, mid),
+                new RecoverTask(hashes, r, s, v, addresses, recovered, mid, to));
+      }
+    }
+  }
+
+  private SenderRecovery()
+  {
+
+  }
+}
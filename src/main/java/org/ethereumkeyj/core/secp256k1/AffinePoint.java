@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.secp256k1;
+
+/**
+ * Mutable point in affine coordinates, or the point at infinity.
+ */
+public final class AffinePoint
+{
+
+  private static final FieldElement B = new FieldElement(7);
+
+  final FieldElement x = new FieldElement();
+  final FieldElement y = new FieldElement();
+  boolean infinity = true;
+
+  public AffinePoint set(AffinePoint p)
+  {
+    x.set(p.x);
+    y.set(p.y);
+    infinity = p.infinity;
+    return this;
+  }
+
+  public boolean isInfinity()
+  {
+    return infinity;
+  }
+
+  /**
+   * Sets the point with the given x coordinate and y parity.
+   *
+   * @param tmp at least {@link FieldElement#TEMPORARIES} + 1 temporaries
+   * @return false if x is not the abscissa of a curve point; the point is then unchanged
+   */
+  public boolean setX(FieldElement x, boolean odd, FieldElement[] tmp)
+  {
+    FieldElement rhs = tmp[FieldElement.TEMPORARIES];
+    rhs.sqr(x).mul(rhs, x).add(B);
+    if(!y.sqrt(rhs, tmp))
+    {
+      return false;
+    }
+    if(y.isOdd() != odd)
+    {
+      y.negate(y).normalize();
+    }
+    this.x.set(x).normalize();
+    infinity = false;
+    return true;
+  }
+
+  /**
+   * Decodes an uncompressed (0x04) or compressed (0x02, 0x03) SEC1 point.
+   *
+   * @param tmp at least {@link FieldElement#TEMPORARIES} + 1 temporaries
+   * @return false if the encoding is not one of those or the point is not on the curve
+   */
+  public boolean decode(byte[] in, int off, int len, FieldElement[] tmp)
+  {
+    FieldElement px = tmp[FieldElement.TEMPORARIES];
+    if(len == 33 && (in[off] == 0x02 || in[off] == 0x03))
+    {
+      infinity = !x.setBytes(in, off + 1) || !setX(x, in[off] == 0x03, tmp);
+      return !infinity;
+    }
+    if(len != 65 || in[off] != 0x04 || !x.setBytes(in, off + 1) || !y.setBytes(in, off + 33))
+    {
+      infinity = true;
+      return false;
+    }
+    // y^2 = x^3 + 7
+    px.sqr(x).mul(px, x).add(B);
+    FieldElement yy = tmp[0].sqr(y);
+    infinity = !yy.equalsValue(px);
+    return !infinity;
+  }
+
+  /**
+   * Writes the 65-byte uncompressed encoding.
+   */
+  public void encode(byte[] out, int off)
+  {
+    out[off] = 0x04;
+    x.getBytes(out, off + 1);
+    y.getBytes(out, off + 33);
+  }
+}
@@ -0,0 +1,540 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.secp256k1;
+
+/**
+ * Mutable element of the secp256k1 base field, integers modulo p = 2^256 - 2^32 - 977.
+ *
+ * <p>The value is held in ten 26-bit limbs, least significant first, with 22 bits in the top limb. Limb products
+ * fit in 52 bits, so a full multiplication accumulates its columns in plain {@code long}s without 128-bit
+ * arithmetic. Reduction uses 2^256 = 2^32 + 977 (mod p), i.e. 2^260 = 2^36 + 15632.</p>
+ *
+ * <p>Every operation leaves the limbs in range and the value below 2^256, but possibly not below p;
+ * {@link #normalize()} completes the reduction and is called by the methods that compare or serialise.
+ * Arguments may alias the receiver. Nothing allocates after construction.</p>
+ */
+public final class FieldElement
+{
+
+  private static final long M26 = 0x3FFFFFFL;
+  private static final long M22 = 0x3FFFFFL;
+  /**
+   * 2^260 mod p without the 2^36 term.
+   */
+  private static final long R0 = 15632;
+
+  /**
+   * Number of temporaries {@link #inverse} and {@link #sqrt} need.
+   */
+  public static final int TEMPORARIES = 6;
+
+  /**
+   * Limbs of p and of 2p; 2p is added before subtracting so that every limb stays non-negative.
+   */
+  private static final long[] P = {
+    0x3FFFC2FL, 0x3FFFFBFL, M26, M26, M26, M26, M26, M26, M26, M22
+  };
+  private static final long TWO_P0 = P[0] << 1;
+  private static final long TWO_P1 = P[1] << 1;
+  private static final long TWO_P2 = M26 << 1;
+  private static final long TWO_P9 = M22 << 1;
+
+  final long[] n = new long[10];
+
+  public FieldElement()
+  {
+  }
+
+  public FieldElement(int value)
+  {
+    setInt(value);
+  }
+
+  public FieldElement set(FieldElement a)
+  {
+    System.arraycopy(a.n, 0, n, 0, 10);
+    return this;
+  }
+
+  /**
+   * this = a if mask is all ones, unchanged if it is zero; the same memory accesses either way.
+   */
+  void cmov(FieldElement a, long mask)
+  {
+    long[] x = a.n;
+    for(int i = 0; i < 10; i++)
+    {
+      n[i] ^= (n[i] ^ x[i]) & mask;
+    }
+  }
+
+  /**
+   * @param value a non-negative value below 2^26
+   */
+  public FieldElement setInt(int value)
+  {
+    n[0] = value;
+    for(int i = 1; i < 10; i++)
+    {
+      n[i] = 0;
+    }
+    return this;
+  }
+
+  /**
+   * Reads a 32-byte big-endian value.
+   *
+   * @return true if the value is below p; otherwise it is reduced and false returned
+   */
+  public boolean setBytes(byte[] in, int off)
+  {
+    long acc = 0;
+    int bits = 0;
+    int limb = 0;
+    for(int i = off + 31; i >= off; i--)
+    {
+      acc |= (long) (in[i] & 0xFF) << bits;
+      bits += 8;
+      if(bits >= 26 && limb < 9)
+      {
+        n[limb++] = acc & M26;
+        acc >>>= 26;
+        bits -= 26;
+      }
+    }
+    n[9] = acc;
+    boolean overflow = isAtLeastP();
+    normalize();
+    return !overflow;
+  }
+
+  /**
+   * Writes the fully reduced value as 32 big-endian bytes.
+   */
+  public void getBytes(byte[] out, int off)
+  {
+    normalize();
+    for(int j = 0; j < 32; j++)
+    {
+      int bit = j * 8;
+      int limb = bit / 26;
+      int shift = bit % 26;
+      long v = n[limb] >>> shift;
+      if(shift > 18)
+      {
+        v |= n[limb + 1] << (26 - shift);
+      }
+      out[off + 31 - j] = (byte) v;
+    }
+  }
+
+  private boolean isAtLeastP()
+  {
+    if(n[9] != M22)
+    {
+      return false;
+    }
+    for(int i = 8; i >= 2; i--)
+    {
+      if(n[i] != M26)
+      {
+        return false;
+      }
+    }
+    return n[1] > P[1] || (n[1] == P[1] && n[0] >= P[0]);
+  }
+
+  /**
+   * Reduces the value below p.
+   */
+  public FieldElement normalize()
+  {
+    if(isAtLeastP())
+    {
+      // subtract p by adding 2^256 - p and dropping bit 256
+      n[0] += 977;
+      n[1] += 1 << 6;
+      for(int i = 0; i < 9; i++)
+      {
+        n[i + 1] += n[i] >>> 26;
+        n[i] &= M26;
+      }
+      n[9] &= M22;
+    }
+    return this;
+  }
+
+  public boolean isZero()
+  {
+    normalize();
+    for(int i = 0; i < 10; i++)
+    {
+      if(n[i] != 0)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean isOdd()
+  {
+    normalize();
+    return (n[0] & 1) != 0;
+  }
+
+  /**
+   * Compares values; normalises both elements.
+   */
+  public boolean equalsValue(FieldElement a)
+  {
+    normalize();
+    a.normalize();
+    for(int i = 0; i < 10; i++)
+    {
+      if(n[i] != a.n[i])
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Propagates carries so that every limb fits its width, folding bits above 2^256 back in.
+   */
+  private void carry()
+  {
+    carry(n[0], n[1], n[2], n[3], n[4], n[5], n[6], n[7], n[8], n[9]);
+  }
+
+  /**
+   * Stores the limbs after one carry pass and one fold of the bits above 2^256. The fold can only carry past
+   * limb 1 when the limbs above are all ones, which {@link #carryAll()} then handles.
+   */
+  private void carry(long t0, long t1, long t2, long t3, long t4, long t5, long t6, long t7, long t8, long t9)
+  {
+    t1 += t0 >>> 26;
+    t0 &= M26;
+    t2 += t1 >>> 26;
+    t1 &= M26;
+    t3 += t2 >>> 26;
+    t2 &= M26;
+    t4 += t3 >>> 26;
+    t3 &= M26;
+    t5 += t4 >>> 26;
+    t4 &= M26;
+    t6 += t5 >>> 26;
+    t5 &= M26;
+    t7 += t6 >>> 26;
+    t6 &= M26;
+    t8 += t7 >>> 26;
+    t7 &= M26;
+    t9 += t8 >>> 26;
+    t8 &= M26;
+    long c = t9 >>> 22;
+    t9 &= M22;
+    t0 += c * 977;
+    t1 += (c << 6) + (t0 >>> 26);
+    t0 &= M26;
+    n[0] = t0;
+    n[1] = t1 & M26;
+    n[2] = t2 + (t1 >>> 26);
+    n[3] = t3;
+    n[4] = t4;
+    n[5] = t5;
+    n[6] = t6;
+    n[7] = t7;
+    n[8] = t8;
+    n[9] = t9;
+    if(n[2] > M26)
+    {
+      carryAll();
+    }
+  }
+
+  private void carryAll()
+  {
+    long c;
+    do
+    {
+      for(int i = 0; i < 9; i++)
+      {
+        n[i + 1] += n[i] >>> 26;
+        n[i] &= M26;
+      }
+      c = n[9] >>> 22;
+      n[9] &= M22;
+      n[0] += c * 977;
+      n[1] += c << 6;
+    }
+    while(c != 0);
+  }
+
+  public FieldElement add(FieldElement a)
+  {
+    long[] x = a.n;
+    carry(n[0] + x[0], n[1] + x[1], n[2] + x[2], n[3] + x[3], n[4] + x[4],
+            n[5] + x[5], n[6] + x[6], n[7] + x[7], n[8] + x[8], n[9] + x[9]);
+    return this;
+  }
+
+  /**
+   * this = this - a
+   */
+  public FieldElement sub(FieldElement a)
+  {
+    long[] x = a.n;
+    carry(n[0] + TWO_P0 - x[0], n[1] + TWO_P1 - x[1], n[2] + TWO_P2 - x[2], n[3] + TWO_P2 - x[3],
+            n[4] + TWO_P2 - x[4], n[5] + TWO_P2 - x[5], n[6] + TWO_P2 - x[6], n[7] + TWO_P2 - x[7],
+            n[8] + TWO_P2 - x[8], n[9] + TWO_P9 - x[9]);
+    return this;
+  }
+
+  /**
+   * this = -a
+   */
+  public FieldElement negate(FieldElement a)
+  {
+    long[] x = a.n;
+    carry(TWO_P0 - x[0], TWO_P1 - x[1], TWO_P2 - x[2], TWO_P2 - x[3], TWO_P2 - x[4],
+            TWO_P2 - x[5], TWO_P2 - x[6], TWO_P2 - x[7], TWO_P2 - x[8], TWO_P9 - x[9]);
+    return this;
+  }
+
+  /**
+   * @param k a small non-negative factor, below 2^30
+   */
+  public FieldElement mulInt(int k)
+  {
+    carry(n[0] * k, n[1] * k, n[2] * k, n[3] * k, n[4] * k, n[5] * k, n[6] * k, n[7] * k, n[8] * k, n[9] * k);
+    return this;
+  }
+
+  /**
+   * this = a * b
+   */
+  public FieldElement mul(FieldElement a, FieldElement b)
+  {
+    long a0 = a.n[0];
+    long a1 = a.n[1];
+    long a2 = a.n[2];
+    long a3 = a.n[3];
+    long a4 = a.n[4];
+    long a5 = a.n[5];
+    long a6 = a.n[6];
+    long a7 = a.n[7];
+    long a8 = a.n[8];
+    long a9 = a.n[9];
+    long b0 = b.n[0];
+    long b1 = b.n[1];
+    long b2 = b.n[2];
+    long b3 = b.n[3];
+    long b4 = b.n[4];
+    long b5 = b.n[5];
+    long b6 = b.n[6];
+    long b7 = b.n[7];
+    long b8 = b.n[8];
+    long b9 = b.n[9];
+    long d0 = a0 * b0;
+    long d1 = a0 * b1 + a1 * b0;
+    long d2 = a0 * b2 + a1 * b1 + a2 * b0;
+    long d3 = a0 * b3 + a1 * b2 + a2 * b1 + a3 * b0;
+    long d4 = a0 * b4 + a1 * b3 + a2 * b2 + a3 * b1 + a4 * b0;
+    long d5 = a0 * b5 + a1 * b4 + a2 * b3 + a3 * b2 + a4 * b1 + a5 * b0;
+    long d6 = a0 * b6 + a1 * b5 + a2 * b4 + a3 * b3 + a4 * b2 + a5 * b1 + a6 * b0;
+    long d7 = a0 * b7 + a1 * b6 + a2 * b5 + a3 * b4 + a4 * b3 + a5 * b2 + a6 * b1 + a7 * b0;
+    long d8 = a0 * b8 + a1 * b7 + a2 * b6 + a3 * b5 + a4 * b4 + a5 * b3 + a6 * b2 + a7 * b1 + a8 * b0;
+    long d9 = a0 * b9 + a1 * b8 + a2 * b7 + a3 * b6 + a4 * b5 + a5 * b4 + a6 * b3 + a7 * b2 + a8 * b1 + a9 * b0;
+    long d10 = a1 * b9 + a2 * b8 + a3 * b7 + a4 * b6 + a5 * b5 + a6 * b4 + a7 * b3 + a8 * b2 + a9 * b1;
+    long d11 = a2 * b9 + a3 * b8 + a4 * b7 + a5 * b6 + a6 * b5 + a7 * b4 + a8 * b3 + a9 * b2;
+    long d12 = a3 * b9 + a4 * b8 + a5 * b7 + a6 * b6 + a7 * b5 + a8 * b4 + a9 * b3;
+    long d13 = a4 * b9 + a5 * b8 + a6 * b7 + a7 * b6 + a8 * b5 + a9 * b4;
+    long d14 = a5 * b9 + a6 * b8 + a7 * b7 + a8 * b6 + a9 * b5;
+    long d15 = a6 * b9 + a7 * b8 + a8 * b7 + a9 * b6;
+    long d16 = a7 * b9 + a8 * b8 + a9 * b7;
+    long d17 = a8 * b9 + a9 * b8;
+    long d18 = a9 * b9;
+    reduce(d0, d1, d2, d3, d4, d5, d6, d7, d8, d9, d10, d11, d12, d13, d14, d15, d16, d17, d18);
+    return this;
+  }
+
+  /**
+   * this = a^2
+   */
+  public FieldElement sqr(FieldElement a)
+  {
+    long a0 = a.n[0];
+    long a1 = a.n[1];
+    long a2 = a.n[2];
+    long a3 = a.n[3];
+    long a4 = a.n[4];
+    long a5 = a.n[5];
+    long a6 = a.n[6];
+    long a7 = a.n[7];
+    long a8 = a.n[8];
+    long a9 = a.n[9];
+    long d0 = a0 * a0;
+    long d1 = a0 * a1 * 2;
+    long d2 = a0 * a2 * 2 + a1 * a1;
+    long d3 = a0 * a3 * 2 + a1 * a2 * 2;
+    long d4 = a0 * a4 * 2 + a1 * a3 * 2 + a2 * a2;
+    long d5 = a0 * a5 * 2 + a1 * a4 * 2 + a2 * a3 * 2;
+    long d6 = a0 * a6 * 2 + a1 * a5 * 2 + a2 * a4 * 2 + a3 * a3;
+    long d7 = a0 * a7 * 2 + a1 * a6 * 2 + a2 * a5 * 2 + a3 * a4 * 2;
+    long d8 = a0 * a8 * 2 + a1 * a7 * 2 + a2 * a6 * 2 + a3 * a5 * 2 + a4 * a4;
+    long d9 = a0 * a9 * 2 + a1 * a8 * 2 + a2 * a7 * 2 + a3 * a6 * 2 + a4 * a5 * 2;
+    long d10 = a1 * a9 * 2 + a2 * a8 * 2 + a3 * a7 * 2 + a4 * a6 * 2 + a5 * a5;
+    long d11 = a2 * a9 * 2 + a3 * a8 * 2 + a4 * a7 * 2 + a5 * a6 * 2;
+    long d12 = a3 * a9 * 2 + a4 * a8 * 2 + a5 * a7 * 2 + a6 * a6;
+    long d13 = a4 * a9 * 2 + a5 * a8 * 2 + a6 * a7 * 2;
+    long d14 = a5 * a9 * 2 + a6 * a8 * 2 + a7 * a7;
+    long d15 = a6 * a9 * 2 + a7 * a8 * 2;
+    long d16 = a7 * a9 * 2 + a8 * a8;
+    long d17 = a8 * a9 * 2;
+    long d18 = a9 * a9;
+    reduce(d0, d1, d2, d3, d4, d5, d6, d7, d8, d9, d10, d11, d12, d13, d14, d15, d16, d17, d18);
+    return this;
+  }
+
+  private void reduce(long d0, long d1, long d2, long d3, long d4, long d5, long d6, long d7, long d8, long d9, long d10, long d11, long d12, long d13, long d14, long d15, long d16, long d17, long d18)
+  {
+    // carry the product columns to 26 bits each
+    d1 += d0 >>> 26;
+    d0 &= M26;
+    d2 += d1 >>> 26;
+    d1 &= M26;
+    d3 += d2 >>> 26;
+    d2 &= M26;
+    d4 += d3 >>> 26;
+    d3 &= M26;
+    d5 += d4 >>> 26;
+    d4 &= M26;
+    d6 += d5 >>> 26;
+    d5 &= M26;
+    d7 += d6 >>> 26;
+    d6 &= M26;
+    d8 += d7 >>> 26;
+    d7 &= M26;
+    d9 += d8 >>> 26;
+    d8 &= M26;
+    d10 += d9 >>> 26;
+    d9 &= M26;
+    d11 += d10 >>> 26;
+    d10 &= M26;
+    d12 += d11 >>> 26;
+    d11 &= M26;
+    d13 += d12 >>> 26;
+    d12 &= M26;
+    d14 += d13 >>> 26;
+    d13 &= M26;
+    d15 += d14 >>> 26;
+    d14 &= M26;
+    d16 += d15 >>> 26;
+    d15 &= M26;
+    d17 += d16 >>> 26;
+    d16 &= M26;
+    d18 += d17 >>> 26;
+    d17 &= M26;
+    long d19 = d18 >>> 26;
+    d18 &= M26;
+    // column 10 + i is worth (2^36 + 15632) times column i: 15632 goes to column i, 2^10 to column i + 1
+    long t0 = d0 + d10 * R0;
+    long t1 = d1 + d11 * R0 + (d10 << 10);
+    long t2 = d2 + d12 * R0 + (d11 << 10);
+    long t3 = d3 + d13 * R0 + (d12 << 10);
+    long t4 = d4 + d14 * R0 + (d13 << 10);
+    long t5 = d5 + d15 * R0 + (d14 << 10);
+    long t6 = d6 + d16 * R0 + (d15 << 10);
+    long t7 = d7 + d17 * R0 + (d16 << 10);
+    long t8 = d8 + d18 * R0 + (d17 << 10);
+    long t9 = d9 + d19 * R0 + (d18 << 10);
+    long t10 = d19 << 10;
+    carry(t0 + t10 * R0, t1 + (t10 << 10), t2, t3, t4, t5, t6, t7, t8, t9);
+  }
+
+  private FieldElement sqr(int times)
+  {
+    for(int i = 0; i < times; i++)
+    {
+      sqr(this);
+    }
+    return this;
+  }
+
+  /**
+   * Raises a to 2^223 - 1 and leaves the intermediate powers that {@link #inverse} and {@link #sqrt} need in the
+   * temporaries: x2 = a^3, x22 = a^(2^22 - 1). Addition chain from libsecp256k1.
+   */
+  private static void pow223(FieldElement a, FieldElement x2, FieldElement x22, FieldElement t, FieldElement[] tmp)
+  {
+    FieldElement x3 = tmp[0];
+    FieldElement x11 = tmp[1];
+    FieldElement x44 = tmp[2];
+    x2.sqr(a).mul(x2, a);
+    x3.sqr(x2).mul(x3, a);
+    t.set(x3).sqr(3).mul(t, x3);
+    t.sqr(3).mul(t, x3);
+    x11.set(t).sqr(2).mul(x11, x2);
+    t.set(x11).sqr(11).mul(t, x11);
+    x22.set(t);
+    t.sqr(22).mul(t, x22);
+    x44.set(t);
+    t.sqr(44).mul(t, x44);
+    x11.set(t);
+    // x88 is in x11 now
+    t.sqr(88).mul(t, x11);
+    t.sqr(44).mul(t, x44);
+    t.sqr(3).mul(t, x3);
+  }
+
+  /**
+   * this = a^-1 = a^(p - 2); zero for a = 0.
+   *
+   * @param tmp at least {@value #TEMPORARIES} elements distinct from a and this
+   */
+  public FieldElement inverse(FieldElement a, FieldElement[] tmp)
+  {
+    FieldElement x2 = tmp[3];
+    FieldElement x22 = tmp[4];
+    FieldElement t = tmp[5];
+    pow223(a, x2, x22, t, tmp);
+    t.sqr(23).mul(t, x22);
+    t.sqr(5).mul(t, a);
+    t.sqr(3).mul(t, x2);
+    t.sqr(2);
+    return mul(t, a);
+  }
+
+  /**
+   * this = a^((p + 1) / 4), a square root of a if there is one. This must not be a.
+   *
+   * @param tmp at least {@value #TEMPORARIES} elements distinct from a and this
+   * @return true if a is a square, i.e. the result squared equals a
+   */
+  public boolean sqrt(FieldElement a, FieldElement[] tmp)
+  {
+    FieldElement x2 = tmp[3];
+    FieldElement x22 = tmp[4];
+    FieldElement t = tmp[5];
+    pow223(a, x2, x22, t, tmp);
+    t.sqr(23).mul(t, x22);
+    t.sqr(6).mul(t, x2);
+    t.sqr(2);
+    set(t);
+    return t.sqr(this).equalsValue(a);
+  }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.secp256k1;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Fixed-base table for {@code k * G}. The scalar is split into {@code ceil(256 / width)} windows of
+ * {@code width} bits and the table holds the affine points {@code d * 2^(width * j) * G} for every window j and
+ * non-zero digit d, so a multiplication is one addition per window and no doublings. Scalars are usually
+ * secret, so the multiplication runs in constant time: it reads every entry of a window and adds for zero
+ * digits too.
+ *
+ * <p>A wider table only speeds up {@link #multiplyVartime}, the public-scalar half of verification and recovery,
+ * which reads one entry per window. The constant-time {@link #multiply} used for signing and key derivation scans
+ * the whole table, so it gets slower as the table grows: entries are packed as 20 ints, about 75 KB at the default
+ * width of 4 (64 additions, 960 entries read) and 650 KB at the maximum width of 8 (32 additions, 8160 entries
+ * read). The width is read from {@link #WIDTH_PROPERTY} once. The shared table is built on first use, or ahead of it on a daemon
+ * thread started by {@link #buildInBackground()}; a caller that needs it earlier waits for that build instead
+ * of starting a second one.</p>
+ *
+ * <p>The table is immutable once built and can be shared freely between threads.</p>
+ */
+public final class GeneratorTable
+{
+
+  /**
+   * System property with the window width of the shared generator tables, 1 to {@value #MAX_WIDTH}.
+   */
+  public static final String WIDTH_PROPERTY = "ethereumkeyj.generator.width";
+
+  public static final int DEFAULT_WIDTH = 4;
+
+  /**
+   * Width 9 would already take 1.3 MB and 16 about 80 MB, built from a million temporary points.
+   */
+  public static final int MAX_WIDTH = 8;
+
+  /**
+   * ints per entry: ten 26-bit limbs of x, then of y
+   */
+  private static final int ENTRY = 20;
+
+  /**
+   * 3 * b for the complete addition formula.
+   */
+  private static final int B3 = 21;
+
+  static final AffinePoint G = new AffinePoint();
+
+  static
+  {
+    G.x.setBytes(Hex.decode("79be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798"), 0);
+    G.y.setBytes(Hex.decode("483ada7726a3c4655da4fbfc0e1108a8fd17b448a68554199c47d08ffb10d4b8"), 0);
+    G.infinity = false;
+  }
+
+  private static final int WIDTH = checkWidth(Integer.getInteger(WIDTH_PROPERTY, DEFAULT_WIDTH));
+
+  private static final FutureTask<GeneratorTable> SHARED = new FutureTask<>(() -> new GeneratorTable(WIDTH));
+  private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+  private final int width;
+  private final int windows;
+  private final int digits;
+  private final int[] entries;
+
+  /**
+   * Builds a table. The cost is one Jacobian point addition per entry plus a single field inversion shared by
+   * all of them.
+   *
+   * @param width the window width in bits, 1 to {@value #MAX_WIDTH}
+   * @throws IllegalArgumentException if the width is out of range
+   */
+  public GeneratorTable(int width)
+  {
+    this.width = checkWidth(width);
+    this.windows = (256 + width - 1) / width;
+    this.digits = (1 << width) - 1;
+    int size = windows * digits;
+
+    FieldElement[] tmp = Secp256k1Engine.temporaries(JacobianPoint.TEMPORARIES);
+    JacobianPoint[] multiples = new JacobianPoint[size];
+    JacobianPoint base = new JacobianPoint().set(G);
+    for(int window = 0; window < windows; window++)
+    {
+      int offset = window * digits;
+      multiples[offset] = new JacobianPoint().set(base);
+      for(int digit = 1; digit < digits; digit++)
+      {
+        multiples[offset + digit] = new JacobianPoint().add(multiples[offset + digit - 1], base, false, tmp);
+      }
+      for(int i = 0; i < width; i++)
+      {
+        base.twice(base, tmp);
+      }
+    }
+
+    JacobianPoint.normalizeAll(multiples, size, Secp256k1Engine.temporaries(size), tmp);
+    this.entries = new int[size * ENTRY];
+    for(int i = 0; i < size; i++)
+    {
+      for(int limb = 0; limb < 10; limb++)
+      {
+        entries[i * ENTRY + limb] = (int) multiples[i].x.n[limb];
+        entries[i * ENTRY + 10 + limb] = (int) multiples[i].y.n[limb];
+      }
+    }
+  }
+
+  private static int checkWidth(int width)
+  {
+    if(width < 1 || width > MAX_WIDTH)
+    {
+      throw new IllegalArgumentException("Window width must be between 1 and " + MAX_WIDTH + ", not " + width);
+    }
+    return width;
+  }
+
+  /**
+   * @return the width in {@link #WIDTH_PROPERTY} when the class was loaded, or {@link #DEFAULT_WIDTH}
+   */
+  public static int width()
+  {
+    return WIDTH;
+  }
+
+  /**
+   * Starts building the shared table on a daemon thread, once. Does nothing if it is already built or being
+   * built.
+   */
+  public static void buildInBackground()
+  {
+    if(STARTED.compareAndSet(false, true))
+    {
+      Thread thread = new Thread(SHARED, "secp256k1-generator-table");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * The shared table, built by the calling thread if no build has started yet.
+   *
+   * @return the table of width {@link #width()}
+   */
+  public static GeneratorTable get()
+  {
+    SHARED.run();
+    boolean interrupted = false;
+    try
+    {
+      while(true)
+      {
+        try
+        {
+          return SHARED.get();
+        }
+        catch(InterruptedException ex)
+        {
+          interrupted = true;
+        }
+      }
+    }
+    catch(ExecutionException ex)
+    {
+      if(ex.getCause() instanceof RuntimeException)
+      {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new IllegalStateException("Generator table build failed", ex.getCause());
+    }
+    finally
+    {
+      if(interrupted)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * out = k * G, with the same operations and memory accesses for every k.
+   *
+   * <p>Every window reads its whole row of entries and keeps the one of its digit with a mask, and always adds
+   * it. The sum is built in homogeneous projective coordinates (X / Z, Y / Z), where the complete formula of
+   * Renes, Costello and Batina also covers the point at infinity it starts from; a zero digit discards the sum
+   * with a mask instead of skipping the addition.</p>
+   *
+   * @param k a scalar; k = 0 gives the point at infinity
+   * @param entry receives the table entries before they are added
+   * @param tmp at least {@link JacobianPoint#TEMPORARIES} temporaries
+   */
+  void multiply(Scalar k, JacobianPoint out, AffinePoint entry, FieldElement[] tmp)
+  {
+    FieldElement x = out.x;
+    FieldElement y = out.y;
+    FieldElement z = out.z;
+    // infinity is (0 : 1 : 0)
+    x.setInt(0);
+    y.setInt(1);
+    z.setInt(0);
+    long[] ex = entry.x.n;
+    long[] ey = entry.y.n;
+    for(int window = 0; window < windows; window++)
+    {
+      int digit = k.bits(window * width, width);
+      int offset = window * digits * ENTRY;
+      for(int limb = 0; limb < ENTRY; limb++)
+      {
+        int value = 0;
+        for(int i = 1, index = offset + limb; i <= digits; i++, index += ENTRY)
+        {
+          // all ones for i == digit
+          value |= entries[index] & (((i ^ digit) - 1) >> 31);
+        }
+        if(limb < 10)
+        {
+          ex[limb] = value;
+        }
+        else
+        {
+          ey[limb - 10] = value;
+        }
+      }
+      addComplete(x, y, z, entry, tmp);
+      // all ones for digit != 0
+      long mask = (digit | -digit) >> 31;
+      x.cmov(tmp[5], mask);
+      y.cmov(tmp[6], mask);
+      z.cmov(tmp[7], mask);
+    }
+    // (X / Z, Y / Z) is the Jacobian (X Z, Y Z^2, Z)
+    tmp[0].sqr(z);
+    x.mul(x, z);
+    y.mul(y, tmp[0]);
+    out.infinity = z.isZero();
+  }
+
+  /**
+   * out = k * G for a public k: skips zero digits and reads only the entries it adds. Not for secret scalars.
+   *
+   * @param entry receives the table entries before they are added
+   * @param tmp at least {@link JacobianPoint#TEMPORARIES} temporaries
+   */
+  void multiplyVartime(Scalar k, JacobianPoint out, AffinePoint entry, FieldElement[] tmp)
+  {
+    out.setInfinity();
+    entry.infinity = false;
+    long[] x = entry.x.n;
+    long[] y = entry.y.n;
+    for(int window = 0; window < windows; window++)
+    {
+      int digit = k.bits(window * width, width);
+      if(digit != 0)
+      {
+        int offset = (window * digits + digit - 1) * ENTRY;
+        for(int limb = 0; limb < 10; limb++)
+        {
+          x[limb] = entries[offset + limb];
+          y[limb] = entries[offset + 10 + limb];
+        }
+        out.add(out, entry, false, tmp);
+      }
+    }
+  }
+
+  /**
+   * tmp[5..7] = (x : y : z) + q in homogeneous projective coordinates; algorithm 8 of "Complete addition formulas
+   * for prime order elliptic curves" (Renes, Costello, Batina 2016) for a = 0, b = 7. Valid for every first point,
+   * the point at infinity and q itself included.
+   */
+  private static void addComplete(FieldElement x, FieldElement y, FieldElement z, AffinePoint q,
+          FieldElement[] tmp)
+  {
+    FieldElement t0 = tmp[0].mul(x, q.x);
+    FieldElement t1 = tmp[1].mul(y, q.y);
+    FieldElement t3 = tmp[3].set(q.x).add(q.y);
+    FieldElement t4 = tmp[4].set(x).add(y);
+    t3.mul(t3, t4);
+    t4.set(t0).add(t1);
+    t3.sub(t4);
+    t4.mul(q.y, z).add(y);
+    FieldElement y3 = tmp[6].mul(q.x, z).add(x);
+    FieldElement x3 = tmp[5].set(t0).add(t0);
+    t0.add(x3);
+    FieldElement t2 = tmp[2].set(z).mulInt(B3);
+    FieldElement z3 = tmp[7].set(t1).add(t2);
+    t1.sub(t2);
+    y3.mulInt(B3);
+    x3.mul(t4, y3);
+    t2.mul(t3, t1);
+    x3.negate(x3).add(t2);
+    y3.mul(y3, t0);
+    t1.mul(t1, z3);
+    y3.add(t1);
+    t0.mul(t0, t3);
+    z3.mul(z3, t4).add(t0);
+  }
+
+  public int getWidth()
+  {
+    return width;
+  }
+
+  /**
+   * @return size of the packed entries in bytes
+   */
+  public int getSize()
+  {
+    return entries.length * 4;
+  }
+}
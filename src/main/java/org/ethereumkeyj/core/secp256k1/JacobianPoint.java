@@ -0,0 +1,240 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.secp256k1;
+
+/**
+ * Mutable point in Jacobian coordinates (X / Z^2, Y / Z^3) on y^2 = x^3 + 7.
+ *
+ * <p>The formulas are the ones from the Explicit-Formulas Database for a = 0: dbl-2009-l, madd-2007-bl and
+ * add-2007-bl. All intermediate values go into caller supplied temporaries, so a point operation does not
+ * allocate. The result may alias the first operand.</p>
+ */
+public final class JacobianPoint
+{
+
+  /**
+   * Number of temporaries the point operations need.
+   */
+  public static final int TEMPORARIES = FieldElement.TEMPORARIES + 4;
+
+  final FieldElement x = new FieldElement();
+  final FieldElement y = new FieldElement();
+  final FieldElement z = new FieldElement();
+  boolean infinity = true;
+
+  public JacobianPoint setInfinity()
+  {
+    infinity = true;
+    return this;
+  }
+
+  public boolean isInfinity()
+  {
+    return infinity;
+  }
+
+  public JacobianPoint set(JacobianPoint p)
+  {
+    x.set(p.x);
+    y.set(p.y);
+    z.set(p.z);
+    infinity = p.infinity;
+    return this;
+  }
+
+  public JacobianPoint set(AffinePoint p)
+  {
+    x.set(p.x);
+    y.set(p.y);
+    z.setInt(1);
+    infinity = p.infinity;
+    return this;
+  }
+
+  /**
+   * this = 2p
+   */
+  public JacobianPoint twice(JacobianPoint p, FieldElement[] tmp)
+  {
+    if(p.infinity)
+    {
+      return setInfinity();
+    }
+    FieldElement a = tmp[0].sqr(p.x);
+    FieldElement b = tmp[1].sqr(p.y);
+    FieldElement c = tmp[2].sqr(b);
+    FieldElement d = tmp[3].set(p.x).add(b);
+    d.sqr(d).sub(a).sub(c).mulInt(2);
+    FieldElement e = tmp[4].set(a).mulInt(3);
+    FieldElement f = tmp[5].sqr(e);
+    z.mul(p.y, p.z).mulInt(2);
+    x.set(f).sub(d).sub(d);
+    y.set(d).sub(x).mul(y, e).sub(c.mulInt(8));
+    infinity = false;
+    return this;
+  }
+
+  /**
+   * this = p + q, or p - q if {@code negate} is set.
+   */
+  public JacobianPoint add(JacobianPoint p, AffinePoint q, boolean negate, FieldElement[] tmp)
+  {
+    if(q.infinity)
+    {
+      return set(p);
+    }
+    if(p.infinity)
+    {
+      set(q);
+      if(negate)
+      {
+        y.negate(y);
+      }
+      return this;
+    }
+    FieldElement z1z1 = tmp[0].sqr(p.z);
+    FieldElement u2 = tmp[1].mul(q.x, z1z1);
+    FieldElement s2 = tmp[2].mul(q.y, p.z).mul(tmp[2], z1z1);
+    if(negate)
+    {
+      s2.negate(s2);
+    }
+    FieldElement h = tmp[3].set(u2).sub(p.x);
+    FieldElement r = tmp[4].set(s2).sub(p.y);
+    if(h.isZero())
+    {
+      return r.isZero() ? twice(p, tmp) : setInfinity();
+    }
+    FieldElement hh = tmp[5].sqr(h);
+    FieldElement i = tmp[6].set(hh).mulInt(4);
+    FieldElement j = tmp[7].mul(h, i);
+    r.mulInt(2);
+    FieldElement v = u2.mul(p.x, i);
+    FieldElement z3 = s2.set(p.z).add(h);
+    z3.sqr(z3).sub(z1z1).sub(hh);
+    FieldElement y1j = z1z1.mul(p.y, j).mulInt(2);
+    x.sqr(r).sub(j).sub(v).sub(v);
+    y.set(v).sub(x).mul(y, r).sub(y1j);
+    z.set(z3);
+    infinity = false;
+    return this;
+  }
+
+  /**
+   * this = p + q, or p - q if {@code negate} is set. q must not be this.
+   */
+  public JacobianPoint add(JacobianPoint p, JacobianPoint q, boolean negate, FieldElement[] tmp)
+  {
+    if(q.infinity)
+    {
+      return set(p);
+    }
+    if(p.infinity)
+    {
+      set(q);
+      if(negate)
+      {
+        y.negate(y);
+      }
+      return this;
+    }
+    FieldElement z1z1 = tmp[0].sqr(p.z);
+    FieldElement z2z2 = tmp[1].sqr(q.z);
+    FieldElement u1 = tmp[2].mul(p.x, z2z2);
+    FieldElement u2 = tmp[3].mul(q.x, z1z1);
+    FieldElement s1 = tmp[4].mul(p.y, q.z).mul(tmp[4], z2z2);
+    FieldElement s2 = tmp[5].mul(q.y, p.z).mul(tmp[5], z1z1);
+    if(negate)
+    {
+      s2.negate(s2);
+    }
+    FieldElement h = u2.sub(u1);
+    FieldElement r = s2.sub(s1);
+    if(h.isZero())
+    {
+      return r.isZero() ? twice(p, tmp) : setInfinity();
+    }
+    FieldElement i = tmp[6].set(h).mulInt(2);
+    i.sqr(i);
+    FieldElement j = tmp[7].mul(h, i);
+    r.mulInt(2);
+    FieldElement v = u1.mul(u1, i);
+    FieldElement z3 = tmp[8].set(p.z).add(q.z);
+    z3.sqr(z3).sub(z1z1).sub(z2z2).mul(z3, h);
+    FieldElement s1j = s1.mul(s1, j).mulInt(2);
+    x.sqr(r).sub(j).sub(v).sub(v);
+    y.set(v).sub(x).mul(y, r).sub(s1j);
+    z.set(z3);
+    infinity = false;
+    return this;
+  }
+
+  /**
+   * Converts points to affine coordinates in place, z = 1 afterwards, with one field inversion for all of them
+   * (Montgomery's trick). Points at infinity are left as they are.
+   *
+   * @param prefix at least {@code count} elements for the running products
+   * @param tmp at least {@link #TEMPORARIES} temporaries
+   */
+  static void normalizeAll(JacobianPoint[] points, int count, FieldElement[] prefix, FieldElement[] tmp)
+  {
+    // prefix[i] = product of the z before i
+    FieldElement product = tmp[FieldElement.TEMPORARIES].setInt(1);
+    for(int i = 0; i < count; i++)
+    {
+      prefix[i].set(product);
+      if(!points[i].infinity)
+      {
+        product.mul(product, points[i].z);
+      }
+    }
+    FieldElement inverse = tmp[FieldElement.TEMPORARIES + 1].inverse(product, tmp);
+    FieldElement zInv = tmp[FieldElement.TEMPORARIES + 2];
+    FieldElement zInv2 = tmp[FieldElement.TEMPORARIES + 3];
+    for(int i = count - 1; i >= 0; i--)
+    {
+      JacobianPoint p = points[i];
+      if(p.infinity)
+      {
+        continue;
+      }
+      zInv.mul(inverse, prefix[i]);
+      inverse.mul(inverse, p.z);
+      zInv2.sqr(zInv);
+      p.x.mul(p.x, zInv2).normalize();
+      p.y.mul(p.y, zInv2).mul(p.y, zInv).normalize();
+      p.z.setInt(1);
+    }
+  }
+
+  /**
+   * Converts to affine coordinates with one field inversion.
+   */
+  public AffinePoint toAffine(AffinePoint out, FieldElement[] tmp)
+  {
+    if(infinity)
+    {
+      out.infinity = true;
+      return out;
+    }
+    FieldElement zInv = tmp[FieldElement.TEMPORARIES].inverse(z, tmp);
+    FieldElement zInv2 = tmp[FieldElement.TEMPORARIES + 1].sqr(zInv);
+    out.x.mul(x, zInv2).normalize();
+    out.y.mul(y, zInv2).mul(out.y, zInv).normalize();
+    out.infinity = false;
+    return out;
+  }
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.secp256k1;
+
+/**
+ * Mutable integer modulo the secp256k1 group order n.
+ *
+ * <p>The value is held fully reduced in eight 32-bit words, least significant first. Products are reduced with
+ * 2^256 = 2^256 - n (mod n), a 129-bit constant, folding the high half back in until the value fits 256 bits.
+ * Arguments may alias the receiver. Nothing allocates after construction.</p>
+ */
+public final class Scalar
+{
+
+  private static final long M32 = 0xFFFFFFFFL;
+
+  static final long[] N = {
+    0xD0364141L, 0xBFD25E8CL, 0xAF48A03BL, 0xBAAEDCE6L, 0xFFFFFFFEL, 0xFFFFFFFFL, 0xFFFFFFFFL, 0xFFFFFFFFL
+  };
+  private static final long[] N_HALF = {
+    0x681B20A0L, 0xDFE92F46L, 0x57A4501DL, 0x5D576E73L, 0xFFFFFFFFL, 0xFFFFFFFFL, 0xFFFFFFFFL, 0x7FFFFFFFL
+  };
+  /**
+   * 2^256 - n
+   */
+  private static final long[] N_C = {
+    0x2FC9BEBFL, 0x402DA173L, 0x50B75FC4L, 0x45512319L, 1
+  };
+
+  /**
+   * Number of temporaries {@link #inverse} needs.
+   */
+  public static final int TEMPORARIES = 4;
+
+  final long[] d = new long[8];
+  private final long[] wide = new long[17];
+  private final long[] folded = new long[17];
+
+  public Scalar set(Scalar a)
+  {
+    System.arraycopy(a.d, 0, d, 0, 8);
+    return this;
+  }
+
+  public Scalar setInt(int value)
+  {
+    d[0] = value & M32;
+    for(int i = 1; i < 8; i++)
+    {
+      d[i] = 0;
+    }
+    return this;
+  }
+
+  /**
+   * Reads a 32-byte big-endian value.
+   *
+   * @return true if the value is below n; otherwise it is reduced and false returned
+   */
+  public boolean setBytes(byte[] in, int off)
+  {
+    for(int i = 0; i < 8; i++)
+    {
+      int p = off + 28 - i * 4;
+      d[i] = ((in[p] & 0xFFL) << 24) | ((in[p + 1] & 0xFFL) << 16) | ((in[p + 2] & 0xFFL) << 8) | (in[p + 3] & 0xFFL);
+    }
+    if(compare(d, N) >= 0)
+    {
+      subtractN();
+      return false;
+    }
+    return true;
+  }
+
+  public void getBytes(byte[] out, int off)
+  {
+    for(int i = 0; i < 8; i++)
+    {
+      int p = off + 28 - i * 4;
+      long w = d[i];
+      out[p] = (byte) (w >>> 24);
+      out[p + 1] = (byte) (w >>> 16);
+      out[p + 2] = (byte) (w >>> 8);
+      out[p + 3] = (byte) w;
+    }
+  }
+
+  private static int compare(long[] a, long[] b)
+  {
+    for(int i = 7; i >= 0; i--)
+    {
+      if(a[i] != b[i])
+      {
+        return a[i] < b[i] ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  private void subtractN()
+  {
+    long borrow = 0;
+    for(int i = 0; i < 8; i++)
+    {
+      long t = d[i] - N[i] - borrow;
+      d[i] = t & M32;
+      borrow = t < 0 ? 1 : 0;
+    }
+  }
+
+  /**
+   * @return the {@code count} bits (at most 31) starting at bit {@code offset}, zero beyond bit 255
+   */
+  int bits(int offset, int count)
+  {
+    if(offset >= 256)
+    {
+      return 0;
+    }
+    int index = offset >>> 5;
+    int shift = offset & 31;
+    long v = d[index] >>> shift;
+    if(shift + count > 32 && index < 7)
+    {
+      v |= d[index + 1] << (32 - shift);
+    }
+    return (int) v & ((1 << count) - 1);
+  }
+
+  public boolean isZero()
+  {
+    for(int i = 0; i < 8; i++)
+    {
+      if(d[i] != 0)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the value is above n / 2, i.e. a signature with this s is not in low-S form
+   */
+  public boolean isHigh()
+  {
+    return compare(d, N_HALF) > 0;
+  }
+
+  public boolean equalsValue(Scalar a)
+  {
+    return compare(d, a.d) == 0;
+  }
+
+  /**
+   * this = this + a
+   */
+  public Scalar add(Scalar a)
+  {
+    long carry = 0;
+    for(int i = 0; i < 8; i++)
+    {
+      long t = d[i] + a.d[i] + carry;
+      d[i] = t & M32;
+      carry = t >>> 32;
+    }
+    if(carry != 0 || compare(d, N) >= 0)
+    {
+      subtractN();
+    }
+    return this;
+  }
+
+  /**
+   * this = -a
+   */
+  public Scalar negate(Scalar a)
+  {
+    if(a.isZero())
+    {
+      return setInt(0);
+    }
+    long borrow = 0;
+    for(int i = 0; i < 8; i++)
+    {
+      long t = N[i] - a.d[i] - borrow;
+      d[i] = t & M32;
+      borrow = t < 0 ? 1 : 0;
+    }
+    return this;
+  }
+
+  /**
+   * this = a * b
+   */
+  public Scalar mul(Scalar a, Scalar b)
+  {
+    product(a, b);
+    reduce(16);
+    return this;
+  }
+
+  /**
+   * this = round(a * b / 2^384), the quotient estimate of the GLV decomposition.
+   */
+  Scalar mulShift384(Scalar a, Scalar b)
+  {
+    product(a, b);
+    long carry = wide[11] >>> 31;
+    for(int i = 0; i < 4; i++)
+    {
+      long t = wide[12 + i] + carry;
+      d[i] = t & M32;
+      carry = t >>> 32;
+    }
+    d[4] = carry;
+    d[5] = 0;
+    d[6] = 0;
+    d[7] = 0;
+    return this;
+  }
+
+  /**
+   * The 512-bit product a * b into {@link #wide}.
+   */
+  private void product(Scalar a, Scalar b)
+  {
+    long[] w = wide;
+    for(int i = 0; i < 16; i++)
+    {
+      w[i] = 0;
+    }
+    for(int i = 0; i < 8; i++)
+    {
+      long ai = a.d[i];
+      long carry = 0;
+      for(int j = 0; j < 8; j++)
+      {
+        // at most (2^32 - 1)^2 + 2 (2^32 - 1) = 2^64 - 1, exact as an unsigned long
+        long t = ai * b.d[j] + w[i + j] + carry;
+        w[i + j] = t & M32;
+        carry = t >>> 32;
+      }
+      w[i + 8] = carry;
+    }
+  }
+
+  /**
+   * Reduces the first {@code length} words of {@link #wide} into this.
+   */
+  private void reduce(int length)
+  {
+    long[] w = wide;
+    long[] f = folded;
+    while(length > 8)
+    {
+      // w = lo + hi * 2^256 = lo + hi * N_C (mod n)
+      int high = length - 8;
+      int out = Math.max(8, high + N_C.length) + 1;
+      for(int i = 0; i < out; i++)
+      {
+        f[i] = i < 8 ? w[i] : 0;
+      }
+      for(int i = 0; i < high; i++)
+      {
+        long hi = w[8 + i];
+        long carry = 0;
+        int k = i;
+        for(int j = 0; j < N_C.length; j++, k++)
+        {
+          long t = hi * N_C[j] + f[k] + carry;
+          f[k] = t & M32;
+          carry = t >>> 32;
+        }
+        for(; carry != 0; k++)
+        {
+          long t = f[k] + carry;
+          f[k] = t & M32;
+          carry = t >>> 32;
+        }
+      }
+      length = Math.max(8, out);
+      while(length > 8 && f[length - 1] == 0)
+      {
+        length--;
+      }
+      System.arraycopy(f, 0, w, 0, length);
+    }
+    System.arraycopy(w, 0, d, 0, 8);
+    if(compare(d, N) >= 0)
+    {
+      subtractN();
+    }
+  }
+
+  /**
+   * this = a^-1 mod n; zero for a = 0.
+   *
+   * <p>Binary extended Euclid: u and v are halved while even and the larger is reduced by the smaller, keeping
+   * x1 * a = u and x2 * a = v (mod n). Variable time, like {@link java.math.BigInteger#modInverse}.</p>
+   *
+   * @param tmp at least {@value #TEMPORARIES} scalars distinct from a and this
+   */
+  public Scalar inverse(Scalar a, Scalar[] tmp)
+  {
+    if(a.isZero())
+    {
+      return setInt(0);
+    }
+    long[] u = tmp[0].set(a).d;
+    long[] v = tmp[1].d;
+    System.arraycopy(N, 0, v, 0, 8);
+    long[] x1 = tmp[2].setInt(1).d;
+    long[] x2 = tmp[3].setInt(0).d;
+    while(!isOne(u) && !isOne(v))
+    {
+      while((u[0] & 1) == 0)
+      {
+        shiftRight(u, 0);
+        halve(x1);
+      }
+      while((v[0] & 1) == 0)
+      {
+        shiftRight(v, 0);
+        halve(x2);
+      }
+      if(compare(u, v) >= 0)
+      {
+        subtract(u, v);
+        subtractMod(x1, x2);
+      }
+      else
+      {
+        subtract(v, u);
+        subtractMod(x2, x1);
+      }
+    }
+    return set(isOne(u) ? tmp[2] : tmp[3]);
+  }
+
+  private static boolean isOne(long[] x)
+  {
+    return x[0] == 1 && (x[1] | x[2] | x[3] | x[4] | x[5] | x[6] | x[7]) == 0;
+  }
+
+  private static void shiftRight(long[] x, long top)
+  {
+    for(int i = 0; i < 7; i++)
+    {
+      x[i] = (x[i] >>> 1) | ((x[i + 1] & 1) << 31);
+    }
+    x[7] = (x[7] >>> 1) | (top << 31);
+  }
+
+  /**
+   * x = x / 2 mod n, adding n first if x is odd.
+   */
+  private static void halve(long[] x)
+  {
+    shiftRight(x, (x[0] & 1) == 0 ? 0 : addN(x));
+  }
+
+  /**
+   * @return the carry out of the top word
+   */
+  private static long addN(long[] x)
+  {
+    long c = 0;
+    for(int i = 0; i < 8; i++)
+    {
+      c += x[i] + N[i];
+      x[i] = c & M32;
+      c >>>= 32;
+    }
+    return c;
+  }
+
+  /**
+   * @return -1 on borrow, 0 otherwise
+   */
+  private static long subtract(long[] x, long[] y)
+  {
+    long b = 0;
+    for(int i = 0; i < 8; i++)
+    {
+      b += x[i] - y[i];
+      x[i] = b & M32;
+      b >>= 32;
+    }
+    return b;
+  }
+
+  private static void subtractMod(long[] x, long[] y)
+  {
+    if(subtract(x, y) != 0)
+    {
+      addN(x);
+    }
+  }
+}
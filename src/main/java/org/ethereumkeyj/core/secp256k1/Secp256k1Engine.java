@@ -0,0 +1,611 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.secp256k1;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * ECDSA over secp256k1 on fixed-size field and scalar arithmetic, for 32-byte hashes and byte-array keys and
+ * signatures.
+ *
+ * <p>Every scalar, field element, point and buffer is allocated by the constructor, so signing, verification and
+ * public key recovery do not allocate. Signatures are deterministic (RFC 6979 with HMAC-SHA256) and identical to
+ * the ones Bouncy Castle's {@code ECDSASigner} with an {@code HMacDSAKCalculator} produces, in low-S form.
+ * {@code k * G} uses the shared {@link GeneratorTable}, in constant time since k and the private key are secret,
+ * and the nonce is inverted blinded; verification and recovery, on public values only, add a width-5 wNAF
+ * multiplication of the other point, split with the GLV endomorphism into two 128-bit halves that share their
+ * doublings.</p>
+ *
+ * <p>Instances are not thread-safe; use one per thread.</p>
+ */
+public final class Secp256k1Engine
+{
+
+  private static final int WNAF_WIDTH = 5;
+  private static final int WNAF_POINTS = 1 << (WNAF_WIDTH - 2);
+
+  /**
+   * p - n, the bound below which r + n is still a field element.
+   */
+  private static final byte[] P_MINUS_N = {
+    0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1,
+    0x45, 0x51, 0x23, 0x19, 0x50, (byte) 0xB7, 0x5F, (byte) 0xC4,
+    0x40, 0x2D, (byte) 0xA1, 0x72, 0x2F, (byte) 0xC9, (byte) 0xBA, (byte) 0xEE
+  };
+  private static final FieldElement N = new FieldElement();
+
+  // GLV endomorphism: lambda * (x, y) = (beta * x, y); split constants from libsecp256k1
+  private static final FieldElement BETA = new FieldElement();
+  private static final Scalar MINUS_LAMBDA = new Scalar();
+  private static final Scalar G1 = new Scalar();
+  private static final Scalar G2 = new Scalar();
+  private static final Scalar MINUS_B1 = new Scalar();
+  private static final Scalar MINUS_B2 = new Scalar();
+
+  static
+  {
+    BETA.setBytes(Hex.decode("7ae96a2b657c07106e64479eac3434e99cf0497512f58995c1396c28719501ee"), 0);
+    MINUS_LAMBDA.setBytes(Hex.decode("ac9c52b33fa3cf1f5ad9e3fd77ed9ba4a880b9fc8ec739c2e0cfc810b51283cf"), 0);
+    G1.setBytes(Hex.decode("3086d221a7d46bcde86c90e49284eb153daa8a1471e8ca7fe893209a45dbb031"), 0);
+    G2.setBytes(Hex.decode("e4437ed6010e88286f547fa90abfe4c4221208ac9df506c61571b4ae8ac47f71"), 0);
+    MINUS_B1.setBytes(Hex.decode("00000000000000000000000000000000e4437ed6010e88286f547fa90abfe4c3"), 0);
+    MINUS_B2.setBytes(Hex.decode("fffffffffffffffffffffffffffffffe8a280ac50774346dd765cda83db1562c"), 0);
+  }
+
+  static
+  {
+    byte[] n = new byte[32];
+    for(int i = 0; i < 8; i++)
+    {
+      int word = (int) Scalar.N[7 - i];
+      n[i * 4] = (byte) (word >>> 24);
+      n[i * 4 + 1] = (byte) (word >>> 16);
+      n[i * 4 + 2] = (byte) (word >>> 8);
+      n[i * 4 + 3] = (byte) word;
+    }
+    N.setBytes(n, 0);
+  }
+
+  private final GeneratorTable generator = GeneratorTable.get();
+
+  private final FieldElement[] tmp = temporaries(JacobianPoint.TEMPORARIES);
+  private final Scalar[] scalarTmp = new Scalar[Scalar.TEMPORARIES];
+  private final Scalar d = new Scalar();
+  private final Scalar k = new Scalar();
+  private final Scalar r = new Scalar();
+  private final Scalar s = new Scalar();
+  private final Scalar e = new Scalar();
+  private final Scalar u1 = new Scalar();
+  private final Scalar u2 = new Scalar();
+  private final Scalar k1 = new Scalar();
+  private final Scalar k2 = new Scalar();
+  private final Scalar c = new Scalar();
+  private final Scalar blind = new Scalar();
+  private final FieldElement fx = new FieldElement();
+  private final FieldElement fz = new FieldElement();
+  private final JacobianPoint acc = new JacobianPoint();
+  private final JacobianPoint product = new JacobianPoint();
+  private final JacobianPoint twice = new JacobianPoint();
+  private final JacobianPoint[] multiples = new JacobianPoint[WNAF_POINTS];
+  private final JacobianPoint[] lambdaMultiples = new JacobianPoint[WNAF_POINTS];
+  private final AffinePoint point = new AffinePoint();
+  private final AffinePoint entry = new AffinePoint();
+  private final int[] wnaf1 = new int[257];
+  private final int[] wnaf2 = new int[257];
+
+  // RFC 6979 state
+  private final SHA256Digest sha256 = new SHA256Digest();
+  private final byte[] hmacK = new byte[32];
+  private final byte[] hmacV = new byte[32];
+  private final byte[] innerPad = new byte[64];
+  private final byte[] outerPad = new byte[64];
+  private final byte[] innerHash = new byte[32];
+  private final byte[] x = new byte[32];
+  private final byte[] m = new byte[32];
+  private final byte[] blinding = new byte[32];
+
+  public Secp256k1Engine()
+  {
+    for(int i = 0; i < scalarTmp.length; i++)
+    {
+      scalarTmp[i] = new Scalar();
+    }
+    for(int i = 0; i < multiples.length; i++)
+    {
+      multiples[i] = new JacobianPoint();
+      lambdaMultiples[i] = new JacobianPoint();
+    }
+    Arrays.fill(innerPad, 32, 64, (byte) 0x36);
+    Arrays.fill(outerPad, 32, 64, (byte) 0x5C);
+  }
+
+  static FieldElement[] temporaries(int count)
+  {
+    FieldElement[] tmp = new FieldElement[count];
+    for(int i = 0; i < count; i++)
+    {
+      tmp[i] = new FieldElement();
+    }
+    return tmp;
+  }
+
+  /**
+   * Computes the uncompressed public key of a private key.
+   *
+   * @param privKey 32-byte big-endian private key
+   * @param pubOut receives the 65-byte encoding at {@code pubOff}
+   * @throws IllegalArgumentException if the private key is not in [1, n)
+   */
+  public void publicKey(byte[] privKey, int privOff, byte[] pubOut, int pubOff)
+  {
+    setPrivateKey(privKey, privOff);
+    generator.multiply(d, acc, entry, tmp);
+    acc.toAffine(point, tmp).encode(pubOut, pubOff);
+  }
+
+  /**
+   * Computes the uncompressed public keys of several private keys, converting them to affine form with one shared
+   * field inversion. Unlike the other operations this allocates, scratch space for {@code count} points.
+   *
+   * @param privKeys {@code count} 32-byte big-endian private keys, back to back from {@code privOff}
+   * @param pubOut receives {@code count} 65-byte encodings, back to back from {@code pubOff}
+   * @throws IllegalArgumentException if a private key is not in [1, n)
+   */
+  public void publicKeys(byte[] privKeys, int privOff, int count, byte[] pubOut, int pubOff)
+  {
+    JacobianPoint[] points = new JacobianPoint[count];
+    for(int i = 0; i < count; i++)
+    {
+      setPrivateKey(privKeys, privOff + i * 32);
+      generator.multiply(d, points[i] = new JacobianPoint(), entry, tmp);
+    }
+    JacobianPoint.normalizeAll(points, count, temporaries(count), tmp);
+    for(int i = 0; i < count; i++)
+    {
+      point.x.set(points[i].x);
+      point.y.set(points[i].y);
+      point.infinity = false;
+      point.encode(pubOut, pubOff + i * 65);
+    }
+  }
+
+  private void setPrivateKey(byte[] privKey, int off)
+  {
+    if(!d.setBytes(privKey, off) || d.isZero())
+    {
+      throw new IllegalArgumentException("Private key out of range");
+    }
+  }
+
+  /**
+   * Signs a 32-byte hash.
+   *
+   * @param privKey 32-byte big-endian private key
+   * @param hash 32-byte message hash
+   * @param sigOut receives r and s as 32-byte big-endian values at {@code sigOff}, s in the lower half of the order
+   * @return the recovery id, 0 to 3
+   * @throws IllegalArgumentException if the private key is not in [1, n)
+   */
+  public int sign(byte[] privKey, int privOff, byte[] hash, int hashOff, byte[] sigOut, int sigOff)
+  {
+    setPrivateKey(privKey, privOff);
+    e.setBytes(hash, hashOff);
+    d.getBytes(x, 0);
+    e.getBytes(m, 0);
+    initNonce();
+    while(true)
+    {
+      nextNonce();
+      generator.multiply(k, acc, entry, tmp);
+      acc.toAffine(point, tmp).x.getBytes(sigOut, sigOff);
+      // bit 1 of the recovery id: R.x overflowed the order
+      int recId = r.setBytes(sigOut, sigOff) ? 0 : 2;
+      if(r.isZero())
+      {
+        continue;
+      }
+      recId |= point.y.isOdd() ? 1 : 0;
+      s.mul(r, d).add(e).mul(s, inverseNonce());
+      if(s.isZero())
+      {
+        continue;
+      }
+      if(s.isHigh())
+      {
+        // -s belongs to -R, whose y has the other parity
+        s.negate(s);
+        recId ^= 1;
+      }
+      r.getBytes(sigOut, sigOff);
+      s.getBytes(sigOut, sigOff + 32);
+      return recId;
+    }
+  }
+
+  /**
+   * Verifies a signature over a 32-byte hash.
+   *
+   * @param sig r and s as 32-byte big-endian values
+   * @param pub SEC1 encoded public key, compressed (33 bytes) or uncompressed (65 bytes)
+   * @return true if the signature is valid; false also if r or s are not in [1, n)
+   * @throws IllegalArgumentException if the public key is not a valid encoding of a curve point
+   */
+  public boolean verify(byte[] hash, int hashOff, byte[] sig, int sigOff, byte[] pub, int pubOff, int pubLen)
+  {
+    if(!point.decode(pub, pubOff, pubLen, tmp))
+    {
+      throw new IllegalArgumentException("Invalid public key");
+    }
+    if(!setSignature(sig, sigOff))
+    {
+      return false;
+    }
+    e.setBytes(hash, hashOff);
+    Scalar w = s.inverse(s, scalarTmp);
+    u1.mul(e, w);
+    u2.mul(r, w);
+    sumOfMultiplies(u1, u2);
+    if(acc.infinity)
+    {
+      return false;
+    }
+    // compare without inversion: x(R) = X / Z^2, and x(R) mod n = r means x(R) = r or x(R) = r + n
+    fz.sqr(acc.z);
+    fx.setBytes(sig, sigOff);
+    if(tmp[0].mul(fx, fz).equalsValue(acc.x))
+    {
+      return true;
+    }
+    if(compare(sig, sigOff, P_MINUS_N) >= 0)
+    {
+      return false;
+    }
+    fx.add(N);
+    return tmp[0].mul(fx, fz).equalsValue(acc.x);
+  }
+
+  /**
+   * Recovers the public key from a signature over a 32-byte hash (SEC1 4.1.6).
+   *
+   * @param sig r and s as 32-byte big-endian values
+   * @param recId recovery id, 0 to 3
+   * @param pubOut receives the 65-byte uncompressed public key at {@code pubOff}
+   * @return false if no public key can be recovered with this recovery id, or r or s are not in [1, n)
+   */
+  public boolean recover(byte[] hash, int hashOff, byte[] sig, int sigOff, int recId, byte[] pubOut, int pubOff)
+  {
+    if(recId < 0 || recId > 3 || !setSignature(sig, sigOff))
+    {
+      return false;
+    }
+    if(!recoverPoint(hash, hashOff, sig, sigOff, recId, r.inverse(r, scalarTmp)))
+    {
+      return false;
+    }
+    acc.toAffine(point, tmp).encode(pubOut, pubOff);
+    return true;
+  }
+
+  /**
+   * Recovers the public keys of several signatures. The {@code r^-1} values are computed with one scalar inversion
+   * and the keys are converted to affine form with one field inversion. Like {@link #publicKeys}, this allocates
+   * scratch space for {@code count} entries.
+   *
+   * @param hashes {@code count} 32-byte hashes, back to back from {@code hashOff}
+   * @param sigs {@code count} 64-byte signatures (r and s), back to back from {@code sigOff}
+   * @param recIds recovery id of each entry, 0 to 3
+   * @param pubOut receives {@code count} 65-byte encodings, back to back from {@code pubOff}; entries that cannot
+   *               be recovered are left untouched
+   * @return a bit set with bit {@code i} set if entry {@code i} was recovered
+   */
+  public BitSet recoverAll(byte[] hashes, int hashOff, byte[] sigs, int sigOff, int[] recIds, int count,
+          byte[] pubOut, int pubOff)
+  {
+    // Montgomery's trick: rInv[i] first holds the product of the r before i, then r_i^-1
+    Scalar[] rs = new Scalar[count];
+    Scalar[] rInv = new Scalar[count];
+    Scalar product = c.setInt(1);
+    for(int i = 0; i < count; i++)
+    {
+      int recId = recIds[i];
+      if(recId < 0 || recId > 3 || !setSignature(sigs, sigOff + i * 64))
+      {
+        continue;
+      }
+      rs[i] = new Scalar().set(r);
+      rInv[i] = new Scalar().set(product);
+      product.mul(product, r);
+    }
+    Scalar inverse = blind.inverse(product, scalarTmp);
+    for(int i = count - 1; i >= 0; i--)
+    {
+      if(rs[i] != null)
+      {
+        rInv[i].mul(rInv[i], inverse);
+        inverse.mul(inverse, rs[i]);
+      }
+    }
+
+    JacobianPoint[] points = new JacobianPoint[count];
+    for(int i = 0; i < count; i++)
+    {
+      points[i] = new JacobianPoint();
+      int sig = sigOff + i * 64;
+      // setSignature loads s again
+      if(rs[i] != null && setSignature(sigs, sig)
+              && recoverPoint(hashes, hashOff + i * 32, sigs, sig, recIds[i], rInv[i]))
+      {
+        points[i].set(acc);
+      }
+      else
+      {
+        points[i].setInfinity();
+      }
+    }
+    JacobianPoint.normalizeAll(points, count, temporaries(count), tmp);
+    BitSet recovered = new BitSet(count);
+    for(int i = 0; i < count; i++)
+    {
+      if(!points[i].infinity)
+      {
+        point.x.set(points[i].x);
+        point.y.set(points[i].y);
+        point.infinity = false;
+        point.encode(pubOut, pubOff + i * 65);
+        recovered.set(i);
+      }
+    }
+    return recovered;
+  }
+
+  /**
+   * acc = r^-1 * (s * R - e * G) for the signature loaded by {@link #setSignature}.
+   *
+   * @return false if there is no point R with this recovery id, or the result is the point at infinity
+   */
+  private boolean recoverPoint(byte[] hash, int hashOff, byte[] sig, int sigOff, int recId, Scalar rInv)
+  {
+    if(!fx.setBytes(sig, sigOff))
+    {
+      return false;
+    }
+    if(recId >= 2)
+    {
+      // x = r + n must still be below p
+      if(compare(sig, sigOff, P_MINUS_N) >= 0)
+      {
+        return false;
+      }
+      fx.add(N);
+    }
+    if(!point.setX(fx, (recId & 1) == 1, tmp))
+    {
+      return false;
+    }
+    e.setBytes(hash, hashOff);
+    u1.negate(e).mul(u1, rInv);
+    u2.mul(s, rInv);
+    sumOfMultiplies(u1, u2);
+    return !acc.infinity;
+  }
+
+  /**
+   * k^-1 = b * (k * b)^-1. The inversion is variable time, so it only gets to see k times a blinding factor b,
+   * another HMAC output of the nonce generator that does not change the nonces that follow.
+   */
+  private Scalar inverseNonce()
+  {
+    nextBlinding();
+    blind.setBytes(blinding, 0);
+    if(blind.isZero())
+    {
+      blind.setInt(1);
+    }
+    c.mul(k, blind).inverse(c, scalarTmp);
+    return c.mul(c, blind);
+  }
+
+  private boolean setSignature(byte[] sig, int off)
+  {
+    return r.setBytes(sig, off) && !r.isZero() && s.setBytes(sig, off + 32) && !s.isZero();
+  }
+
+  private static int compare(byte[] a, int off, byte[] b)
+  {
+    for(int i = 0; i < 32; i++)
+    {
+      int c = (a[off + i] & 0xFF) - (b[i] & 0xFF);
+      if(c != 0)
+      {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * acc = a * G + b * point. b = k1 + k2 * lambda, and k1 * point + k2 * (lambda * point) runs over one chain of
+   * about 128 doublings with width-5 wNAFs of both halves.
+   */
+  private void sumOfMultiplies(Scalar a, Scalar b)
+  {
+    splitLambda(b);
+    boolean negate1 = k1.isHigh();
+    if(negate1)
+    {
+      k1.negate(k1);
+    }
+    boolean negate2 = k2.isHigh();
+    if(negate2)
+    {
+      k2.negate(k2);
+    }
+    multiples[0].set(point);
+    twice.twice(multiples[0], tmp);
+    for(int i = 1; i < WNAF_POINTS; i++)
+    {
+      multiples[i].add(multiples[i - 1], twice, false, tmp);
+    }
+    for(int i = 0; i < WNAF_POINTS; i++)
+    {
+      // lambda * (X / Z^2, Y / Z^3) = (beta * X / Z^2, Y / Z^3)
+      JacobianPoint m = lambdaMultiples[i].set(multiples[i]);
+      m.x.mul(m.x, BETA);
+    }
+    int top = Math.max(wnaf(k1, wnaf1), wnaf(k2, wnaf2));
+    acc.setInfinity();
+    for(int i = top; i >= 0; i--)
+    {
+      acc.twice(acc, tmp);
+      add(multiples, wnaf1[i], negate1);
+      add(lambdaMultiples, wnaf2[i], negate2);
+    }
+    // a is public here
+    generator.multiplyVartime(a, product, entry, tmp);
+    acc.add(acc, product, false, tmp);
+  }
+
+  private void add(JacobianPoint[] oddMultiples, int digit, boolean negate)
+  {
+    if(digit > 0)
+    {
+      acc.add(acc, oddMultiples[digit >>> 1], negate, tmp);
+    }
+    else if(digit < 0)
+    {
+      acc.add(acc, oddMultiples[-digit >>> 1], !negate, tmp);
+    }
+  }
+
+  /**
+   * k1 + k2 * lambda = b (mod n) with k1 and k2 below 2^128 in absolute value, following libsecp256k1's
+   * scalar_split_lambda.
+   */
+  private void splitLambda(Scalar b)
+  {
+    k1.mulShift384(b, G1).mul(k1, MINUS_B1);
+    c.mulShift384(b, G2).mul(c, MINUS_B2);
+    k2.set(k1).add(c);
+    k1.mul(k2, MINUS_LAMBDA).add(b);
+  }
+
+  /**
+   * Writes the width-5 non-adjacent form of a: odd digits in (-16, 16), at least four zeros between two of them.
+   *
+   * @return index of the most significant non-zero digit, -1 for zero
+   */
+  private static int wnaf(Scalar a, int[] wnaf)
+  {
+    Arrays.fill(wnaf, 0);
+    int top = -1;
+    int carry = 0;
+    int bit = 0;
+    while(bit < 256 || carry != 0)
+    {
+      if(a.bits(bit, 1) == carry)
+      {
+        bit++;
+        continue;
+      }
+      int word = a.bits(bit, WNAF_WIDTH) + carry;
+      carry = (word >>> (WNAF_WIDTH - 1)) & 1;
+      word -= carry << WNAF_WIDTH;
+      wnaf[bit] = word;
+      top = bit;
+      bit += WNAF_WIDTH;
+    }
+    return top;
+  }
+
+  // RFC 6979 3.2 with HMAC-SHA256 over 32-byte keys, following HMacDSAKCalculator step by step
+
+  private void initNonce()
+  {
+    Arrays.fill(hmacV, (byte) 0x01);
+    Arrays.fill(hmacK, (byte) 0x00);
+    setHmacKey();
+    updateK((byte) 0x00, true);
+    updateV();
+    updateK((byte) 0x01, true);
+    updateV();
+  }
+
+  private void nextNonce()
+  {
+    while(true)
+    {
+      updateV();
+      if(k.setBytes(hmacV, 0) && !k.isZero())
+      {
+        return;
+      }
+      updateK((byte) 0x00, false);
+      updateV();
+    }
+  }
+
+  /**
+   * blinding = HMAC_K(V || 0x02), an input the generator itself never hashes.
+   */
+  private void nextBlinding()
+  {
+    sha256.update(innerPad, 0, 64);
+    sha256.update(hmacV, 0, 32);
+    sha256.update((byte) 0x02);
+    finishHmac(blinding);
+  }
+
+  private void setHmacKey()
+  {
+    for(int i = 0; i < 32; i++)
+    {
+      innerPad[i] = (byte) (hmacK[i] ^ 0x36);
+      outerPad[i] = (byte) (hmacK[i] ^ 0x5C);
+    }
+  }
+
+  private void updateK(byte separator, boolean withInput)
+  {
+    sha256.update(innerPad, 0, 64);
+    sha256.update(hmacV, 0, 32);
+    sha256.update(separator);
+    if(withInput)
+    {
+      sha256.update(x, 0, 32);
+      sha256.update(m, 0, 32);
+    }
+    finishHmac(hmacK);
+    setHmacKey();
+  }
+
+  private void updateV()
+  {
+    sha256.update(innerPad, 0, 64);
+    sha256.update(hmacV, 0, 32);
+    finishHmac(hmacV);
+  }
+
+  private void finishHmac(byte[] out)
+  {
+    sha256.doFinal(innerHash, 0);
+    sha256.update(outerPad, 0, 64);
+    sha256.update(innerHash, 0, 32);
+    sha256.doFinal(out, 0);
+  }
+}
@@ -128,4 +128,30 @@ public class BIUtil {
         long res = (long) a + (long) b;
         return res > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) res;
     }
+
+    /**
+     * Replaces every non-null element of {@code values} with its inverse modulo {@code modulus} using a single
+     * {@link BigInteger#modInverse} call (Montgomery's trick). Null elements are skipped.
+     *
+     * @param values - elements must be invertible modulo {@code modulus}
+     * @param modulus - a prime modulus
+     */
+    public static void modInverseAll(BigInteger[] values, BigInteger modulus) {
+        BigInteger[] prefix = new BigInteger[values.length];
+        BigInteger acc = BigInteger.ONE;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                prefix[i] = acc;
+                acc = acc.multiply(values[i]).mod(modulus);
+            }
+        }
+        BigInteger inv = acc.modInverse(modulus);
+        for (int i = values.length - 1; i >= 0; i--) {
+            if (values[i] != null) {
+                BigInteger value = values[i];
+                values[i] = inv.multiply(prefix[i]).mod(modulus);
+                inv = inv.multiply(value).mod(modulus);
+            }
+        }
+    }
 }
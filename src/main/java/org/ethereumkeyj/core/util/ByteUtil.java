@@ -29,6 +29,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import org.bouncycastle.util.encoders.Hex;
+import org.ethereumkeyj.core.cryptohash.Keccak256;
 
 public class ByteUtil {
 
@@ -147,12 +148,13 @@ public class ByteUtil {
      */
     public static byte[] longToBytesNoLeadZeroes(long val) {
 
-        // todo: improve performance by while strip numbers until (long >> 8 == 0)
         if (val == 0) return EMPTY_BYTE_ARRAY;
 
-        byte[] data = ByteBuffer.allocate(Long.BYTES).putLong(val).array();
-
-        return stripLeadingZeroes(data);
+        byte[] data = new byte[Long.BYTES - Long.numberOfLeadingZeros(val) / Byte.SIZE];
+        for (int i = data.length - 1; i >= 0; i--, val >>>= Byte.SIZE) {
+            data[i] = (byte) val;
+        }
+        return data;
     }
 
     /**
@@ -209,36 +211,35 @@ public class ByteUtil {
      * @see Hex#toHexString
      */
     public static String toHexString(byte[] data) {
-        return data == null ? "" : Hex.toHexString(data);
+        return data == null ? "" : HexCodec.encode(data);
     }
     
     /**
-     * Convert a byte-array into a hex String.<br>
-     * Works similar to {@link Hex#toHexString}
-     * but allows for <code>null</code>
+     * Convert a byte-array into an EIP-55 mixed-case hex String: a letter
+     * is upper case when the matching nibble of the Keccak-256 hash of the
+     * lower-case hex is 8 or more.
      *
-     * @param data - byte-array to convert to a hex-string
-     * @return hex representation of the data.<br>
+     * @param data - byte-array of at most 32 bytes, usually an address
+     * @return checksummed hex representation of the data.<br>
      *      Returns an empty String if the input is <code>null</code>
-     *
-     * @see Hex#toHexString
      */
     public static String toChecksumHexString(byte[] data) {
-      if(data == null) return "";
-      String result = "";
-      String hexAddress = Hex.toHexString(data).toLowerCase();
-      char[] hexAddressArray = hexAddress.toCharArray();
-      String sha3 = Hex.toHexString(HashUtil.sha3(hexAddress.getBytes()));
-      char[] sha3Array = sha3.toCharArray();
-      for (int i = 0; i < hexAddressArray.length; i++) {
-        if (Integer.parseInt("" + sha3Array[i], 16) >= 8) {
-          result += ("" +hexAddressArray[i]).toUpperCase();
-        } else {
-          result += hexAddressArray[i];
+        if (data == null) return "";
+        if (data.length > 32) {
+            throw new IllegalArgumentException("Checksum covers at most 32 bytes, not " + data.length);
+        }
+        byte[] hex = new byte[data.length << 1];
+        HexCodec.encode(data, 0, data.length, hex, 0);
+        byte[] hash = new byte[32];
+        Keccak256.hash(hex, 0, hex.length, hash, 0);
+        char[] result = new char[hex.length];
+        for (int i = 0; i < hex.length; i++) {
+            int nibble = (hash[i >>> 1] >>> ((i & 1) == 0 ? 4 : 0)) & 0xF;
+            int c = hex[i];
+            // digits are below 'a' and stay as they are
+            result[i] = (char) (nibble >= 8 && c >= 'a' ? c - ('a' - 'A') : c);
         }
-      }
-        
-      return result;
+        return new String(result);
     }
 
     /**
@@ -306,9 +307,7 @@ public class ByteUtil {
     }
 
     public static String oneByteToHexString(byte value) {
-        String retVal = Integer.toString(value & 0xFF, 16);
-        if (retVal.length() == 1) retVal = "0" + retVal;
-        return retVal;
+        return HexCodec.encode(new byte[]{value});
     }
 
     /**
@@ -655,12 +654,12 @@ public class ByteUtil {
      *  - with no leading 0, like 0xabc -> 0x0abc
      * @param data  String like '0xa5e..' or just 'a5e..'
      * @return  decoded bytes array
+     * @throws IllegalArgumentException if a character is not a hex digit
+     * @see HexCodec#decode(CharSequence)
      */
     public static byte[] hexStringToBytes(String data) {
         if (data == null) return EMPTY_BYTE_ARRAY;
-        if (data.startsWith("0x")) data = data.substring(2);
-        if (data.length() % 2 == 1) data = "0" + data;
-        return Hex.decode(data);
+        return HexCodec.decode(data);
     }
 
     /**
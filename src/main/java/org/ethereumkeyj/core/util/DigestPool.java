@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 basic.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread cache of a stateful digest object.
+ * <p>
+ * Digest instances are not thread-safe, and creating one per call is what
+ * dominates the cost of hashing short inputs. Each thread gets its own instance
+ * on first use and keeps reusing it, so there is no locking and no sharing
+ * between cores. Callers must leave the digest reset when they are done with
+ * it, also when an exception interrupts them halfway, so they reset it in a
+ * {@code finally} block.
+ * <p>
+ * Hits and creations are counted with {@link LongAdder}s so that monitoring
+ * does not itself become a point of contention.
+ *
+ * @param <T> the digest type
+ */
+public final class DigestPool<T> {
+
+    private final String name;
+    private final Supplier<T> factory;
+    private final ThreadLocal<T> local = new ThreadLocal<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder creations = new LongAdder();
+
+    public DigestPool(String name, Supplier<T> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    /**
+     * @return - the digest owned by the calling thread, created on first use
+     */
+    public T get() {
+        T digest = local.get();
+        if (digest == null) {
+            digest = factory.get();
+            local.set(digest);
+            creations.increment();
+        } else {
+            hits.increment();
+        }
+        return digest;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return - number of calls served by an already cached instance
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return - number of instances created, i.e. threads that used the pool
+     */
+    public long getCreations() {
+        return creations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return name + "[hits=" + getHits() + ", creations=" + getCreations() + "]";
+    }
+}
@@ -28,9 +28,11 @@ import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import java.security.SecureRandom;
 import java.security.Security;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
-import java.util.Arrays;
 import org.ethereumkeyj.core.cryptohash.Keccak256;
 import org.ethereumkeyj.core.cryptohash.Keccak512;
 
@@ -47,22 +49,43 @@ public class HashUtil {
 //    private static final String HASH_256_ALGORITHM_NAME = "ETH-KECCAK-256";
 //    private static final String HASH_512_ALGORITHM_NAME = "ETH-KECCAK-512";
 
-    private static final MessageDigest sha256digest;
+    private static final DigestPool<MessageDigest> SHA256_POOL =
+            new DigestPool<>("SHA-256", () -> newMessageDigest("SHA-256"));
+    private static final DigestPool<MessageDigest> KECCAK256_POOL =
+            new DigestPool<>("KECCAK-256", Keccak256::new);
+    private static final DigestPool<RIPEMD160Digest> RIPEMD160_POOL =
+            new DigestPool<>("RIPEMD-160", RIPEMD160Digest::new);
+
+    private static final List<DigestPool<?>> POOLS = Collections.unmodifiableList(
+            Arrays.<DigestPool<?>>asList(SHA256_POOL, KECCAK256_POOL, RIPEMD160_POOL));
     
     private static SecureRandom random = new SecureRandom();
 
     static {
         Security.addProvider(EthSecurityProvider.getInstance());
         CRYPTO_PROVIDER = EthSecurityProvider.getInstance();
+        EMPTY_DATA_HASH = sha3(ByteUtil.EMPTY_BYTE_ARRAY);
+//        EMPTY_LIST_HASH = sha3(RLP.encodeList());
+//        EMPTY_TRIE_HASH = sha3(RLP.encodeElement(ByteUtil.EMPTY_BYTE_ARRAY));
+    }
+
+    private static MessageDigest newMessageDigest(String algorithm) {
         try {
-            sha256digest = MessageDigest.getInstance("SHA-256");
+            return MessageDigest.getInstance(algorithm);
         } catch (NoSuchAlgorithmException e) {
             LOG.error("Can't initialize HashUtils", e);
             throw new RuntimeException(e); // Can't happen.
         }
-        EMPTY_DATA_HASH = sha3(ByteUtil.EMPTY_BYTE_ARRAY);
-//        EMPTY_LIST_HASH = sha3(RLP.encodeList());
-//        EMPTY_TRIE_HASH = sha3(RLP.encodeElement(ByteUtil.EMPTY_BYTE_ARRAY));
+    }
+
+    /**
+     * Digests are cached per thread, so all hashing methods of this class
+     * are safe to call concurrently without any external locking.
+     *
+     * @return - the per-thread digest pools, for monitoring
+     */
+    public static List<DigestPool<?>> getDigestPools() {
+        return POOLS;
     }
 
     /**
@@ -71,22 +94,24 @@ public class HashUtil {
      * @return - sha256 hash of the data
      */
     public static byte[] sha256(byte[] input) {
-        return sha256digest.digest(input);
+        return SHA256_POOL.get().digest(input);
     }
 
     public static byte[] sha3(byte[] input) {
-        MessageDigest digest = new Keccak256();
-        digest.update(input);
-        
-        return digest.digest();
+        byte[] hash = new byte[32];
+        Keccak256.hash(input, 0, input.length, hash, 0);
+        return hash;
     }
 
     public static byte[] sha3(byte[] input1, byte[] input2) {
-        MessageDigest digest = new Keccak256();
-        digest.update(input1, 0, input1.length);
-        digest.update(input2, 0, input2.length);
-        
-        return digest.digest();
+        MessageDigest digest = KECCAK256_POOL.get();
+        try {
+            digest.update(input1, 0, input1.length);
+            digest.update(input2, 0, input2.length);
+            return digest.digest();
+        } finally {
+            digest.reset();
+        }
     }
 
     /**
@@ -101,17 +126,15 @@ public class HashUtil {
      * @return - keccak hash of the chunk
      */
     public static byte[] sha3(byte[] input, int start, int length) {
-        MessageDigest digest = new Keccak256();
-        digest.update(input, start, length);
-        
-        return digest.digest();
+        byte[] hash = new byte[32];
+        Keccak256.hash(input, start, length, hash, 0);
+        return hash;
     }
 
     public static byte[] sha512(byte[] input) {
-        MessageDigest digest = new Keccak512();
-        digest.update(input);
-        
-        return digest.digest();
+        byte[] hash = new byte[64];
+        Keccak512.hash(input, 0, input.length, hash, 0);
+        return hash;
     }
 
     /**
@@ -120,11 +143,15 @@ public class HashUtil {
      * @return - reipmd160 hash of the message
      */
     public static byte[] ripemd160(byte[] data) {
-        Digest digest = new RIPEMD160Digest();
         if (data != null) {
+            Digest digest = RIPEMD160_POOL.get();
             byte[] resBuf = new byte[digest.getDigestSize()];
-            digest.update(data, 0, data.length);
-            digest.doFinal(resBuf, 0);
+            try {
+                digest.update(data, 0, data.length);
+                digest.doFinal(resBuf, 0);
+            } finally {
+                digest.reset();
+            }
             return resBuf;
         }
         throw new NullPointerException("Can't hash a NULL value");
@@ -139,8 +166,24 @@ public class HashUtil {
      * @return - 20 right bytes of the hash keccak of the data
      */
     public static byte[] sha3omit12(byte[] input) {
-        byte[] hash = sha3(input);
-        return Arrays.copyOfRange(hash, 12, hash.length);
+        return sha3omit12(input, 0, input.length);
+    }
+
+    /**
+     * Calculates RIGTMOST160(SHA3(input)) of a chunk of the data.
+     *
+     * @param input
+     *            - data
+     * @param start
+     *            - start of hashing chunk
+     * @param length
+     *            - length of hashing chunk
+     * @return - 20 right bytes of the hash keccak of the chunk
+     */
+    public static byte[] sha3omit12(byte[] input, int start, int length) {
+        byte[] address = new byte[20];
+        Keccak256.hashOmit12(input, start, length, address, 0);
+        return address;
     }
 
     /**
@@ -185,11 +228,12 @@ public class HashUtil {
      * @return -
      */
     public static byte[] doubleDigest(byte[] input, int offset, int length) {
-        synchronized (sha256digest) {
-            sha256digest.reset();
-            sha256digest.update(input, offset, length);
-            byte[] first = sha256digest.digest();
-            return sha256digest.digest(first);
+        MessageDigest digest = SHA256_POOL.get();
+        try {
+            digest.update(input, offset, length);
+            return digest.digest(digest.digest());
+        } finally {
+            digest.reset();
         }
     }
 
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Lower-case hex encoding and decoding with lookup tables.
+ * <p>
+ * Encoding looks up both digits of a byte in 256-entry tables and writes
+ * them straight into a {@code char[]}, an ASCII {@code byte[]} or an
+ * existing {@link StringBuilder}. Decoding reads {@link CharSequence}s and
+ * ASCII {@link ByteBuffer}s in place: an optional {@code 0x} prefix is
+ * skipped, not cut off, and an odd number of digits reads as if padded
+ * with a leading zero, as in {@link ByteUtil#hexStringToBytes(String)}.
+ * Both cases of the digits are accepted.
+ */
+public final class HexCodec {
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final char[] HIGH_DIGITS = new char[256];
+    private static final char[] LOW_DIGITS = new char[256];
+    /**
+     * Value of a hex digit by character, -1 for anything else.
+     */
+    private static final byte[] VALUES = new byte[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            HIGH_DIGITS[i] = DIGITS[i >>> 4];
+            LOW_DIGITS[i] = DIGITS[i & 0xF];
+            VALUES[i] = -1;
+        }
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private HexCodec() {
+    }
+
+    /* ******************************************************
+     *                      ENCODING                        *
+     * ******************************************************/
+
+    public static String encode(byte[] data) {
+        return encode(data, 0, data.length);
+    }
+
+    public static String encode(byte[] data, int offset, int length) {
+        char[] out = new char[length << 1];
+        encode(data, offset, length, out, 0);
+        return new String(out);
+    }
+
+    /**
+     * @param data - bytes to encode
+     * @param offset - index of the first byte
+     * @param length - number of bytes
+     * @param out - receives {@code 2 * length} characters
+     * @param outOffset - index of the first character
+     * @return - index after the last character written
+     */
+    public static int encode(byte[] data, int offset, int length, char[] out, int outOffset) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int b = data[i] & 0xFF;
+            out[outOffset++] = HIGH_DIGITS[b];
+            out[outOffset++] = LOW_DIGITS[b];
+        }
+        return outOffset;
+    }
+
+    /**
+     * Encodes into ASCII bytes.
+     *
+     * @param data - bytes to encode
+     * @param offset - index of the first byte
+     * @param length - number of bytes
+     * @param out - receives {@code 2 * length} ASCII digits
+     * @param outOffset - index of the first digit
+     * @return - index after the last digit written
+     */
+    public static int encode(byte[] data, int offset, int length, byte[] out, int outOffset) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int b = data[i] & 0xFF;
+            out[outOffset++] = (byte) HIGH_DIGITS[b];
+            out[outOffset++] = (byte) LOW_DIGITS[b];
+        }
+        return outOffset;
+    }
+
+    /**
+     * Encodes the remaining bytes of a buffer without moving its position.
+     *
+     * @param data - bytes from position to limit are encoded
+     * @return - the hex string
+     */
+    public static String encode(ByteBuffer data) {
+        if (data.hasArray()) {
+            return encode(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+        char[] out = new char[data.remaining() << 1];
+        for (int i = data.position(), j = 0; i < data.limit(); i++) {
+            int b = data.get(i) & 0xFF;
+            out[j++] = HIGH_DIGITS[b];
+            out[j++] = LOW_DIGITS[b];
+        }
+        return new String(out);
+    }
+
+    public static StringBuilder append(StringBuilder out, byte[] data) {
+        return append(out, data, 0, data.length);
+    }
+
+    /**
+     * @param out - the builder to append to
+     * @param data - bytes to encode
+     * @param offset - index of the first byte
+     * @param length - number of bytes
+     * @return - the builder
+     */
+    public static StringBuilder append(StringBuilder out, byte[] data, int offset, int length) {
+        out.ensureCapacity(out.length() + (length << 1));
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int b = data[i] & 0xFF;
+            out.append(HIGH_DIGITS[b]).append(LOW_DIGITS[b]);
+        }
+        return out;
+    }
+
+    /* ******************************************************
+     *                      DECODING                        *
+     * ******************************************************/
+
+    /**
+     * @param hex - hex digits with an optional {@code 0x} prefix
+     * @return - the decoded bytes
+     * @throws IllegalArgumentException if a character is not a hex digit
+     */
+    public static byte[] decode(CharSequence hex) {
+        return decode(hex, 0, hex.length());
+    }
+
+    /**
+     * @param hex - characters to read
+     * @param start - index of the first character, where a {@code 0x} prefix may start
+     * @param end - index after the last character
+     * @return - the decoded bytes
+     * @throws IllegalArgumentException if a character is not a hex digit
+     */
+    public static byte[] decode(CharSequence hex, int start, int end) {
+        start = skipPrefix(hex, start, end);
+        byte[] out = new byte[(end - start + 1) >>> 1];
+        decode(hex, start, end, out, 0);
+        return out;
+    }
+
+    /**
+     * Decodes into an existing array.
+     *
+     * @param hex - characters to read
+     * @param start - index of the first character, where a {@code 0x} prefix may start
+     * @param end - index after the last character
+     * @param out - receives {@link #decodedLength(CharSequence, int, int)} bytes
+     * @param outOffset - index of the first byte
+     * @return - index after the last byte written
+     * @throws IllegalArgumentException if a character is not a hex digit
+     */
+    public static int decode(CharSequence hex, int start, int end, byte[] out, int outOffset) {
+        int i = skipPrefix(hex, start, end);
+        if (((end - i) & 1) != 0) {
+            out[outOffset++] = (byte) value(hex.charAt(i), i);
+            i++;
+        }
+        for (; i < end; i += 2) {
+            out[outOffset++] = (byte) (value(hex.charAt(i), i) << 4 | value(hex.charAt(i + 1), i + 1));
+        }
+        return outOffset;
+    }
+
+    /**
+     * @param hex - characters to read
+     * @param start - index of the first character, where a {@code 0x} prefix may start
+     * @param end - index after the last character
+     * @return - number of bytes the digits decode to
+     */
+    public static int decodedLength(CharSequence hex, int start, int end) {
+        return (end - skipPrefix(hex, start, end) + 1) >>> 1;
+    }
+
+    /**
+     * Decodes ASCII hex digits from position to limit; the buffer's
+     * position is moved to its limit.
+     *
+     * @param hex - ASCII digits with an optional {@code 0x} prefix
+     * @return - the decoded bytes
+     * @throws IllegalArgumentException if a byte is not a hex digit
+     */
+    public static byte[] decode(ByteBuffer hex) {
+        int i = hex.position();
+        int end = hex.limit();
+        if (end - i >= 2 && hex.get(i) == '0' && (hex.get(i + 1) | 0x20) == 'x') {
+            i += 2;
+        }
+        byte[] out = new byte[(end - i + 1) >>> 1];
+        int j = 0;
+        if (((end - i) & 1) != 0) {
+            out[j++] = (byte) value(hex.get(i), i);
+            i++;
+        }
+        for (; i < end; i += 2) {
+            out[j++] = (byte) (value(hex.get(i), i) << 4 | value(hex.get(i + 1), i + 1));
+        }
+        hex.position(end);
+        return out;
+    }
+
+    private static int skipPrefix(CharSequence hex, int start, int end) {
+        if (end - start >= 2 && hex.charAt(start) == '0' && (hex.charAt(start + 1) | 0x20) == 'x') {
+            return start + 2;
+        }
+        return start;
+    }
+
+    private static int value(int c, int index) {
+        int value = (c & ~0xFF) == 0 ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid hex digit '" + (char) (c & 0xFFFF) + "' at index " + index);
+        }
+        return value;
+    }
+
+    private static int value(byte c, int index) {
+        return value(c & 0xFF, index);
+    }
+}
@@ -15,7 +15,12 @@
  */
 package org.ethereumkeyj.core.util;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 import static org.bouncycastle.util.Arrays.concatenate;
@@ -294,4 +299,64 @@ public class RLP {
         }
         return data;
     }
+
+    /* ******************************************************
+     *                      DECODING                        *
+     * ******************************************************/
+
+    /**
+     * Decodes an RLP item that spans the whole array. The array is not copied.
+     *
+     * @param data - the encoding
+     * @return - a view of the item
+     * @throws IllegalArgumentException - if the encoding is malformed or followed by trailing bytes
+     */
+    public static RLPItem decode(byte[] data) {
+        return decode(data, 0, data.length);
+    }
+
+    /**
+     * Decodes an RLP item that spans {@code data[offset, offset + length)}.
+     * Offsets of the returned item are relative to the start of the array.
+     */
+    public static RLPItem decode(byte[] data, int offset, int length) {
+        return decode(ByteBuffer.wrap(data), offset, offset + length);
+    }
+
+    /**
+     * Decodes an RLP item that spans the remaining bytes of the buffer. The
+     * buffer position is not changed; offsets of the returned item are
+     * absolute indices into the buffer.
+     *
+     * @param buffer - a heap, direct or mapped buffer
+     * @return - a view of the item
+     */
+    public static RLPItem decode(ByteBuffer buffer) {
+        return decode(buffer, buffer.position(), buffer.limit());
+    }
+
+    private static RLPItem decode(ByteBuffer buffer, int from, int to) {
+        RLPItem item = RLPItem.decode(buffer, from, to);
+        if (item.getOffset() + item.getLength() != to) {
+            throw new IllegalArgumentException("Trailing bytes after RLP item");
+        }
+        return item;
+    }
+
+    /**
+     * Maps a file that holds one RLP item read-only and decodes it. The file
+     * content is paged in on access and never copied onto the heap.
+     *
+     * @param file - a file of at most {@link Integer#MAX_VALUE} bytes
+     * @return - a view of the item
+     */
+    public static RLPItem decode(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File too large to map as one buffer, use RLPReader: " + file);
+            }
+            // the mapping stays valid after the channel is closed
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
 }
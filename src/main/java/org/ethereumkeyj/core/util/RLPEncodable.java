@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 basic.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An object that can write its own RLP encoding without materialising it as
+ * an array first.
+ */
+public interface RLPEncodable {
+
+    /**
+     * @return - exact size of the encoding in bytes
+     */
+    int getEncodedLength();
+
+    /**
+     * Writes the encoding at the buffer position.
+     *
+     * @param out - has at least {@link #getEncodedLength()} bytes remaining
+     */
+    void writeEncoded(ByteBuffer out);
+}
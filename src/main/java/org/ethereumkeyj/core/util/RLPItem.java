@@ -0,0 +1,346 @@
+/*
+ * Copyright 2018 basic.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A decoded RLP item: a view of one encoded string or list inside a source
+ * buffer.
+ * <p>
+ * Only the header of the item is parsed. The payload is not copied, and the
+ * elements of a list are decoded one at a time while iterating, so walking a
+ * large structure allocates one small view per visited item and nothing per
+ * byte. The source can be a heap array, a direct buffer or a memory-mapped
+ * file; it is read with absolute gets and its position and limit are never
+ * changed. Items stay valid only as long as the source is not modified.
+ * <p>
+ * Malformed or non-canonical encodings are rejected with an
+ * {@link IllegalArgumentException}: headers when the item is decoded, integer
+ * payloads with a leading zero byte when they are read as a number.
+ *
+ * @see RLP#decode(byte[])
+ * @see RLP#decode(ByteBuffer)
+ */
+public final class RLPItem implements Iterable<RLPItem> {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int payloadOffset;
+    private final int payloadLength;
+    private final boolean list;
+
+    private RLPItem(ByteBuffer buffer, int offset, int payloadOffset, int payloadLength, boolean list) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.payloadOffset = payloadOffset;
+        this.payloadLength = payloadLength;
+        this.list = list;
+    }
+
+    /**
+     * Parses the header of the item starting at {@code offset}.
+     *
+     * @param buffer - source, accessed with absolute indices
+     * @param offset - index of the first byte of the item
+     * @param limit - the item must end at or before this index
+     * @return - the item
+     */
+    static RLPItem decode(ByteBuffer buffer, int offset, int limit) {
+        if (offset >= limit) {
+            throw new IllegalArgumentException("RLP item expected at " + offset);
+        }
+        int prefix = buffer.get(offset) & 0xFF;
+        int payloadOffset;
+        long payloadLength;
+        boolean list;
+        if (prefix < 0x80) {
+            // single byte, its own encoding
+            payloadOffset = offset;
+            payloadLength = 1;
+            list = false;
+        } else if (prefix <= 0xb7) {
+            payloadOffset = offset + 1;
+            payloadLength = prefix - 0x80;
+            list = false;
+            if (payloadLength == 1 && payloadOffset < limit && (buffer.get(payloadOffset) & 0xFF) < 0x80) {
+                throw new IllegalArgumentException("Non-canonical single byte at " + offset);
+            }
+        } else if (prefix <= 0xbf) {
+            int lengthOfLength = prefix - 0xb7;
+            payloadOffset = offset + 1 + lengthOfLength;
+            payloadLength = readLength(buffer, offset + 1, lengthOfLength, limit);
+            list = false;
+        } else if (prefix <= 0xf7) {
+            payloadOffset = offset + 1;
+            payloadLength = prefix - 0xc0;
+            list = true;
+        } else {
+            int lengthOfLength = prefix - 0xf7;
+            payloadOffset = offset + 1 + lengthOfLength;
+            payloadLength = readLength(buffer, offset + 1, lengthOfLength, limit);
+            list = true;
+        }
+        if (payloadOffset + payloadLength > limit) {
+            throw new IllegalArgumentException("RLP item at " + offset + " exceeds its enclosing range");
+        }
+        return new RLPItem(buffer, offset, payloadOffset, (int) payloadLength, list);
+    }
+
+    private static long readLength(ByteBuffer buffer, int index, int lengthOfLength, int limit) {
+        if (index + lengthOfLength > limit) {
+            throw new IllegalArgumentException("Truncated RLP length at " + index);
+        }
+        if (lengthOfLength > 4 || buffer.get(index) == 0) {
+            throw new IllegalArgumentException("Unsupported or non-canonical RLP length at " + index);
+        }
+        long length = 0;
+        for (int i = 0; i < lengthOfLength; i++) {
+            length = (length << 8) | (buffer.get(index + i) & 0xFF);
+        }
+        if (length < 56) {
+            throw new IllegalArgumentException("Non-canonical RLP length at " + index);
+        }
+        return length;
+    }
+
+    /**
+     * @return - true for a list, false for a string
+     */
+    public boolean isList() {
+        return list;
+    }
+
+    /**
+     * @return - index of the first byte of the encoding in the source
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return - length of the whole encoding, header included
+     */
+    public int getLength() {
+        return payloadOffset - offset + payloadLength;
+    }
+
+    /**
+     * @return - index of the first payload byte in the source
+     */
+    public int getPayloadOffset() {
+        return payloadOffset;
+    }
+
+    /**
+     * @return - number of payload bytes
+     */
+    public int getPayloadLength() {
+        return payloadLength;
+    }
+
+    /**
+     * @return - the source buffer; its position and limit are not meaningful for this item
+     */
+    public ByteBuffer getSource() {
+        return buffer;
+    }
+
+    /**
+     * @return - a read-only view of the payload, sharing the source memory
+     */
+    public ByteBuffer payload() {
+        return slice(payloadOffset, payloadLength);
+    }
+
+    /**
+     * @return - a read-only view of the whole encoding, sharing the source memory
+     */
+    public ByteBuffer encoded() {
+        return slice(offset, getLength());
+    }
+
+    private ByteBuffer slice(int from, int length) {
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        view.limit(from + length).position(from);
+        return view.slice();
+    }
+
+    /**
+     * @return - a copy of the payload
+     */
+    public byte[] getBytes() {
+        byte[] bytes = new byte[payloadLength];
+        copy(payloadOffset, bytes, 0, payloadLength);
+        return bytes;
+    }
+
+    /**
+     * @return - a copy of the whole encoding
+     */
+    public byte[] getEncoded() {
+        byte[] bytes = new byte[getLength()];
+        copy(offset, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Copies the payload into {@code dst} at {@code dstOffset}.
+     */
+    public void copyPayload(byte[] dst, int dstOffset) {
+        copy(payloadOffset, dst, dstOffset, payloadLength);
+    }
+
+    private void copy(int from, byte[] dst, int dstOffset, int length) {
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + from, dst, dstOffset, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                dst[dstOffset + i] = buffer.get(from + i);
+            }
+        }
+    }
+
+    /**
+     * @return - the payload as an unsigned big-endian integer, zero for an empty string
+     * @throws IllegalArgumentException - if the payload has a leading zero byte
+     */
+    public BigInteger asBigInteger() {
+        checkInteger();
+        return payloadLength == 0 ? BigInteger.ZERO : new BigInteger(1, getBytes());
+    }
+
+    /**
+     * @return - the payload as an unsigned big-endian integer
+     * @throws ArithmeticException - if the value does not fit into a long
+     * @throws IllegalArgumentException - if the payload has a leading zero byte
+     */
+    public long asLong() {
+        checkInteger();
+        if (payloadLength > 8 || payloadLength == 8 && buffer.get(payloadOffset) < 0) {
+            throw new ArithmeticException("RLP integer does not fit into a long");
+        }
+        long value = 0;
+        for (int i = 0; i < payloadLength; i++) {
+            value = (value << 8) | (buffer.get(payloadOffset + i) & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * @return - the payload as an unsigned big-endian integer
+     * @throws ArithmeticException - if the value does not fit into an int
+     * @throws IllegalArgumentException - if the payload has a leading zero byte
+     */
+    public int asInt() {
+        long value = asLong();
+        if (value > Integer.MAX_VALUE) {
+            throw new ArithmeticException("RLP integer does not fit into an int");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Integers are encoded without leading zeros, zero as the empty string.
+     */
+    private void checkInteger() {
+        checkString();
+        if (payloadLength > 0 && buffer.get(payloadOffset) == 0) {
+            throw new IllegalArgumentException("RLP integer at " + offset + " has a leading zero byte");
+        }
+    }
+
+    private void checkString() {
+        if (list) {
+            throw new IllegalStateException("RLP item at " + offset + " is a list");
+        }
+    }
+
+    private void checkList() {
+        if (!list) {
+            throw new IllegalStateException("RLP item at " + offset + " is not a list");
+        }
+    }
+
+    /**
+     * Counts the elements of a list by walking their headers.
+     *
+     * @return - number of elements
+     */
+    public int size() {
+        checkList();
+        int count = 0;
+        int end = payloadOffset + payloadLength;
+        for (int index = payloadOffset; index < end; count++) {
+            index += decode(buffer, index, end).getLength();
+        }
+        return count;
+    }
+
+    /**
+     * Returns an element of a list, skipping over the preceding elements.
+     *
+     * @param index - element index
+     * @return - the element
+     */
+    public RLPItem get(int index) {
+        Iterator<RLPItem> elements = iterator();
+        for (int i = 0; i < index && elements.hasNext(); i++) {
+            elements.next();
+        }
+        if (index < 0 || !elements.hasNext()) {
+            throw new IndexOutOfBoundsException("RLP list has no element " + index);
+        }
+        return elements.next();
+    }
+
+    /**
+     * Iterates over the elements of a list, decoding each header when it is
+     * reached.
+     */
+    @Override
+    public Iterator<RLPItem> iterator() {
+        checkList();
+        return new Iterator<RLPItem>() {
+
+            private final int end = payloadOffset + payloadLength;
+            private int next = payloadOffset;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public RLPItem next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                RLPItem item = decode(buffer, next, end);
+                next += item.getLength();
+                return item;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return (list ? "RLPList" : "RLPString") + "[offset=" + offset + ", length=" + getLength() + "]";
+    }
+}
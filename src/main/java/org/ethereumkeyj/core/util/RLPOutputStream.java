@@ -0,0 +1,271 @@
+/*
+ * Copyright 2018 basic.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Streaming RLP encoder for output that should not be held in memory as a
+ * whole, such as files of millions of signed transactions.
+ * <p>
+ * Items are encoded into a bounded buffer that is drained to an
+ * {@link OutputStream} or a {@link WritableByteChannel} whenever it fills up.
+ * Strings larger than the buffer are passed through to the sink without
+ * copying. A list needs its payload size up front: either the caller
+ * computes it with the {@link RLPWriter} size methods and calls
+ * {@link #writeListHeader(long)} before writing the elements, or
+ * {@link #writeList(Iterable)} sizes {@link RLPEncodable} elements in a first
+ * pass and streams them in a second one. List payloads may exceed 2 GB.
+ * <p>
+ * Instances are not thread-safe. {@link #close()} flushes and closes the
+ * sink.
+ */
+public class RLPOutputStream implements Closeable, Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int SIZE_THRESHOLD = 56;
+    private static final int OFFSET_SHORT_ITEM = 0x80;
+    private static final int OFFSET_LONG_ITEM = 0xb7;
+    private static final int OFFSET_SHORT_LIST = 0xc0;
+    private static final int OFFSET_LONG_LIST = 0xf7;
+    /** Longest possible header: prefix and eight length bytes. */
+    private static final int MAX_HEADER_SIZE = 9;
+
+    private final OutputStream stream;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final RLPWriter writer;
+    private long flushed;
+
+    public RLPOutputStream(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public RLPOutputStream(OutputStream out, int bufferSize) {
+        this(out, null, ByteBuffer.allocate(checkBufferSize(bufferSize)));
+    }
+
+    public RLPOutputStream(WritableByteChannel out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param out - the channel, written from a direct buffer
+     * @param bufferSize - size of the internal buffer
+     */
+    public RLPOutputStream(WritableByteChannel out, int bufferSize) {
+        this(null, out, ByteBuffer.allocateDirect(checkBufferSize(bufferSize)));
+    }
+
+    private RLPOutputStream(OutputStream stream, WritableByteChannel channel, ByteBuffer buffer) {
+        this.stream = stream;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.writer = new RLPWriter(buffer);
+    }
+
+    private static int checkBufferSize(int bufferSize) {
+        if (bufferSize < MAX_HEADER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MAX_HEADER_SIZE);
+        }
+        return bufferSize;
+    }
+
+    /**
+     * @return - total number of bytes written, including those still buffered
+     */
+    public long getBytesWritten() {
+        return flushed + buffer.position();
+    }
+
+    /**
+     * Writes a string, null being the empty string.
+     */
+    public RLPOutputStream writeString(byte[] data) throws IOException {
+        if (data == null) {
+            reserve(1);
+            writer.writeString(null);
+            return this;
+        }
+        return writeString(data, 0, data.length);
+    }
+
+    public RLPOutputStream writeString(byte[] data, int offset, int length) throws IOException {
+        int size = RLPWriter.sizeOfString(data, offset, length);
+        if (size <= buffer.capacity()) {
+            reserve(size);
+            writer.writeString(data, offset, length);
+        } else {
+            // header through the buffer, payload straight to the sink
+            reserve(MAX_HEADER_SIZE);
+            writeHeader(length, OFFSET_SHORT_ITEM, OFFSET_LONG_ITEM);
+            drain();
+            writeDirect(data, offset, length);
+        }
+        return this;
+    }
+
+    public RLPOutputStream writeBigInteger(BigInteger value) throws IOException {
+        reserve(RLPWriter.sizeOfBigInteger(value));
+        writer.writeBigInteger(value);
+        return this;
+    }
+
+    public RLPOutputStream writeLong(long value) throws IOException {
+        reserve(RLPWriter.sizeOfLong(value));
+        writer.writeLong(value);
+        return this;
+    }
+
+    /**
+     * Writes the header of a list whose elements are written next.
+     *
+     * @param payloadLength - total encoded size of the elements
+     */
+    public RLPOutputStream writeListHeader(long payloadLength) throws IOException {
+        if (payloadLength < 0) {
+            throw new IllegalArgumentException("Negative list length");
+        }
+        reserve(MAX_HEADER_SIZE);
+        writeHeader(payloadLength, OFFSET_SHORT_LIST, OFFSET_LONG_LIST);
+        return this;
+    }
+
+    /**
+     * Writes one encoded object.
+     */
+    public RLPOutputStream writeEncoded(RLPEncodable item) throws IOException {
+        int size = item.getEncodedLength();
+        if (size <= buffer.capacity()) {
+            reserve(size);
+            item.writeEncoded(buffer);
+        } else {
+            ByteBuffer large = ByteBuffer.allocate(size);
+            item.writeEncoded(large);
+            drain();
+            writeDirect(large.array(), 0, size);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a list of encoded objects: one pass over the elements adds up
+     * their sizes for the header, a second one streams them.
+     */
+    public RLPOutputStream writeList(Iterable<? extends RLPEncodable> items) throws IOException {
+        long payloadLength = 0;
+        for (RLPEncodable item : items) {
+            payloadLength += item.getEncodedLength();
+        }
+        writeListHeader(payloadLength);
+        for (RLPEncodable item : items) {
+            writeEncoded(item);
+        }
+        return this;
+    }
+
+    /**
+     * Copies an item that is already RLP encoded.
+     */
+    public RLPOutputStream writeEncoded(byte[] encoded) throws IOException {
+        if (encoded.length <= buffer.capacity()) {
+            reserve(encoded.length);
+            buffer.put(encoded);
+        } else {
+            drain();
+            writeDirect(encoded, 0, encoded.length);
+        }
+        return this;
+    }
+
+    private void writeHeader(long length, int shortOffset, int longOffset) {
+        if (length < SIZE_THRESHOLD) {
+            buffer.put((byte) (shortOffset + length));
+            return;
+        }
+        int bytes = (64 - Long.numberOfLeadingZeros(length) + 7) >>> 3;
+        buffer.put((byte) (longOffset + bytes));
+        for (int i = bytes - 1; i >= 0; i--) {
+            buffer.put((byte) (length >>> (8 * i)));
+        }
+    }
+
+    /**
+     * Makes room for {@code size} bytes, {@code size} not exceeding the
+     * buffer capacity.
+     */
+    private void reserve(int size) throws IOException {
+        if (buffer.remaining() < size) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        flushed += buffer.remaining();
+        if (stream != null) {
+            stream.write(buffer.array(), buffer.arrayOffset(), buffer.remaining());
+        } else {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        buffer.clear();
+    }
+
+    private void writeDirect(byte[] data, int offset, int length) throws IOException {
+        flushed += length;
+        if (stream != null) {
+            stream.write(data, offset, length);
+        } else {
+            ByteBuffer wrapped = ByteBuffer.wrap(data, offset, length);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the sink and flushes a stream sink.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        if (stream != null) {
+            stream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (stream != null) {
+                stream.close();
+            } else {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2018 basic.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a sequence of RLP items from a file through memory-mapped windows.
+ * <p>
+ * The file is mapped read-only one window at a time (1 GB by default), so
+ * files larger than 2 GB are supported and nothing is copied onto the heap:
+ * each item is an {@link RLPItem} view over the window that holds it, and a
+ * new window is mapped at the start of the first item that does not fit
+ * into the current one. Throughput is bounded by the page cache rather than
+ * by allocation. Offsets of the returned items are relative to their window.
+ * <p>
+ * {@link #open(Path)} reads a file of concatenated items, as exported by a
+ * node; {@link #openList(Path)} reads the elements of a file holding one
+ * list, as written by {@link RLPOutputStream#writeList(Iterable)}. Each
+ * iterator walks the file independently. Items larger than 2 GB are not
+ * supported.
+ */
+public class RLPReader implements Iterable<RLPItem>, Closeable {
+
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    /** Longest possible header: prefix and eight length bytes. */
+    private static final int MAX_HEADER_SIZE = 9;
+
+    private final FileChannel channel;
+    private final long from;
+    private final long to;
+    private final int windowSize;
+
+    /**
+     * Reads the items in {@code [from, to)} of the channel.
+     *
+     * @param channel - a readable file channel, closed by {@link #close()}
+     * @param from - file offset of the first item
+     * @param to - file offset after the last item
+     * @param windowSize - bytes mapped at a time
+     */
+    public RLPReader(FileChannel channel, long from, long to, int windowSize) {
+        if (windowSize < MAX_HEADER_SIZE) {
+            throw new IllegalArgumentException("Window size must be at least " + MAX_HEADER_SIZE);
+        }
+        this.channel = channel;
+        this.from = from;
+        this.to = to;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Opens a file of concatenated RLP items.
+     */
+    public static RLPReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        return new RLPReader(channel, 0, channel.size(), DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Opens a file that holds exactly one RLP list, to read its elements.
+     */
+    public static RLPReader openList(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_HEADER_SIZE));
+            int prefix = header.limit() == 0 ? 0 : header.get(0) & 0xFF;
+            if (prefix < 0xc0) {
+                throw new IllegalArgumentException("File does not start with an RLP list: " + file);
+            }
+            long headerSize = headerSize(header, 0);
+            if (headerSize + payloadLength(header, 0) != size) {
+                throw new IllegalArgumentException("RLP list does not span the file: " + file);
+            }
+            return new RLPReader(channel, headerSize, size, DEFAULT_WINDOW_SIZE);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return - an iterator over the items; I/O errors are rethrown as
+     * {@link UncheckedIOException}
+     */
+    @Override
+    public Iterator<RLPItem> iterator() {
+        return new Cursor();
+    }
+
+    @Override
+    public Spliterator<RLPItem> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * @param parallel - whether the stream may be processed in parallel;
+     * the file is still read sequentially, in batches handed to the workers
+     * @return - a stream of the items
+     */
+    public Stream<RLPItem> stream(boolean parallel) {
+        return StreamSupport.stream(spliterator(), parallel);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static int headerSize(ByteBuffer buffer, int index) {
+        int prefix = buffer.get(index) & 0xFF;
+        if (prefix < 0x80) {
+            return 0;
+        } else if (prefix <= 0xb7 || prefix >= 0xc0 && prefix <= 0xf7) {
+            return 1;
+        }
+        return 1 + prefix - (prefix < 0xc0 ? 0xb7 : 0xf7);
+    }
+
+    private static long payloadLength(ByteBuffer buffer, int index) {
+        int prefix = buffer.get(index) & 0xFF;
+        if (prefix < 0x80) {
+            return 1;
+        } else if (prefix <= 0xb7 || prefix >= 0xc0 && prefix <= 0xf7) {
+            return prefix - (prefix < 0xc0 ? 0x80 : 0xc0);
+        }
+        int lengthOfLength = prefix - (prefix < 0xc0 ? 0xb7 : 0xf7);
+        if (index + 1 + lengthOfLength > buffer.limit()) {
+            throw new IllegalArgumentException("Truncated RLP length");
+        }
+        long length = 0;
+        for (int i = 0; i < lengthOfLength; i++) {
+            length = (length << 8) | (buffer.get(index + 1 + i) & 0xFF);
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("RLP length out of range");
+        }
+        return length;
+    }
+
+    private class Cursor implements Iterator<RLPItem> {
+
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position = from;
+
+        @Override
+        public boolean hasNext() {
+            return position < to;
+        }
+
+        @Override
+        public RLPItem next() {
+            if (position >= to) {
+                throw new NoSuchElementException();
+            }
+            try {
+                // the header must be in the window to know the item size
+                map(Math.min(MAX_HEADER_SIZE, to - position));
+                int index = (int) (position - windowStart);
+                long length = headerSize(window, index) + payloadLength(window, index);
+                if (length > Integer.MAX_VALUE || position + length > to) {
+                    throw new IllegalArgumentException("RLP item at file offset " + position + " exceeds the input");
+                }
+                map(length);
+                index = (int) (position - windowStart);
+                RLPItem item = RLPItem.decode(window, index, index + (int) length);
+                position += length;
+                return item;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        /**
+         * Ensures that {@code [position, position + length)} is mapped.
+         */
+        private void map(long length) throws IOException {
+            if (window != null && position >= windowStart && position + length <= windowStart + window.limit()) {
+                return;
+            }
+            long size = Math.min(Math.max(windowSize, length), to - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            windowStart = position;
+        }
+    }
+}
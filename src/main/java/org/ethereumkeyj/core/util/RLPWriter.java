@@ -0,0 +1,233 @@
+/*
+ * Copyright 2018 basic.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Single-pass RLP encoder.
+ * <p>
+ * The caller first adds up the exact size of the encoding with the static
+ * {@code sizeOf...} methods, allocates one array (or supplies a buffer with
+ * enough room) and then writes every item straight into it. Unlike
+ * {@link RLP#encodeList(byte[]...)} there are no intermediate arrays per
+ * element and nothing is copied twice. Lists are written as a header
+ * ({@link #writeListHeader(int)}) followed by their elements.
+ * <p>
+ * The output is identical to the {@link RLP} encoders for the same values.
+ */
+public final class RLPWriter {
+
+    private static final int SIZE_THRESHOLD = 56;
+    private static final int OFFSET_SHORT_ITEM = 0x80;
+    private static final int OFFSET_LONG_ITEM = 0xb7;
+    private static final int OFFSET_SHORT_LIST = 0xc0;
+    private static final int OFFSET_LONG_LIST = 0xf7;
+
+    private final ByteBuffer out;
+
+    /**
+     * @param out - receives the encoding from index 0, must have room for all of it
+     */
+    public RLPWriter(byte[] out) {
+        this(ByteBuffer.wrap(out));
+    }
+
+    /**
+     * @param out - receives the encoding from its position, which is advanced
+     */
+    public RLPWriter(ByteBuffer out) {
+        this.out = out;
+    }
+
+    /* ******************************************************
+     *                      SIZES                           *
+     * ******************************************************/
+
+    /**
+     * @param data - string payload, null is the empty string
+     * @return - encoded size of the string
+     */
+    public static int sizeOfString(byte[] data) {
+        return data == null ? 1 : sizeOfString(data, 0, data.length);
+    }
+
+    public static int sizeOfString(byte[] data, int offset, int length) {
+        if (length == 1 && (data[offset] & 0xFF) < OFFSET_SHORT_ITEM) {
+            return 1;
+        }
+        return headerSize(length) + length;
+    }
+
+    /**
+     * @param value - non-negative integer
+     * @return - encoded size of its minimal big-endian form, zero being the empty string
+     */
+    public static int sizeOfBigInteger(BigInteger value) {
+        int bytes = byteLength(value);
+        if (bytes == 1 && value.intValue() < OFFSET_SHORT_ITEM) {
+            return 1;
+        }
+        return headerSize(bytes) + bytes;
+    }
+
+    /**
+     * @param value - non-negative integer
+     * @return - encoded size of its minimal big-endian form, zero being the empty string
+     */
+    public static int sizeOfLong(long value) {
+        checkNotNegative(value);
+        if (value > 0 && value < OFFSET_SHORT_ITEM) {
+            return 1;
+        }
+        return 1 + byteLength(value);
+    }
+
+    /**
+     * @param payloadLength - total encoded size of the list elements
+     * @return - encoded size of the list, header included
+     */
+    public static int sizeOfList(int payloadLength) {
+        return headerSize(payloadLength) + payloadLength;
+    }
+
+    private static int headerSize(int length) {
+        return length < SIZE_THRESHOLD ? 1 : 1 + byteLength(length);
+    }
+
+    private static int byteLength(long value) {
+        return (64 - Long.numberOfLeadingZeros(value) + 7) >>> 3;
+    }
+
+    private static int byteLength(BigInteger value) {
+        if (value.signum() < 0) {
+            throw new RuntimeException("negative numbers are not allowed");
+        }
+        return (value.bitLength() + 7) >>> 3;
+    }
+
+    private static void checkNotNegative(long value) {
+        if (value < 0) {
+            throw new RuntimeException("negative numbers are not allowed");
+        }
+    }
+
+    /* ******************************************************
+     *                      WRITING                         *
+     * ******************************************************/
+
+    /**
+     * @return - number of bytes written so far for a writer over an array,
+     * the buffer position otherwise
+     */
+    public int position() {
+        return out.position();
+    }
+
+    /**
+     * Writes a string, null being the empty string.
+     */
+    public RLPWriter writeString(byte[] data) {
+        if (data == null) {
+            out.put((byte) OFFSET_SHORT_ITEM);
+            return this;
+        }
+        return writeString(data, 0, data.length);
+    }
+
+    public RLPWriter writeString(byte[] data, int offset, int length) {
+        if (length == 1 && (data[offset] & 0xFF) < OFFSET_SHORT_ITEM) {
+            out.put(data[offset]);
+            return this;
+        }
+        writeHeader(length, OFFSET_SHORT_ITEM, OFFSET_LONG_ITEM);
+        out.put(data, offset, length);
+        return this;
+    }
+
+    /**
+     * Writes the minimal big-endian form of a non-negative integer.
+     */
+    public RLPWriter writeBigInteger(BigInteger value) {
+        int bytes = byteLength(value);
+        if (bytes < 8) {
+            return writeLong(value.longValue());
+        }
+        writeHeader(bytes, OFFSET_SHORT_ITEM, OFFSET_LONG_ITEM);
+        // toByteArray may carry one leading sign byte, skip it instead of copying
+        byte[] twosComplement = value.toByteArray();
+        out.put(twosComplement, twosComplement.length - bytes, bytes);
+        return this;
+    }
+
+    /**
+     * Writes the minimal big-endian form of a non-negative integer.
+     */
+    public RLPWriter writeLong(long value) {
+        checkNotNegative(value);
+        if (value > 0 && value < OFFSET_SHORT_ITEM) {
+            out.put((byte) value);
+            return this;
+        }
+        int bytes = byteLength(value);
+        out.put((byte) (OFFSET_SHORT_ITEM + bytes));
+        writeBigEndian(value, bytes);
+        return this;
+    }
+
+    /**
+     * Writes the header of a list; its elements follow.
+     *
+     * @param payloadLength - total encoded size of the elements
+     */
+    public RLPWriter writeListHeader(int payloadLength) {
+        writeHeader(payloadLength, OFFSET_SHORT_LIST, OFFSET_LONG_LIST);
+        return this;
+    }
+
+    /**
+     * Writes one byte as it is, e.g. the type prefix of a typed transaction.
+     */
+    public RLPWriter writeRaw(byte value) {
+        out.put(value);
+        return this;
+    }
+
+    /**
+     * Copies an item that is already RLP encoded.
+     */
+    public RLPWriter writeEncoded(byte[] encoded) {
+        out.put(encoded);
+        return this;
+    }
+
+    private void writeHeader(int length, int shortOffset, int longOffset) {
+        if (length < SIZE_THRESHOLD) {
+            out.put((byte) (shortOffset + length));
+        } else {
+            int bytes = byteLength(length);
+            out.put((byte) (longOffset + bytes));
+            writeBigEndian(length, bytes);
+        }
+    }
+
+    private void writeBigEndian(long value, int bytes) {
+        for (int i = bytes - 1; i >= 0; i--) {
+            out.put((byte) (value >>> (8 * i)));
+        }
+    }
+}
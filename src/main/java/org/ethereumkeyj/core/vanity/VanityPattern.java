@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.vanity;
+
+import org.ethereumkeyj.core.cryptohash.Keccak256;
+
+/**
+ * Prefix and/or suffix an address must have, written in hex without the "0x".
+ *
+ * <p>When case is matched, letters must also have the case they get in the EIP-55 checksummed address, which
+ * makes every letter in the pattern twice as expensive to find. Otherwise any case is accepted.</p>
+ *
+ * <p>Instances are immutable; {@link #matches(byte[], Scratch)} needs a per-thread {@link Scratch} so that the
+ * check itself does not allocate.</p>
+ */
+public final class VanityPattern
+{
+
+  private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+  private final String prefix;
+  private final String suffix;
+  private final boolean matchCase;
+  private final byte[] prefixNibbles;
+  private final byte[] suffixNibbles;
+  private final boolean hasCasedLetters;
+
+  public VanityPattern(String prefix, String suffix, boolean matchCase)
+  {
+    this.prefix = prefix == null ? "" : prefix;
+    this.suffix = suffix == null ? "" : suffix;
+    if(this.prefix.length() + this.suffix.length() > 40)
+    {
+      throw new IllegalArgumentException("Pattern longer than an address");
+    }
+    this.matchCase = matchCase;
+    this.prefixNibbles = nibbles(this.prefix);
+    this.suffixNibbles = nibbles(this.suffix);
+    this.hasCasedLetters = matchCase && (hasLetter(this.prefix) || hasLetter(this.suffix));
+  }
+
+  public static VanityPattern prefix(String prefix)
+  {
+    return new VanityPattern(prefix, null, false);
+  }
+
+  public static VanityPattern suffix(String suffix)
+  {
+    return new VanityPattern(null, suffix, false);
+  }
+
+  private static byte[] nibbles(String pattern)
+  {
+    byte[] nibbles = new byte[pattern.length()];
+    for(int i = 0; i < nibbles.length; i++)
+    {
+      int digit = Character.digit(pattern.charAt(i), 16);
+      if(digit < 0)
+      {
+        throw new IllegalArgumentException("Not a hex pattern: " + pattern);
+      }
+      nibbles[i] = (byte) digit;
+    }
+    return nibbles;
+  }
+
+  private static boolean hasLetter(String pattern)
+  {
+    for(int i = 0; i < pattern.length(); i++)
+    {
+      if(Character.isLetter(pattern.charAt(i)))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Expected number of keys to try before finding a match.
+   *
+   * @return 16 per pattern character, times 2 per letter whose case must match
+   */
+  public double getDifficulty()
+  {
+    double difficulty = Math.pow(16, prefixNibbles.length + suffixNibbles.length);
+    if(matchCase)
+    {
+      for(char c : (prefix + suffix).toCharArray())
+      {
+        if(Character.isLetter(c))
+        {
+          difficulty *= 2;
+        }
+      }
+    }
+    return difficulty;
+  }
+
+  /**
+   * @param address 20-byte address
+   * @param scratch buffers owned by the calling thread
+   * @return true if the address matches
+   */
+  public boolean matches(byte[] address, Scratch scratch)
+  {
+    for(int i = 0; i < prefixNibbles.length; i++)
+    {
+      if(nibble(address, i) != prefixNibbles[i])
+      {
+        return false;
+      }
+    }
+    int suffixStart = 40 - suffixNibbles.length;
+    for(int i = 0; i < suffixNibbles.length; i++)
+    {
+      if(nibble(address, suffixStart + i) != suffixNibbles[i])
+      {
+        return false;
+      }
+    }
+    if(!hasCasedLetters)
+    {
+      return true;
+    }
+
+    // EIP-55: a letter is upper case when the matching nibble of keccak(lowercase hex address) is >= 8
+    byte[] ascii = scratch.ascii;
+    for(int i = 0; i < 40; i++)
+    {
+      ascii[i] = HEX[nibble(address, i)];
+    }
+    Keccak256.hash(ascii, 0, 40, scratch.hash, 0);
+    return caseMatches(prefix, 0, scratch.hash) && caseMatches(suffix, suffixStart, scratch.hash);
+  }
+
+  private static boolean caseMatches(String pattern, int start, byte[] hash)
+  {
+    for(int i = 0; i < pattern.length(); i++)
+    {
+      char c = pattern.charAt(i);
+      if(Character.isLetter(c) && Character.isUpperCase(c) != (nibble(hash, start + i) >= 8))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int nibble(byte[] data, int index)
+  {
+    int b = data[index >>> 1];
+    return (index & 1) == 0 ? (b >>> 4) & 0xf : b & 0xf;
+  }
+
+  public String getPrefix()
+  {
+    return prefix;
+  }
+
+  public String getSuffix()
+  {
+    return suffix;
+  }
+
+  public boolean isMatchCase()
+  {
+    return matchCase;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "0x" + prefix + "..." + suffix + (matchCase ? " (case sensitive)" : "");
+  }
+
+  /**
+   * Per-thread buffers for {@link #matches(byte[], Scratch)}.
+   */
+  public static final class Scratch
+  {
+
+    final byte[] ascii = new byte[40];
+    final byte[] hash = new byte[32];
+  }
+}
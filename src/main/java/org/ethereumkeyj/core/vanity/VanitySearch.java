@@ -0,0 +1,323 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.vanity;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.ethereumkeyj.core.Wallet;
+import org.ethereumkeyj.core.cryptohash.Keccak256;
+import org.ethereumkeyj.core.jce.ECKey;
+import org.ethereumkeyj.core.util.ByteUtil;
+
+/**
+ * Multi-threaded search for a key whose address matches a {@link VanityPattern}.
+ *
+ * <p>Each worker picks a random starting key {@code d} and walks {@code d, d + 1, d + 2, ...}. The matching
+ * public keys are obtained by adding the generator to the previous point (one mixed addition) instead of a
+ * full scalar multiplication, a batch of such points is converted to affine form with a single shared field
+ * inversion, and each address is hashed into reused buffers. Only a match is turned into a {@link Wallet}.</p>
+ *
+ * <pre>
+ * VanitySearch search = new VanitySearch(VanityPattern.prefix("cafe"));
+ * search.setProgressListener((keys, keysPerSecond) -&gt; log.info("{} keys, {}/s", keys, keysPerSecond), 10, TimeUnit.SECONDS);
+ * search.start();
+ * Wallet wallet = search.await();
+ * </pre>
+ */
+public class VanitySearch
+{
+
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  /**
+   * Receives periodic progress reports on a background thread.
+   */
+  public interface ProgressListener
+  {
+
+    /**
+     * @param keysChecked total keys checked so far
+     * @param keysPerSecond throughput over the last reporting interval
+     */
+    void onProgress(long keysChecked, double keysPerSecond);
+  }
+
+  private final VanityPattern pattern;
+  private final int threads;
+  private final int batchSize;
+  private final SecureRandom random = new SecureRandom();
+
+  private final CompletableFuture<Wallet> result = new CompletableFuture<>();
+  private final LongAdder keysChecked = new LongAdder();
+  private volatile boolean started;
+  private volatile long startNanos;
+
+  private ProgressListener progressListener;
+  private long progressIntervalNanos;
+  private ScheduledExecutorService progressExecutor;
+
+  public VanitySearch(VanityPattern pattern)
+  {
+    this(pattern, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * @param pattern the pattern to look for
+   * @param threads number of worker threads
+   * @param batchSize points normalized together; larger batches amortize the field inversion further
+   */
+  public VanitySearch(VanityPattern pattern, int threads, int batchSize)
+  {
+    if(threads < 1 || batchSize < 1)
+    {
+      throw new IllegalArgumentException("threads and batchSize must be positive");
+    }
+    this.pattern = pattern;
+    this.threads = threads;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Blocking convenience: searches on all cores until a match is found.
+   *
+   * @param pattern the pattern to look for
+   * @return the matching wallet
+   * @throws InterruptedException if the calling thread is interrupted, in which case the search is cancelled
+   */
+  public static Wallet find(VanityPattern pattern) throws InterruptedException
+  {
+    VanitySearch search = new VanitySearch(pattern);
+    search.start();
+    return search.await();
+  }
+
+  /**
+   * Registers a listener called every {@code interval} while the search runs. Must be called before
+   * {@link #start()}.
+   */
+  public synchronized void setProgressListener(ProgressListener listener, long interval, TimeUnit unit)
+  {
+    if(started)
+    {
+      throw new IllegalStateException("Search already started");
+    }
+    this.progressListener = listener;
+    this.progressIntervalNanos = unit.toNanos(interval);
+  }
+
+  /**
+   * Starts the worker threads. A search can only be started once.
+   */
+  public synchronized void start()
+  {
+    if(started)
+    {
+      throw new IllegalStateException("Search already started");
+    }
+    started = true;
+    startNanos = System.nanoTime();
+    for(int i = 0; i < threads; i++)
+    {
+      Thread worker = new Thread(this::search, "vanity-search-" + i);
+      worker.setDaemon(true);
+      worker.start();
+    }
+    if(progressListener != null)
+    {
+      startProgressReporting();
+    }
+    result.whenComplete((wallet, error) -> stopProgressReporting());
+  }
+
+  private void startProgressReporting()
+  {
+    progressExecutor = Executors.newSingleThreadScheduledExecutor(r ->
+    {
+      Thread thread = new Thread(r, "vanity-search-progress");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long[] last = {0, startNanos};
+    progressExecutor.scheduleAtFixedRate(() ->
+    {
+      long keys = keysChecked.sum();
+      long now = System.nanoTime();
+      double rate = (keys - last[0]) * 1e9 / Math.max(1, now - last[1]);
+      last[0] = keys;
+      last[1] = now;
+      progressListener.onProgress(keys, rate);
+    }, progressIntervalNanos, progressIntervalNanos, TimeUnit.NANOSECONDS);
+  }
+
+  private synchronized void stopProgressReporting()
+  {
+    if(progressExecutor != null)
+    {
+      progressExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Stops the search. {@link #await()} then returns null unless a match was already found.
+   */
+  public void cancel()
+  {
+    result.complete(null);
+  }
+
+  public boolean isDone()
+  {
+    return result.isDone();
+  }
+
+  /**
+   * Waits for the search to finish.
+   *
+   * @return the matching wallet, or null if the search was cancelled
+   * @throws InterruptedException if the calling thread is interrupted, in which case the search is cancelled
+   */
+  public Wallet await() throws InterruptedException
+  {
+    try
+    {
+      return result.get();
+    }
+    catch(InterruptedException ex)
+    {
+      cancel();
+      throw ex;
+    }
+    catch(ExecutionException ex)
+    {
+      throw new IllegalStateException("Vanity search failed", ex.getCause());
+    }
+  }
+
+  /**
+   * Waits at most the given time for the search to finish. The search keeps running after a timeout.
+   *
+   * @return the matching wallet, or null if the search was cancelled
+   */
+  public Wallet await(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException
+  {
+    try
+    {
+      return result.get(timeout, unit);
+    }
+    catch(ExecutionException ex)
+    {
+      throw new IllegalStateException("Vanity search failed", ex.getCause());
+    }
+  }
+
+  public long getKeysChecked()
+  {
+    return keysChecked.sum();
+  }
+
+  /**
+   * @return average throughput since {@link #start()}
+   */
+  public double getKeysPerSecond()
+  {
+    if(!started)
+    {
+      return 0;
+    }
+    return keysChecked.sum() * 1e9 / Math.max(1, System.nanoTime() - startNanos);
+  }
+
+  public VanityPattern getPattern()
+  {
+    return pattern;
+  }
+
+  private void search()
+  {
+    try
+    {
+      ECCurve curve = ECKey.CURVE.getCurve();
+      BigInteger n = ECKey.CURVE.getN();
+      ECPoint g = ECKey.CURVE.getG();
+
+      ECPoint[] points = new ECPoint[batchSize];
+      byte[] pubBytes = new byte[64];
+      byte[] address = new byte[20];
+      VanityPattern.Scratch scratch = new VanityPattern.Scratch();
+
+      BigInteger start = randomKey(n);
+      ECPoint next = ECKey.fromPrivate(start).getPubKeyPoint();
+      while(!result.isDone())
+      {
+        points[0] = next;
+        for(int i = 1; i < batchSize; i++)
+        {
+          points[i] = points[i - 1].add(g);
+        }
+        curve.normalizeAll(points);
+        for(int i = 0; i < batchSize; i++)
+        {
+          ECPoint point = points[i];
+          if(point.isInfinity())
+          {
+            continue;
+          }
+          copyCoordinate(point.getAffineXCoord().getEncoded(), pubBytes, 0);
+          copyCoordinate(point.getAffineYCoord().getEncoded(), pubBytes, 32);
+          Keccak256.hashOmit12(pubBytes, 0, 64, address, 0);
+          if(pattern.matches(address, scratch))
+          {
+            BigInteger priv = start.add(BigInteger.valueOf(i)).mod(n);
+            result.complete(Wallet.loadFromPrivate(ByteUtil.toHexString(ByteUtil.bigIntegerToBytes(priv, 32))));
+            return;
+          }
+        }
+        keysChecked.add(batchSize);
+        next = points[batchSize - 1].add(g);
+        start = start.add(BigInteger.valueOf(batchSize));
+      }
+    }
+    catch(RuntimeException | Error ex)
+    {
+      result.completeExceptionally(ex);
+    }
+  }
+
+  private BigInteger randomKey(BigInteger n)
+  {
+    BigInteger key;
+    do
+    {
+      key = new BigInteger(n.bitLength(), random);
+    }
+    while(key.signum() == 0 || key.compareTo(n) >= 0);
+    return key;
+  }
+
+  private static void copyCoordinate(byte[] coordinate, byte[] dest, int offset)
+  {
+    System.arraycopy(coordinate, 0, dest, offset + 32 - coordinate.length, coordinate.length);
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.ethereumkeyj.core.util.ByteUtil;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class TestNonceManager
+{
+
+  private static final String ADDRESS = "0x718863e4fFC6D9CC4c40ba6ABE6EE5A2ec5a395c";
+
+  @Test
+  public void testConcurrentAcquire() throws Exception
+  {
+    NonceManager nonces = new NonceManager();
+    nonces.reset(ADDRESS, 100);
+    ConcurrentLinkedQueue<Long> assigned = new ConcurrentLinkedQueue<>();
+    List<Thread> threads = new ArrayList<>();
+    for(int t = 0; t < 4; t++)
+    {
+      Thread thread = new Thread(() ->
+      {
+        for(int i = 0; i < 1000; i++)
+        {
+          // mixed spellings of the same address share one counter
+          assigned.add(nonces.acquire(i % 2 == 0 ? ADDRESS : ADDRESS.toLowerCase()));
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for(Thread thread : threads)
+    {
+      thread.join();
+    }
+    assertEquals(4100, nonces.getNextNonce(ADDRESS));
+    assertEquals(4000, assigned.stream().distinct().count());
+  }
+
+  @Test
+  public void testRollbackAndGaps()
+  {
+    NonceManager nonces = new NonceManager();
+    for(int i = 0; i < 5; i++)
+    {
+      assertEquals(i, nonces.acquire(ADDRESS));
+    }
+    nonces.release(ADDRESS, 4);
+    assertEquals(4, nonces.getNextNonce(ADDRESS));
+
+    nonces.release(ADDRESS, 1);
+    nonces.release(ADDRESS, 2);
+    assertArrayEquals(new long[]{1, 2}, nonces.getGaps(ADDRESS));
+    // the gaps are filled first, lowest first
+    assertEquals(1, nonces.acquire(ADDRESS));
+    assertEquals(2, nonces.acquire(ADDRESS));
+    assertEquals(4, nonces.acquire(ADDRESS));
+
+    // releasing the top nonce also rolls back over the gap below it
+    nonces.release(ADDRESS, 3);
+    nonces.release(ADDRESS, 4);
+    assertEquals(3, nonces.getNextNonce(ADDRESS));
+    assertEquals(0, nonces.getGaps(ADDRESS).length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReleaseUnassigned()
+  {
+    NonceManager nonces = new NonceManager();
+    nonces.acquire(ADDRESS);
+    nonces.release(ADDRESS, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReleaseTwice()
+  {
+    NonceManager nonces = new NonceManager();
+    nonces.acquire(ADDRESS);
+    nonces.acquire(ADDRESS);
+    nonces.release(ADDRESS, 0);
+    nonces.release(ADDRESS, 0);
+  }
+
+  @Test
+  public void testReleaseAfterReset()
+  {
+    NonceManager nonces = new NonceManager();
+    for(int i = 0; i < 5; i++)
+    {
+      nonces.acquire(ADDRESS);
+    }
+    // the node has seen nonces 0 to 6, e.g. from another client
+    nonces.reset(ADDRESS, 7);
+    for(long stale = 0; stale < 5; stale++)
+    {
+      try
+      {
+        nonces.release(ADDRESS, stale);
+        fail("released a nonce from before the reset");
+      }
+      catch(IllegalArgumentException e)
+      {
+        // expected
+      }
+    }
+    assertEquals(0, nonces.getGaps(ADDRESS).length);
+    assertEquals(7, nonces.acquire(ADDRESS));
+    nonces.acquire(ADDRESS);
+    nonces.release(ADDRESS, 7);
+    assertEquals(7, nonces.acquire(ADDRESS));
+  }
+
+  @Test
+  public void testTransactionBuilder()
+  {
+    NonceManager nonces = new NonceManager();
+    Wallet from = Wallet.loadFromAddress(ADDRESS);
+    Wallet to = Wallet.loadFromAddress("0x0000000000000000000000000000000000000001");
+    nonces.reset(from.getAddress(), 0x1234);
+    for(long expected : new long[]{0x1234, 0x1235})
+    {
+      Transaction managed = TransactionBuilder.create(nonces, from, to, BigInteger.ONE, null,
+              Settings.GAS_PRICE, Settings.GAS_LIMIT, Settings.ROPSPTEN);
+      Transaction explicit = TransactionBuilder.create(to, BigInteger.ONE, BigInteger.valueOf(expected), null,
+              Settings.GAS_PRICE, Settings.GAS_LIMIT, Settings.ROPSPTEN);
+      assertArrayEquals(explicit.getEncoded(), managed.getEncoded());
+    }
+    DynamicFeeTransaction typed = TransactionBuilder.createDynamicFee(nonces, from, to, BigInteger.ONE, null,
+            BigInteger.ONE, Settings.GAS_PRICE, Settings.GAS_LIMIT, Settings.ROPSPTEN, null);
+    assertEquals(0x1236, new BigInteger(1, typed.getNonce()).longValue());
+  }
+
+  @Test
+  public void testLongToBytesNoLeadZeroes()
+  {
+    assertEquals(0, ByteUtil.longToBytesNoLeadZeroes(0).length);
+    assertArrayEquals(new byte[]{1}, ByteUtil.longToBytesNoLeadZeroes(1));
+    assertArrayEquals(new byte[]{1, 0}, ByteUtil.longToBytesNoLeadZeroes(256));
+    assertArrayEquals(ByteUtil.longToBytes(-1), ByteUtil.longToBytesNoLeadZeroes(-1));
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class TestSigningService
+{
+
+  private static final Wallet FROM = Wallet.loadFromPrivate(
+          "d20486c9ab8fdfff4d4645563b9ef617d7c69e23d3ded425bf1391acb93b6696");
+  private static final Wallet TO = Wallet.loadFromAddress("0x718863e4fFC6D9CC4c40ba6ABE6EE5A2ec5a395c");
+
+  private static Transaction newTransaction(int nonce)
+  {
+    return TransactionBuilder.create(TO, BigInteger.ONE, BigInteger.valueOf(nonce), null,
+            Settings.GAS_PRICE, Settings.GAS_LIMIT, Settings.ROPSPTEN);
+  }
+
+  @Test
+  public void testSignsLikeWallet() throws Exception
+  {
+    try(SigningService service = new SigningService(2, 16))
+    {
+      service.addAccount(FROM);
+      List<CompletableFuture<byte[]>> results = new ArrayList<>();
+      for(int i = 0; i < 20; i++)
+      {
+        results.add(service.submit(FROM.getAddress().toLowerCase(), newTransaction(i)));
+      }
+      DynamicFeeTransaction typed = TransactionBuilder.createDynamicFee(TO, BigInteger.ONE, BigInteger.ONE, null,
+              BigInteger.ONE, Settings.GAS_PRICE, Settings.GAS_LIMIT, Settings.ROPSPTEN, null);
+      byte[] typedRaw = service.submit(FROM.getAddress(), typed).get(10, TimeUnit.SECONDS);
+
+      for(int i = 0; i < results.size(); i++)
+      {
+        Transaction expected = newTransaction(i);
+        expected.sign(FROM);
+        assertArrayEquals(expected.getEncoded(), results.get(i).get(10, TimeUnit.SECONDS));
+      }
+      DynamicFeeTransaction expectedTyped = TransactionBuilder.createDynamicFee(TO, BigInteger.ONE, BigInteger.ONE,
+              null, BigInteger.ONE, Settings.GAS_PRICE, Settings.GAS_LIMIT, Settings.ROPSPTEN, null);
+      expectedTyped.sign(FROM);
+      assertArrayEquals(expectedTyped.getEncoded(), typedRaw);
+
+      assertEquals(21, service.getSubmittedCount());
+      assertEquals(21, service.getSignedCount());
+      assertEquals(21, service.getLatency().getCount());
+      assertTrue(service.getLatency().getPercentile(99) >= service.getLatency().getPercentile(50));
+    }
+  }
+
+  @Test
+  public void testBackpressure() throws Exception
+  {
+    SigningService service = new SigningService(1, 1);
+    service.addAccount(FROM);
+    // hold the only worker so that the queue fills up
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Transaction blocking = new Transaction(newTransaction(0).getEncoded())
+    {
+      @Override
+      public byte[] getHash()
+      {
+        started.countDown();
+        try
+        {
+          release.await();
+        }
+        catch(InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+        return super.getHash();
+      }
+    };
+    CompletableFuture<byte[]> first = service.submit(FROM.getAddress(), blocking);
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    CompletableFuture<byte[]> queued = service.trySubmit(FROM.getAddress(), newTransaction(1), 0, TimeUnit.SECONDS);
+    try
+    {
+      service.trySubmit(FROM.getAddress(), newTransaction(2), 10, TimeUnit.MILLISECONDS);
+      fail("queue is full");
+    }
+    catch(RejectedExecutionException e)
+    {
+      assertEquals(1, service.getRejectedCount());
+    }
+    release.countDown();
+    service.close();
+    assertTrue(first.isDone());
+    assertTrue(queued.isDone());
+    assertEquals(2, service.getSignedCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownAccount() throws Exception
+  {
+    try(SigningService service = new SigningService(1))
+    {
+      service.submit(TO.getAddress(), newTransaction(0));
+    }
+  }
+
+  @Test
+  public void testErrorCompletesFuture() throws Exception
+  {
+    try(SigningService service = new SigningService(1))
+    {
+      service.addAccount(FROM);
+      Transaction failing = new Transaction(newTransaction(0).getEncoded())
+      {
+        @Override
+        public byte[] getHash()
+        {
+          throw new AssertionError("broken transaction");
+        }
+      };
+      CompletableFuture<byte[]> result = service.submit(FROM.getAddress(), failing);
+      try
+      {
+        result.get(10, TimeUnit.SECONDS);
+        fail("signing threw");
+      }
+      catch(ExecutionException e)
+      {
+        assertTrue(e.getCause() instanceof AssertionError);
+      }
+      // the worker survived
+      assertEquals(1, service.getFailedCount());
+      assertTrue(service.submit(FROM.getAddress(), newTransaction(1)).get(10, TimeUnit.SECONDS).length > 0);
+    }
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void testShutdown() throws Exception
+  {
+    SigningService service = new SigningService(1);
+    service.addAccount(FROM);
+    service.shutdown();
+    service.submit(FROM.getAddress(), newTransaction(0));
+  }
+}
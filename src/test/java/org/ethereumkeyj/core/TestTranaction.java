@@ -16,10 +16,16 @@
 package org.ethereumkeyj.core;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import org.bouncycastle.util.encoders.Hex;
+import org.ethereumkeyj.core.jce.ECKey;
 import org.ethereumkeyj.core.util.ByteUtil;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -73,5 +79,100 @@ public class TestTranaction
     //https://ropsten.etherscan.io/tx/0x8d22dd92542c47053d095a4e3509523da035c978f507b4303751bab859518f99
     assertEquals("8d22dd92542c47053d095a4e3509523da035c978f507b4303751bab859518f99", Hex.toHexString(transaction.getHash()));
   }
-  
+
+  private static final String SIGNED = "f86c8085012a05f20082520894718863e4ffc6d9cc4c40ba6abe6ee5a2ec5a395c880de0b6b3a7640000802aa0ad1c2dba8fe9737ca996404d38f1579adb949c4fe81115d53c3cad0753015a9ba028fe692859afa6fa72fbcd687af96c366fc31a7e0ac2a6ab61336ae10f3adf7c";
+
+  @Test
+  public void testRawTransaction()
+  {
+    byte[] raw = Hex.decode(SIGNED);
+    Transaction transaction = new Transaction(raw);
+    // no decode or re-encode needed for the hash
+    assertSame(raw, transaction.getEncoded());
+    assertEquals("8d22dd92542c47053d095a4e3509523da035c978f507b4303751bab859518f99", Hex.toHexString(transaction.getHash()));
+    assertSame(transaction.getHash(), transaction.getHash());
+
+    assertEquals(0, transaction.getNonce().length);
+    assertEquals("012a05f200", Hex.toHexString(transaction.getGasPrice()));
+    assertEquals("5208", Hex.toHexString(transaction.getGasLimit()));
+    assertEquals("718863e4ffc6d9cc4c40ba6abe6ee5a2ec5a395c", Hex.toHexString(transaction.getReceiveAddress()));
+    assertEquals("0de0b6b3a7640000", Hex.toHexString(transaction.getValue()));
+    assertEquals(0, transaction.getData().length);
+    assertEquals(Settings.ROPSPTEN, transaction.getChainId());
+    assertEquals(0x2a, transaction.getSignature().v);
+    assertEquals(new BigInteger("ad1c2dba8fe9737ca996404d38f1579adb949c4fe81115d53c3cad0753015a9b", 16), transaction.getSignature().r);
+
+    // changing a field drops the cached encoding and hash
+    transaction.setNonce(new byte[]{1});
+    assertNotEquals(SIGNED, Hex.toHexString(transaction.getEncoded()));
+    assertNotEquals("8d22dd92542c47053d095a4e3509523da035c978f507b4303751bab859518f99", Hex.toHexString(transaction.getHash()));
+    transaction.setNonce(new byte[0]);
+    assertEquals(SIGNED, Hex.toHexString(transaction.getEncoded()));
+  }
+
+  @Test
+  public void testSignRawTransaction()
+  {
+    Wallet fromWallet = Wallet.loadFromPrivate("d20486c9ab8fdfff4d4645563b9ef617d7c69e23d3ded425bf1391acb93b6696");
+    Transaction transaction = new Transaction(Hex.decode("ec8085012a05f20082520894718863e4ffc6d9cc4c40ba6abe6ee5a2ec5a395c880de0b6b3a764000080038080"));
+    assertEquals(Settings.ROPSPTEN, transaction.getChainId());
+    assertNull(transaction.getSignature());
+    transaction.sign(fromWallet);
+    assertEquals(SIGNED, Hex.toHexString(transaction.getEncoded()));
+    // signing again signs the unsigned preimage, not the signed encoding
+    transaction.sign(fromWallet);
+    assertEquals(SIGNED, Hex.toHexString(transaction.getEncoded()));
+  }
+
+  @Test
+  public void testLargeChainId() throws Exception
+  {
+    Wallet fromWallet = Wallet.loadFromPrivate("d20486c9ab8fdfff4d4645563b9ef617d7c69e23d3ded425bf1391acb93b6696");
+    Transaction transaction = new Transaction(new byte[0], Hex.decode("012a05f200"), Hex.decode("5208"),
+            Hex.decode("718863e4ffc6d9cc4c40ba6abe6ee5a2ec5a395c"), Hex.decode("0de0b6b3a7640000"), new byte[0], 137);
+    transaction.sign(fromWallet);
+    int v = transaction.getV();
+    // v = 137 * 2 + 35 + recId
+    assertTrue(v == 309 || v == 310);
+    byte[] signed = transaction.getEncoded();
+
+    Transaction parsed = new Transaction(signed.clone());
+    assertEquals(137, parsed.getChainId());
+    assertEquals(v, parsed.getV());
+    assertEquals(v - 282, parsed.getSignature().v);
+    parsed.setNonce(new byte[0]);
+    assertArrayEquals(signed, parsed.getEncoded());
+
+    // the sender is recovered from the signing preimage, which has the chain id in place of v
+    Transaction preimage = new Transaction(new byte[0], Hex.decode("012a05f200"), Hex.decode("5208"),
+            Hex.decode("718863e4ffc6d9cc4c40ba6abe6ee5a2ec5a395c"), Hex.decode("0de0b6b3a7640000"), new byte[0], 137);
+    byte[] address = ECKey.signatureToAddress(preimage.getHash(), parsed.getSignature());
+    assertEquals(fromWallet.getAddress().substring(2).toLowerCase(), Hex.toHexString(address));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRawTransactionNotAList()
+  {
+    new Transaction(Hex.decode("8180"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRawTransactionMissingFields()
+  {
+    new Transaction(Hex.decode("c3808080")).getNonce();
+  }
+
+  @Test
+  public void testWriteEncoded()
+  {
+    Wallet fromWallet = Wallet.loadFromPrivate("d20486c9ab8fdfff4d4645563b9ef617d7c69e23d3ded425bf1391acb93b6696");
+    Transaction transaction = new Transaction(Hex.decode(SIGNED));
+    transaction.setData(new byte[100]);
+    transaction.sign(fromWallet);
+    ByteBuffer buffer = ByteBuffer.allocate(transaction.getEncodedLength());
+    transaction.writeEncoded(buffer);
+    assertFalse(buffer.hasRemaining());
+    assertArrayEquals(transaction.getEncoded(), buffer.array());
+    assertArrayEquals(transaction.getEncoded(), new Transaction(buffer.array()).getEncoded());
+  }
 }
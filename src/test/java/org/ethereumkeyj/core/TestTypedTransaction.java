@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class TestTypedTransaction
+{
+
+  private static final String PRIVATE_KEY = "d20486c9ab8fdfff4d4645563b9ef617d7c69e23d3ded425bf1391acb93b6696";
+  private static final Wallet TO = Wallet.loadFromAddress("0x718863e4fFC6D9CC4c40ba6ABE6EE5A2ec5a395c");
+
+  private static final String SIGNED_TYPE_2 = "02f8730109847735940085174876e80082520894718863e4ffc6d9cc4c40ba6abe6ee5a2ec5a395c880de0b6b3a764000080c001a00202f6889d3f7b44177757e1de6741b3803d95de32ec78340f4e3928251f2880a023d96205fcfbc85ee7e1bff8b1010cda543037e360698ab379d6ea1e4fc23c34";
+  private static final String SIGNED_TYPE_1 = "01f8e2038085012a05f200830186a094718863e4ffc6d9cc4c40ba6abe6ee5a2ec5a395c880de0b6b3a764000080f872f85994de0b295669a9fd93d5f28d9ec85e40f4cb697baef842a00000000000000000000000000000000000000000000000000000000000000003a00000000000000000000000000000000000000000000000000000000000000007d694bb9bc244d798123fde783fcc1c72d3bb8c189413c080a0090f25ffd24b089e387ed5d7b3d242dccc7ef1a82183ad5bfffba7f147be1d25a04dbd620ca51e6f21eec0d9f88fb1d7fa62f981430691d0225a43dc4e94a73087";
+
+  private static void checkEncoding(TypedTransaction transaction, String expected)
+  {
+    transaction.sign(Wallet.loadFromPrivate(PRIVATE_KEY));
+    assertEquals(expected, Hex.toHexString(transaction.getEncoded()));
+    ByteBuffer buffer = ByteBuffer.allocate(transaction.getEncodedLength());
+    transaction.writeEncoded(buffer);
+    assertArrayEquals(transaction.getEncoded(), buffer.array());
+  }
+
+  @Test
+  public void testDynamicFee()
+  {
+    DynamicFeeTransaction transaction = TransactionBuilder.createDynamicFee(TO, new BigInteger("1000000000000000000"),
+            BigInteger.valueOf(9), null, new BigInteger("2000000000"), new BigInteger("100000000000"),
+            BigInteger.valueOf(21000), Settings.ETHEREUM_MAINNET, null);
+    assertEquals(2, transaction.getType());
+    checkEncoding(transaction, SIGNED_TYPE_2);
+  }
+
+  @Test
+  public void testAccessList()
+  {
+    byte[] keys = new byte[64];
+    keys[31] = 3;
+    keys[63] = 7;
+    AccessList accessList = new AccessList()
+            .add(Hex.decode("de0b295669a9fd93d5f28d9ec85e40f4cb697bae"), keys, 0, 2)
+            .add(Hex.decode("bb9bc244d798123fde783fcc1c72d3bb8c189413"));
+    AccessListTransaction transaction = TransactionBuilder.createAccessList(TO, new BigInteger("1000000000000000000"),
+            null, null, new BigInteger("5000000000"), BigInteger.valueOf(100000), Settings.ROPSPTEN, accessList);
+    assertEquals(1, transaction.getType());
+    checkEncoding(transaction, SIGNED_TYPE_1);
+
+    // the same keys as separate arrays encode identically
+    AccessList separate = new AccessList()
+            .add(Hex.decode("de0b295669a9fd93d5f28d9ec85e40f4cb697bae"),
+                    Arrays.copyOfRange(keys, 0, 32), Arrays.copyOfRange(keys, 32, 64))
+            .add(Hex.decode("bb9bc244d798123fde783fcc1c72d3bb8c189413"));
+    checkEncoding(TransactionBuilder.createAccessList(TO, new BigInteger("1000000000000000000"), null, null,
+            new BigInteger("5000000000"), BigInteger.valueOf(100000), Settings.ROPSPTEN, separate), SIGNED_TYPE_1);
+  }
+
+  @Test
+  public void testAccessListSnapshot()
+  {
+    AccessList accessList = new AccessList().add(Hex.decode("de0b295669a9fd93d5f28d9ec85e40f4cb697bae"));
+    AccessListTransaction transaction = TransactionBuilder.createAccessList(TO, new BigInteger("1000000000000000000"),
+            null, null, new BigInteger("5000000000"), BigInteger.valueOf(100000), Settings.ROPSPTEN, accessList);
+    byte[] encoded = transaction.getEncoded();
+    accessList.add(Hex.decode("bb9bc244d798123fde783fcc1c72d3bb8c189413"));
+    assertEquals(1, transaction.getAccessList().size());
+    assertSame(encoded, transaction.getEncoded());
+    assertArrayEquals(encoded, TransactionBuilder.createAccessList(TO, new BigInteger("1000000000000000000"), null,
+            null, new BigInteger("5000000000"), BigInteger.valueOf(100000), Settings.ROPSPTEN,
+            new AccessList().add(Hex.decode("de0b295669a9fd93d5f28d9ec85e40f4cb697bae"))).getEncoded());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testTransactionAccessListReadOnly()
+  {
+    TransactionBuilder.createAccessList(TO, BigInteger.ONE, null, null, new BigInteger("5000000000"),
+            BigInteger.valueOf(100000), Settings.ROPSPTEN, new AccessList()).getAccessList().add(new byte[20]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAccessListKeyLength()
+  {
+    new AccessList().add(new byte[20], new byte[31]);
+  }
+}
@@ -16,11 +16,15 @@
 package org.ethereumkeyj.core;
 
 import java.util.regex.Pattern;
+import org.bouncycastle.util.encoders.Hex;
+import org.ethereumkeyj.core.jce.ECKey;
+import org.ethereumkeyj.core.util.HashUtil;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import org.junit.Test;
 
 public class TestWallet
@@ -85,4 +89,58 @@ public class TestWallet
     assertEquals("04d3bd3d61cd78318e94b141f4fbcab9af875f7eb7dac0e97d7245b3ecdf000282f040d1aef926c6cfa4687847ae03169f06ecddaa7833de668c08c7a91c19d886", newWAllet.getPublicKey());
     assertEquals("0x6f5b635F45b745AD2cb5FA42A986259f1A0534DF", newWAllet.getAddress());
   }
+
+  @Test
+  public void testRetainedKey()
+  {
+    Wallet wallet = Wallet.loadFromPrivate("0c276dea6126fc41da8303d13f53fdbf4c5b69c8a0cbe8526a8f56483f1b51e5");
+    assertTrue(wallet.getKey().hasPrivKey());
+    assertSame(wallet.getPrivateKey(), wallet.getPrivateKey());
+
+    byte[] hash = HashUtil.sha3(new byte[]{1, 2, 3});
+    assertEquals(ECKey.fromPrivate(Hex.decode(wallet.getPrivateKey())).sign(hash), wallet.sign(hash));
+
+    assertFalse(Wallet.loadFromPublic(wallet.getPublicKey()).getKey().hasPrivKey());
+    assertNull(Wallet.loadFromAddress(wallet.getAddress()).getKey());
+  }
+
+  @Test(expected = ECKey.MissingPrivateKeyException.class)
+  public void testSignWithoutKey()
+  {
+    Wallet.loadFromAddress("0x6f5b635F45b745AD2cb5FA42A986259f1A0534DF").sign(new byte[32]);
+  }
+
+  @Test
+  public void testLazyDerivation() throws Exception
+  {
+    Wallet wallet = Wallet.newWallet();
+    byte[] hash = HashUtil.sha3(new byte[]{4, 5, 6});
+    // signing works from the scalar before anything is derived
+    ECKey.ECDSASignature signature = wallet.sign(hash);
+    assertEquals(ECKey.fromPrivate(Hex.decode(wallet.getPrivateKey())).sign(hash), signature);
+
+    String[] addresses = new String[4];
+    Thread[] threads = new Thread[addresses.length];
+    for(int i = 0; i < threads.length; i++)
+    {
+      int index = i;
+      threads[i] = new Thread(() -> addresses[index] = wallet.getAddress());
+      threads[i].start();
+    }
+    for(Thread thread : threads)
+    {
+      thread.join();
+    }
+    for(String address : addresses)
+    {
+      assertEquals(Wallet.loadFromPrivate(wallet.getPrivateKey()).getAddress(), address);
+    }
+    assertSame(wallet.getKey(), wallet.getKey());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPrivateKeyOutOfRange()
+  {
+    Wallet.loadFromPrivate("fffffffffffffffffffffffffffffffebaaedce6af48a03bbfd25e8cd0364141");
+  }
 }
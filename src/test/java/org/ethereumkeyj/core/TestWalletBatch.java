@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.ethereumkeyj.core.util.ByteUtil;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class TestWalletBatch
+{
+
+  @Test
+  public void testMatchesSingleLoad()
+  {
+    Random random = new Random(7);
+    List<byte[]> keys = new ArrayList<>();
+    keys.add(ByteUtil.hexStringToBytes("0c276dea6126fc41da8303d13f53fdbf4c5b69c8a0cbe8526a8f56483f1b51e5"));
+    keys.add(ByteUtil.hexStringToBytes("0000000000000000000000000000000000000000000000000000000000000001"));
+    for(int i = 0; i < 300; i++)
+    {
+      byte[] key = new byte[32];
+      random.nextBytes(key);
+      key[0] &= 0x7f;
+      keys.add(key);
+    }
+
+    List<Wallet> wallets = WalletBatch.loadFromPrivate(keys);
+    assertEquals(keys.size(), wallets.size());
+    assertEquals("0x6f5b635F45b745AD2cb5FA42A986259f1A0534DF", wallets.get(0).getAddress());
+    for(int i = 0; i < keys.size(); i++)
+    {
+      Wallet expected = Wallet.loadFromPrivate(ByteUtil.toHexString(keys.get(i)));
+      assertEquals(expected.getAddress(), wallets.get(i).getAddress());
+      assertEquals(expected.getPublicKey(), wallets.get(i).getPublicKey());
+      assertEquals(expected.getPrivateKey(), wallets.get(i).getPrivateKey());
+    }
+
+    List<Wallet> streamed = new ArrayList<>();
+    WalletBatch.loadFromPrivate(keys.iterator(), 100, streamed::add);
+    assertEquals(keys.size(), streamed.size());
+    for(int i = 0; i < keys.size(); i++)
+    {
+      assertEquals(wallets.get(i).getAddress(), streamed.get(i).getAddress());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroKeyRejected()
+  {
+    List<byte[]> keys = new ArrayList<>();
+    keys.add(new byte[32]);
+    WalletBatch.loadFromPrivate(keys);
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.cryptohash;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+import org.bouncycastle.util.encoders.Hex;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class TestKeccak
+{
+
+  private final Random random = new Random(1);
+
+  @Test
+  public void testEmptyInput()
+  {
+    byte[] out = new byte[32];
+    Keccak256.hash(new byte[0], 0, 0, out, 0);
+    assertEquals("c5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470", Hex.toHexString(out));
+  }
+
+  @Test
+  public void testMatchesDigest()
+  {
+    // every length around the 72 and 136 byte rate boundaries, plus a large input
+    for(int len = 0; len <= 300; len++)
+    {
+      checkLength(len);
+    }
+    checkLength(1 << 20);
+  }
+
+  private void checkLength(int len)
+  {
+    byte[] data = new byte[len + 7];
+    random.nextBytes(data);
+
+    Keccak256 digest256 = new Keccak256();
+    digest256.update(data, 3, len);
+    byte[] expected256 = digest256.digest();
+    byte[] out256 = new byte[35];
+    Keccak256.hash(data, 3, len, out256, 3);
+    assertArrayEquals("len " + len, expected256, Arrays.copyOfRange(out256, 3, 35));
+
+    byte[] address = new byte[20];
+    Keccak256.hashOmit12(data, 3, len, address, 0);
+    assertArrayEquals("len " + len, Arrays.copyOfRange(expected256, 12, 32), address);
+
+    Keccak512 digest512 = new Keccak512();
+    digest512.update(data, 3, len);
+    byte[] out512 = new byte[64];
+    Keccak512.hash(data, 3, len, out512, 0);
+    assertArrayEquals("len " + len, digest512.digest(), out512);
+  }
+
+  @Test
+  public void testByteBuffers()
+  {
+    byte[] data = new byte[1000];
+    random.nextBytes(data);
+    byte[] expected = new byte[32];
+    Keccak256.hash(data, 10, 900, expected, 0);
+
+    ByteBuffer heap = ByteBuffer.wrap(data, 10, 900);
+    ByteBuffer heapOut = ByteBuffer.allocate(32);
+    Keccak256.hash(heap, heapOut);
+    assertEquals(heap.limit(), heap.position());
+    assertEquals(32, heapOut.position());
+    assertArrayEquals(expected, heapOut.array());
+
+    for(ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN})
+    {
+      ByteBuffer direct = ByteBuffer.allocateDirect(900).order(order);
+      direct.put(data, 10, 900).flip();
+      ByteBuffer directOut = ByteBuffer.allocateDirect(40);
+      directOut.position(8);
+      Keccak256.hash(direct, directOut);
+      byte[] actual = new byte[32];
+      directOut.position(8);
+      directOut.get(actual);
+      assertArrayEquals(expected, actual);
+    }
+  }
+
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void testOutputTooSmall()
+  {
+    Keccak256.hash(new byte[1], 0, 1, new byte[31], 0);
+  }
+}
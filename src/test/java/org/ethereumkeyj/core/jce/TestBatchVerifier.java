@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.jce;
+
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TestBatchVerifier
+{
+
+  @Test
+  public void testMatchesVerify()
+  {
+    Random random = new Random(9);
+    ECKey[] keys = new ECKey[5];
+    for(int i = 0; i < keys.length; i++)
+    {
+      keys[i] = new ECKey();
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try
+    {
+      BatchVerifier verifier = new BatchVerifier(executor);
+      BitSet expected = new BitSet();
+      for(int i = 0; i < 200; i++)
+      {
+        ECKey key = keys[i % keys.length];
+        byte[] hash = new byte[32];
+        random.nextBytes(hash);
+        ECKey.ECDSASignature signature = key.sign(hash);
+        byte[] pub = key.getPubKey();
+        switch(i % 7)
+        {
+          case 1:
+            hash[0] ^= 1;
+            break;
+          case 2:
+            pub = keys[(i + 1) % keys.length].getPubKey();
+            break;
+          case 3:
+            signature = new ECKey.ECDSASignature(signature.r, signature.s.add(BigInteger.ONE));
+            break;
+          case 4:
+            signature = new ECKey.ECDSASignature(signature.r, ECKey.CURVE.getN());
+            break;
+          default:
+            break;
+        }
+        boolean valid = ECKey.verify(hash, signature, pub);
+        expected.set(i, valid);
+        assertEquals(i, verifier.add(hash, signature, pub));
+      }
+      assertEquals(expected, verifier.verify());
+      assertFalse(verifier.verifyAll());
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testVerifyAll()
+  {
+    Random random = new Random(10);
+    ECKey key = new ECKey();
+    BatchVerifier verifier = new BatchVerifier();
+    for(int i = 0; i < 100; i++)
+    {
+      byte[] hash = new byte[32];
+      random.nextBytes(hash);
+      verifier.add(hash, key.sign(hash), key.getPubKey());
+    }
+    assertTrue(verifier.verifyAll());
+    assertEquals(100, verifier.verify().cardinality());
+
+    byte[] hash = new byte[32];
+    byte[] badPub = key.getPubKey().clone();
+    badPub[64] ^= 1;
+    verifier.add(hash, key.sign(hash), badPub);
+    assertFalse(verifier.verifyAll());
+    assertFalse(verifier.verify().get(100));
+
+    verifier.clear();
+    assertEquals(0, verifier.size());
+    assertTrue(verifier.verifyAll());
+  }
+}
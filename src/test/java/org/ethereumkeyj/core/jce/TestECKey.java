@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.jce;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Random;
+import org.bouncycastle.asn1.sec.SECNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TestECKey
+{
+
+  @Test
+  public void testRecoverPubBytesFromSignature()
+  {
+    Random random = new Random(8);
+    for(int i = 0; i < 20; i++)
+    {
+      ECKey key = new ECKey();
+      byte[] hash = new byte[32];
+      random.nextBytes(hash);
+      ECKey.ECDSASignature signature = key.sign(hash);
+      assertArrayEquals(key.getPubKey(), ECKey.recoverPubBytesFromSignature(signature.v - 27, signature, hash));
+    }
+  }
+
+  @Test
+  public void testRecoverRejectsXOffCurve()
+  {
+    // x = 5 gives y^2 = 132, which is not a quadratic residue modulo p
+    ECKey.ECDSASignature signature = new ECKey.ECDSASignature(BigInteger.valueOf(5), BigInteger.ONE);
+    byte[] hash = new byte[32];
+    assertNull(ECKey.recoverPubBytesFromSignature(0, signature, hash));
+    assertNull(ECKey.recoverPubBytesFromSignature(1, signature, hash));
+  }
+
+  /**
+   * Keys, signatures and recoveries on the custom curve encode exactly like the generic curve's.
+   */
+  @Test
+  public void testMatchesGenericCurve()
+  {
+    X9ECParameters generic = SECNamedCurves.getByName("secp256k1");
+    ECDomainParameters genericDomain = new ECDomainParameters(generic.getCurve(), generic.getG(), generic.getN());
+    Random random = new Random(21);
+    for(int i = 0; i < 10; i++)
+    {
+      ECKey key = i == 0 ? new ECKey() : ECKey.fromPrivate(new BigInteger(255, random).add(BigInteger.ONE));
+      if(i > 0)
+      {
+        assertSame(ECKey.CURVE.getCurve(), key.getPubKeyPoint().getCurve());
+      }
+      else
+      {
+        // generated by the JCA provider, which always uses Bouncy Castle's custom curve class
+        assertEquals(ECKey.CURVE.getCurve(), key.getPubKeyPoint().getCurve());
+      }
+      BigInteger priv = key.getPrivKey();
+      assertArrayEquals(generic.getG().multiply(priv).getEncoded(false), key.getPubKey());
+
+      byte[] hash = new byte[32];
+      random.nextBytes(hash);
+      ECKey.ECDSASignature signature = key.sign(hash);
+      ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+      signer.init(true, new ECPrivateKeyParameters(priv, genericDomain));
+      BigInteger[] expected = signer.generateSignature(hash);
+      BigInteger s = expected[1].compareTo(ECKey.HALF_CURVE_ORDER) > 0 ? generic.getN().subtract(expected[1]) : expected[1];
+      assertEquals(expected[0], signature.r);
+      assertEquals(s, signature.s);
+
+      assertTrue(ECKey.verify(hash, signature, key.getPubKey()));
+      assertArrayEquals(key.getPubKey(), ECKey.recoverPubBytesFromSignature(signature.v - 27, signature, hash));
+    }
+  }
+
+  /**
+   * Keys built from the same point through different factories share the cached encoding, hash code and equality;
+   * callers cannot change the cache through the copies or the views.
+   */
+  @Test
+  public void testCachedPublicKey()
+  {
+    ECKey key = ECKey.fromPrivate(new BigInteger(255, new Random(24)).add(BigInteger.ONE));
+    byte[] encoded = key.getPubKeyPoint().getEncoded(false);
+    assertArrayEquals(encoded, key.getPubKey());
+    assertNotSame(key.getPubKey(), key.getPubKey());
+
+    ECKey fromEncoded = ECKey.fromPublicOnly(encoded);
+    ECKey fromCompressed = ECKey.fromPublicOnly(key.getPubKeyPoint().getEncoded(true));
+    ECKey fromPoint = ECKey.fromPublicOnly(key.getPubKeyPoint().multiply(BigInteger.ONE));
+    for(ECKey other : new ECKey[]{fromEncoded, fromCompressed, fromPoint})
+    {
+      assertArrayEquals(encoded, other.getPubKey());
+      assertEquals(key.hashCode(), other.hashCode());
+      assertTrue(other.equals(ECKey.fromPublicOnly(encoded)));
+      assertArrayEquals(key.getAddress(), other.getAddress());
+      assertArrayEquals(key.getNodeId(), other.getNodeId());
+    }
+    assertFalse(key.equals(ECKey.fromPrivate(BigInteger.ONE)));
+
+    encoded[1] ^= 1;
+    key.getPubKey()[1] ^= 1;
+    assertArrayEquals(key.getPubKeyPoint().getEncoded(false), fromEncoded.getPubKey());
+
+    ByteBuffer view = key.getPubKeyView();
+    assertTrue(view.isReadOnly());
+    assertEquals(ByteBuffer.wrap(key.getPubKey()), view);
+    assertEquals(ByteBuffer.wrap(key.getAddress()), key.getAddressView());
+  }
+
+  @Test(expected = ReadOnlyBufferException.class)
+  public void testPubKeyViewIsReadOnly()
+  {
+    ECKey.fromPrivate(BigInteger.TEN).getPubKeyView().put(0, (byte) 0);
+  }
+}
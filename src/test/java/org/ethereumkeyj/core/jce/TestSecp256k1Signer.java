@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.jce;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.ethereumkeyj.core.util.ByteUtil;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class TestSecp256k1Signer
+{
+
+  /**
+   * Checks against Bouncy Castle's own {@code ECDSASigner}, which shares no code with the signer's paths, in low-S
+   * form; the recovery id must lead back to the public key.
+   */
+  @Test
+  public void testMatchesBouncyCastle() throws Exception
+  {
+    Random random = new Random(3);
+    for(int i = 0; i < 20; i++)
+    {
+      ECKey key = ECKey.fromPrivate(new BigInteger(255, random).add(BigInteger.ONE));
+      Secp256k1Signer signer = new Secp256k1Signer(key);
+      ECDSASigner reference = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+      reference.init(true, new ECPrivateKeyParameters(key.getPrivKey(), ECKey.CURVE));
+      for(int j = 0; j < 5; j++)
+      {
+        byte[] hash = new byte[32];
+        random.nextBytes(hash);
+        BigInteger[] expected = reference.generateSignature(hash);
+        BigInteger s = expected[1].compareTo(ECKey.HALF_CURVE_ORDER) > 0
+                ? ECKey.CURVE.getN().subtract(expected[1]) : expected[1];
+        ECKey.ECDSASignature actual = signer.sign(hash);
+        assertEquals(expected[0], actual.r);
+        assertEquals(s, actual.s);
+        assertArrayEquals(key.getPubKey(), ECKey.signatureToKeyBytes(hash, actual));
+      }
+    }
+  }
+
+  @Test
+  public void testKnownSignature() throws Exception
+  {
+    ECKey key = ECKey.fromPrivate(ByteUtil.hexStringToBytes("d20486c9ab8fdfff4d4645563b9ef617d7c69e23d3ded425bf1391acb93b6696"));
+    byte[] hash = new byte[32];
+    Arrays.fill(hash, (byte) 1);
+    ECKey.ECDSASignature signature = new Secp256k1Signer(key).sign(hash);
+    assertEquals(new BigInteger("f3492ee8a59e98ad0c0c88fa9d64c6a42c219ca49383ada18744655c71598d22", 16), signature.r);
+    assertEquals(new BigInteger("4d136da0f477c917e8df4db4b4d8c8260903dab600f61821f9edf7630c10fe80", 16), signature.s);
+    assertArrayEquals(key.getPubKey(), ECKey.signatureToKeyBytes(hash, signature));
+    assertEquals(signature.v, key.sign(hash).v);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.jce;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import org.ethereumkeyj.core.util.ByteUtil;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+
+public class TestSenderRecovery
+{
+
+  @Test
+  public void testMatchesSignatureToAddress() throws Exception
+  {
+    Random random = new Random(10);
+    int count = 150;
+    byte[][] hashes = new byte[count][];
+    byte[][] r = new byte[count][];
+    byte[][] s = new byte[count][];
+    byte[] v = new byte[count];
+    byte[][] expected = new byte[count][];
+    for(int i = 0; i < count; i++)
+    {
+      ECKey key = new ECKey();
+      hashes[i] = new byte[32];
+      random.nextBytes(hashes[i]);
+      ECKey.ECDSASignature signature = key.sign(hashes[i]);
+      r[i] = ByteUtil.bigIntegerToBytes(signature.r);
+      s[i] = ByteUtil.bigIntegerToBytes(signature.s);
+      v[i] = signature.v;
+      expected[i] = ECKey.signatureToAddress(hashes[i], signature);
+      assertArrayEquals(key.getAddress(), expected[i]);
+    }
+    // unrecoverable entries: bad header, r = 0
+    v[7] = 26;
+    r[8] = new byte[32];
+
+    byte[] addresses = new byte[count * 20];
+    BitSet recovered = SenderRecovery.recoverAddresses(hashes, r, s, v, addresses);
+    assertEquals(count - 2, recovered.cardinality());
+    assertFalse(recovered.get(7));
+    assertFalse(recovered.get(8));
+    for(int i = 0; i < count; i++)
+    {
+      if(recovered.get(i))
+      {
+        assertArrayEquals(expected[i], Arrays.copyOfRange(addresses, i * 20, i * 20 + 20));
+      }
+    }
+    assertArrayEquals(new byte[20], Arrays.copyOfRange(addresses, 7 * 20, 8 * 20));
+  }
+
+  @Test
+  public void testTransactionV() throws Exception
+  {
+    Random random = new Random(11);
+    int count = 12;
+    byte[][] hashes = new byte[count][];
+    byte[][] r = new byte[count][];
+    byte[][] s = new byte[count][];
+    long[] v = new long[count];
+    byte[][] expected = new byte[count][];
+    for(int i = 0; i < count; i++)
+    {
+      ECKey key = new ECKey();
+      hashes[i] = new byte[32];
+      random.nextBytes(hashes[i]);
+      ECKey.ECDSASignature signature = key.sign(hashes[i]);
+      r[i] = ByteUtil.bigIntegerToBytes(signature.r);
+      s[i] = ByteUtil.bigIntegerToBytes(signature.s);
+      int recId = signature.v - 27;
+      switch(i % 3)
+      {
+        case 0:
+          // typed transaction y-parity
+          v[i] = recId;
+          break;
+        case 1:
+          // EIP-155 with chain id 137
+          v[i] = 137 * 2 + 35 + recId;
+          break;
+        default:
+          // EIP-155 with a chain id that does not fit into an int
+          v[i] = (1L << 40) * 2 + 35 + recId;
+      }
+      expected[i] = key.getAddress();
+    }
+    v[count - 1] = -1;
+
+    byte[] addresses = new byte[count * 20];
+    BitSet recovered = SenderRecovery.recoverAddresses(hashes, r, s, v, addresses);
+    assertEquals(count - 1, recovered.cardinality());
+    assertFalse(recovered.get(count - 1));
+    for(int i = 0; i < count - 1; i++)
+    {
+      assertArrayEquals(expected[i], Arrays.copyOfRange(addresses, i * 20, i * 20 + 20));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddressArrayTooSmall()
+  {
+    SenderRecovery.recoverAddresses(new byte[2][], new byte[2][], new byte[2][], new byte[2], new byte[39]);
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.secp256k1;
+
+import java.math.BigInteger;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TestFieldElement
+{
+
+  static final BigInteger P = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE.shiftLeft(32))
+          .subtract(BigInteger.valueOf(977));
+
+  private final Random random = new Random(22);
+  private final FieldElement[] tmp = new FieldElement[FieldElement.TEMPORARIES];
+
+  public TestFieldElement()
+  {
+    for(int i = 0; i < tmp.length; i++)
+    {
+      tmp[i] = new FieldElement();
+    }
+  }
+
+  static byte[] bytes(BigInteger value)
+  {
+    byte[] out = new byte[32];
+    byte[] raw = value.toByteArray();
+    int len = Math.min(raw.length, 32);
+    System.arraycopy(raw, raw.length - len, out, 32 - len, len);
+    return out;
+  }
+
+  static FieldElement fe(BigInteger value)
+  {
+    FieldElement element = new FieldElement();
+    element.setBytes(bytes(value), 0);
+    return element;
+  }
+
+  static BigInteger value(FieldElement element)
+  {
+    byte[] out = new byte[32];
+    element.getBytes(out, 0);
+    return new BigInteger(1, out);
+  }
+
+  private BigInteger next()
+  {
+    switch(random.nextInt(4))
+    {
+      case 0:
+        // edge values near 0 and p
+        return BigInteger.valueOf(random.nextInt(3));
+      case 1:
+        return P.subtract(BigInteger.valueOf(1 + random.nextInt(3)));
+      default:
+        return new BigInteger(256, random).mod(P);
+    }
+  }
+
+  @Test
+  public void testArithmetic()
+  {
+    for(int i = 0; i < 2000; i++)
+    {
+      BigInteger a = next();
+      BigInteger b = next();
+      assertEquals(a.add(b).mod(P), value(fe(a).add(fe(b))));
+      assertEquals(a.subtract(b).mod(P), value(fe(a).sub(fe(b))));
+      assertEquals(a.negate().mod(P), value(new FieldElement().negate(fe(a))));
+      assertEquals(a.multiply(b).mod(P), value(new FieldElement().mul(fe(a), fe(b))));
+      assertEquals(a.multiply(a).mod(P), value(new FieldElement().sqr(fe(a))));
+      assertEquals(a.multiply(BigInteger.valueOf(977)).mod(P), value(fe(a).mulInt(977)));
+      FieldElement x = fe(a);
+      assertEquals(a.multiply(b).mod(P), value(x.mul(x, fe(b))));
+    }
+  }
+
+  @Test
+  public void testInverseAndSqrt()
+  {
+    for(int i = 0; i < 200; i++)
+    {
+      BigInteger a = next();
+      BigInteger inverse = a.signum() == 0 ? BigInteger.ZERO : a.modInverse(P);
+      assertEquals(inverse, value(new FieldElement().inverse(fe(a), tmp)));
+
+      FieldElement root = new FieldElement();
+      boolean square = root.sqrt(fe(a), tmp);
+      BigInteger r = value(root);
+      assertEquals(square, r.multiply(r).mod(P).equals(a));
+      // exactly one of a and -a is a square, unless a = 0
+      if(a.signum() != 0)
+      {
+        assertTrue(square != new FieldElement().sqrt(fe(P.subtract(a)), tmp));
+      }
+    }
+  }
+
+  @Test
+  public void testBytes()
+  {
+    FieldElement element = new FieldElement();
+    assertFalse(element.setBytes(bytes(P), 0));
+    assertTrue(element.isZero());
+    assertFalse(element.setBytes(bytes(BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE)), 0));
+    assertEquals(BigInteger.ONE.shiftLeft(32).add(BigInteger.valueOf(976)), value(element));
+    assertTrue(element.setBytes(bytes(P.subtract(BigInteger.ONE)), 0));
+    assertTrue(element.isOdd() == P.subtract(BigInteger.ONE).testBit(0));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.secp256k1;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TestGeneratorTable
+{
+
+  private static final X9ECParameters PARAMS = CustomNamedCurves.getByName("secp256k1");
+
+  @Test
+  public void testWidths()
+  {
+    Random random = new Random(23);
+    FieldElement[] tmp = Secp256k1Engine.temporaries(JacobianPoint.TEMPORARIES);
+    JacobianPoint result = new JacobianPoint();
+    AffinePoint entry = new AffinePoint();
+    byte[] encoded = new byte[65];
+    for(int width : new int[]{1, 3, 5, 8})
+    {
+      GeneratorTable table = new GeneratorTable(width);
+      assertEquals((256 + width - 1) / width * ((1 << width) - 1) * 80, table.getSize());
+      for(int i = 0; i < 20; i++)
+      {
+        BigInteger k = i == 0 ? PARAMS.getN().subtract(BigInteger.ONE) : new BigInteger(256, random).mod(PARAMS.getN());
+        table.multiply(TestScalar.scalar(k), result, entry, tmp);
+        result.toAffine(new AffinePoint(), tmp).encode(encoded, 0);
+        assertArrayEquals(PARAMS.getG().multiply(k).getEncoded(false), encoded);
+      }
+    }
+  }
+
+  /**
+   * Scalars with zero digits in the first, last and alternating windows, with no zero digit at all, and zero.
+   */
+  @Test
+  public void testZeroAndFullWindows()
+  {
+    FieldElement[] tmp = Secp256k1Engine.temporaries(JacobianPoint.TEMPORARIES);
+    JacobianPoint result = new JacobianPoint();
+    AffinePoint entry = new AffinePoint();
+    byte[] encoded = new byte[65];
+    BigInteger n = PARAMS.getN();
+    BigInteger[] scalars =
+    {
+      BigInteger.ONE,
+      BigInteger.ONE.shiftLeft(255),
+      new BigInteger("0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f", 16),
+      new BigInteger("f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0", 16).mod(n),
+      new BigInteger("1111111111111111111111111111111111111111111111111111111111111111", 16),
+      new BigInteger("7fffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff", 16),
+      n.subtract(BigInteger.ONE)
+    };
+    for(int width : new int[]{1, 4, 5, 8})
+    {
+      GeneratorTable table = new GeneratorTable(width);
+      for(BigInteger k : scalars)
+      {
+        table.multiply(TestScalar.scalar(k), result, entry, tmp);
+        result.toAffine(new AffinePoint(), tmp).encode(encoded, 0);
+        assertArrayEquals(k.toString(16), PARAMS.getG().multiply(k).getEncoded(false), encoded);
+        table.multiplyVartime(TestScalar.scalar(k), result, entry, tmp);
+        result.toAffine(new AffinePoint(), tmp).encode(encoded, 0);
+        assertArrayEquals(k.toString(16), PARAMS.getG().multiply(k).getEncoded(false), encoded);
+      }
+      table.multiply(TestScalar.scalar(BigInteger.ZERO), result, entry, tmp);
+      assertTrue(result.isInfinity());
+    }
+  }
+
+  @Test
+  public void testShared()
+  {
+    GeneratorTable.buildInBackground();
+    GeneratorTable table = GeneratorTable.get();
+    assertSame(table, GeneratorTable.get());
+    assertEquals(GeneratorTable.width(), table.getWidth());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWidthOutOfRange()
+  {
+    new GeneratorTable(GeneratorTable.MAX_WIDTH + 1);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.secp256k1;
+
+import java.math.BigInteger;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TestScalar
+{
+
+  static final BigInteger N = new BigInteger("fffffffffffffffffffffffffffffffebaaedce6af48a03bbfd25e8cd0364141", 16);
+
+  private final Random random = new Random(22);
+
+  static Scalar scalar(BigInteger value)
+  {
+    Scalar scalar = new Scalar();
+    scalar.setBytes(TestFieldElement.bytes(value), 0);
+    return scalar;
+  }
+
+  static BigInteger value(Scalar scalar)
+  {
+    byte[] out = new byte[32];
+    scalar.getBytes(out, 0);
+    return new BigInteger(1, out);
+  }
+
+  private BigInteger next()
+  {
+    switch(random.nextInt(4))
+    {
+      case 0:
+        return BigInteger.valueOf(random.nextInt(3));
+      case 1:
+        return N.subtract(BigInteger.valueOf(1 + random.nextInt(3)));
+      default:
+        return new BigInteger(256, random).mod(N);
+    }
+  }
+
+  @Test
+  public void testArithmetic()
+  {
+    Scalar[] tmp = new Scalar[Scalar.TEMPORARIES];
+    for(int i = 0; i < tmp.length; i++)
+    {
+      tmp[i] = new Scalar();
+    }
+    for(int i = 0; i < 2000; i++)
+    {
+      BigInteger a = next();
+      BigInteger b = next();
+      assertEquals(a.add(b).mod(N), value(scalar(a).add(scalar(b))));
+      assertEquals(a.negate().mod(N), value(new Scalar().negate(scalar(a))));
+      assertEquals(a.multiply(b).mod(N), value(new Scalar().mul(scalar(a), scalar(b))));
+      Scalar x = scalar(a);
+      assertEquals(a.multiply(a).mod(N), value(x.mul(x, x)));
+      assertEquals(a.compareTo(N.shiftRight(1)) > 0, scalar(a).isHigh());
+      BigInteger product = a.multiply(b);
+      assertEquals(product.shiftRight(384).add(product.testBit(383) ? BigInteger.ONE : BigInteger.ZERO),
+              value(new Scalar().mulShift384(scalar(a), scalar(b))));
+      if(i % 10 == 0)
+      {
+        BigInteger inverse = a.signum() == 0 ? BigInteger.ZERO : a.modInverse(N);
+        assertEquals(inverse, value(new Scalar().inverse(scalar(a), tmp)));
+      }
+    }
+  }
+
+  @Test
+  public void testBytes()
+  {
+    Scalar scalar = new Scalar();
+    assertFalse(scalar.setBytes(TestFieldElement.bytes(N), 0));
+    assertTrue(scalar.isZero());
+    assertFalse(scalar.setBytes(TestFieldElement.bytes(BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE)), 0));
+    assertEquals(BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE).subtract(N), value(scalar));
+    assertTrue(scalar.setBytes(TestFieldElement.bytes(N.subtract(BigInteger.ONE)), 0));
+  }
+}
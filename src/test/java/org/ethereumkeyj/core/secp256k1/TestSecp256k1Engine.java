@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.secp256k1;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TestSecp256k1Engine
+{
+
+  private static final X9ECParameters PARAMS = CustomNamedCurves.getByName("secp256k1");
+  private static final BigInteger N = PARAMS.getN();
+
+  private final Random random = new Random(22);
+  private final Secp256k1Engine engine = new Secp256k1Engine();
+
+  private BigInteger nextKey()
+  {
+    switch(random.nextInt(8))
+    {
+      case 0:
+        return BigInteger.ONE;
+      case 1:
+        return N.subtract(BigInteger.ONE);
+      default:
+        return new BigInteger(256, random).mod(N.subtract(BigInteger.ONE)).add(BigInteger.ONE);
+    }
+  }
+
+  private byte[] nextHash()
+  {
+    byte[] hash = new byte[32];
+    random.nextBytes(hash);
+    return hash;
+  }
+
+  /**
+   * Q = r^-1 * (s * R - e * G) with Bouncy Castle, null where the engine must fail.
+   */
+  private static byte[] recover(byte[] hash, BigInteger r, BigInteger s, int recId)
+  {
+    BigInteger x = r.add(N.multiply(BigInteger.valueOf(recId / 2)));
+    if(x.compareTo(PARAMS.getCurve().getField().getCharacteristic()) >= 0)
+    {
+      return null;
+    }
+    byte[] compressed = new byte[33];
+    compressed[0] = (byte) (2 + (recId & 1));
+    System.arraycopy(TestFieldElement.bytes(x), 0, compressed, 1, 32);
+    ECPoint point;
+    try
+    {
+      point = PARAMS.getCurve().decodePoint(compressed);
+    }
+    catch(IllegalArgumentException ex)
+    {
+      return null;
+    }
+    BigInteger rInv = r.modInverse(N);
+    BigInteger e = new BigInteger(1, hash);
+    ECPoint q = ECAlgorithms.sumOfTwoMultiplies(PARAMS.getG(), e.negate().multiply(rInv).mod(N),
+            point, s.multiply(rInv).mod(N)).normalize();
+    return q.isInfinity() ? null : q.getEncoded(false);
+  }
+
+  private static byte[] signature(BigInteger r, BigInteger s)
+  {
+    byte[] sig = new byte[64];
+    System.arraycopy(TestFieldElement.bytes(r), 0, sig, 0, 32);
+    System.arraycopy(TestFieldElement.bytes(s), 0, sig, 32, 32);
+    return sig;
+  }
+
+  @Test
+  public void testPublicKey()
+  {
+    byte[] pub = new byte[65];
+    for(int i = 0; i < 50; i++)
+    {
+      BigInteger priv = nextKey();
+      engine.publicKey(TestFieldElement.bytes(priv), 0, pub, 0);
+      assertArrayEquals(PARAMS.getG().multiply(priv).getEncoded(false), pub);
+    }
+  }
+
+  @Test
+  public void testPublicKeys()
+  {
+    int count = 20;
+    byte[] privKeys = new byte[1 + count * 32];
+    byte[] pubs = new byte[2 + count * 65];
+    BigInteger[] keys = new BigInteger[count];
+    for(int i = 0; i < count; i++)
+    {
+      keys[i] = nextKey();
+      System.arraycopy(TestFieldElement.bytes(keys[i]), 0, privKeys, 1 + i * 32, 32);
+    }
+    engine.publicKeys(privKeys, 1, count, pubs, 2);
+    for(int i = 0; i < count; i++)
+    {
+      assertArrayEquals(PARAMS.getG().multiply(keys[i]).getEncoded(false),
+              Arrays.copyOfRange(pubs, 2 + i * 65, 2 + (i + 1) * 65));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPrivateKeyOutOfRange()
+  {
+    engine.sign(TestFieldElement.bytes(N), 0, new byte[32], 0, new byte[64], 0);
+  }
+
+  @Test
+  public void testSignMatchesBouncyCastle()
+  {
+    ECDomainParameters domain = new ECDomainParameters(PARAMS.getCurve(), PARAMS.getG(), N);
+    byte[] sig = new byte[64];
+    byte[] pub = new byte[65];
+    for(int i = 0; i < 50; i++)
+    {
+      BigInteger priv = nextKey();
+      byte[] hash = nextHash();
+      ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+      signer.init(true, new ECPrivateKeyParameters(priv, domain));
+      BigInteger[] expected = signer.generateSignature(hash);
+      BigInteger s = expected[1].compareTo(N.shiftRight(1)) > 0 ? N.subtract(expected[1]) : expected[1];
+
+      int recId = engine.sign(TestFieldElement.bytes(priv), 0, hash, 0, sig, 0);
+      assertArrayEquals(signature(expected[0], s), sig);
+      assertArrayEquals(PARAMS.getG().multiply(priv).getEncoded(false), recover(hash, expected[0], s, recId));
+      assertTrue(engine.recover(hash, 0, sig, 0, recId, pub, 0));
+      assertArrayEquals(PARAMS.getG().multiply(priv).getEncoded(false), pub);
+    }
+  }
+
+  @Test
+  public void testVerify()
+  {
+    byte[] sig = new byte[64];
+    byte[] pub = new byte[65];
+    for(int i = 0; i < 50; i++)
+    {
+      byte[] priv = TestFieldElement.bytes(nextKey());
+      byte[] hash = nextHash();
+      engine.publicKey(priv, 0, pub, 0);
+      byte[] compressed = PARAMS.getCurve().decodePoint(pub).getEncoded(true);
+      engine.sign(priv, 0, hash, 0, sig, 0);
+      assertTrue(engine.verify(hash, 0, sig, 0, pub, 0, 65));
+      assertTrue(engine.verify(hash, 0, sig, 0, compressed, 0, 33));
+
+      // the high-S twin is valid too
+      BigInteger s = new BigInteger(1, Arrays.copyOfRange(sig, 32, 64));
+      byte[] twin = signature(new BigInteger(1, Arrays.copyOf(sig, 32)), N.subtract(s));
+      assertTrue(engine.verify(hash, 0, twin, 0, pub, 0, 65));
+
+      hash[i % 32] ^= 1;
+      assertFalse(engine.verify(hash, 0, sig, 0, pub, 0, 65));
+    }
+    assertFalse(engine.verify(new byte[32], 0, signature(BigInteger.ZERO, BigInteger.ONE), 0, pub, 0, 65));
+    assertFalse(engine.verify(new byte[32], 0, signature(BigInteger.ONE, N), 0, pub, 0, 65));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testVerifyPointNotOnCurve()
+  {
+    byte[] pub = new byte[65];
+    pub[0] = 0x04;
+    pub[64] = 1;
+    engine.verify(new byte[32], 0, signature(BigInteger.ONE, BigInteger.ONE), 0, pub, 0, 65);
+  }
+
+  @Test
+  public void testRecoverAllIds()
+  {
+    byte[] pub = new byte[65];
+    for(int i = 0; i < 200; i++)
+    {
+      byte[] hash = nextHash();
+      // small r values also exercise recovery ids 2 and 3, where x = r + n is below p
+      BigInteger r = i % 2 == 0 ? nextKey() : BigInteger.valueOf(1 + random.nextInt(1000));
+      BigInteger s = nextKey();
+      byte[] sig = signature(r, s);
+      for(int recId = 0; recId < 4; recId++)
+      {
+        byte[] expected = recover(hash, r, s, recId);
+        boolean recovered = engine.recover(hash, 0, sig, 0, recId, pub, 0);
+        if(expected == null)
+        {
+          assertFalse(recovered);
+        }
+        else
+        {
+          assertTrue(recovered);
+          assertArrayEquals(expected, pub);
+        }
+      }
+    }
+    assertFalse(engine.recover(new byte[32], 0, signature(BigInteger.ZERO, BigInteger.ONE), 0, 0, pub, 0));
+    assertNull(recover(new byte[32], N.subtract(BigInteger.ONE), BigInteger.ONE, 2));
+    assertFalse(engine.recover(new byte[32], 0, signature(N.subtract(BigInteger.ONE), BigInteger.ONE), 0, 2, pub, 0));
+  }
+
+  @Test
+  public void testRecoverAll()
+  {
+    int count = 40;
+    byte[] hashes = new byte[3 + count * 32];
+    byte[] sigs = new byte[1 + count * 64];
+    int[] recIds = new int[count];
+    byte[][] expected = new byte[count][];
+    for(int i = 0; i < count; i++)
+    {
+      byte[] hash = nextHash();
+      BigInteger r = i % 2 == 0 ? nextKey() : BigInteger.valueOf(1 + random.nextInt(1000));
+      BigInteger s = i % 10 == 3 ? BigInteger.ZERO : nextKey();
+      recIds[i] = i % 10 == 7 ? 4 : i % 4;
+      System.arraycopy(hash, 0, hashes, 3 + i * 32, 32);
+      System.arraycopy(signature(r, s), 0, sigs, 1 + i * 64, 64);
+      expected[i] = s.signum() == 0 || recIds[i] > 3 ? null : recover(hash, r, s, recIds[i]);
+    }
+    byte[] pubs = new byte[count * 65];
+    BitSet recovered = engine.recoverAll(hashes, 3, sigs, 1, recIds, count, pubs, 0);
+    for(int i = 0; i < count; i++)
+    {
+      byte[] pub = Arrays.copyOfRange(pubs, i * 65, (i + 1) * 65);
+      if(expected[i] == null)
+      {
+        assertFalse(recovered.get(i));
+        assertArrayEquals(new byte[65], pub);
+      }
+      else
+      {
+        assertTrue(recovered.get(i));
+        assertArrayEquals(expected[i], pub);
+      }
+    }
+  }
+}
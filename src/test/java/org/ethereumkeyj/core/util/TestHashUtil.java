@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.bouncycastle.util.encoders.Hex;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TestHashUtil
+{
+
+  private static final String ABC_SHA256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+  private static final String ABC_DOUBLE_SHA256 = "4f8b42c22dd3729b519ba6f68d2da7cc5b2d606d05daed5ad5128cc03e6c6358";
+
+  @Test
+  public void testConcurrentSha256() throws Exception
+  {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try
+    {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for(int t = 0; t < 8; t++)
+      {
+        results.add(executor.submit(() ->
+        {
+          for(int i = 0; i < 2000; i++)
+          {
+            if(!ABC_SHA256.equals(Hex.toHexString(HashUtil.sha256("abc".getBytes())))
+                    || !ABC_DOUBLE_SHA256.equals(Hex.toHexString(HashUtil.doubleDigest("abc".getBytes()))))
+            {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+      for(Future<Boolean> result : results)
+      {
+        assertTrue(result.get());
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testPoolStatistics()
+  {
+    DigestPool<?> sha256Pool = null;
+    for(DigestPool<?> pool : HashUtil.getDigestPools())
+    {
+      if("SHA-256".equals(pool.getName()))
+      {
+        sha256Pool = pool;
+      }
+    }
+    HashUtil.sha256(new byte[0]);
+    long hits = sha256Pool.getHits();
+    long creations = sha256Pool.getCreations();
+    HashUtil.sha256(new byte[0]);
+    assertEquals(hits + 1, sha256Pool.getHits());
+    assertEquals(creations, sha256Pool.getCreations());
+  }
+
+  @Test
+  public void testDigestResetAfterFailure()
+  {
+    byte[] expected = HashUtil.sha3("ab".getBytes(), "c".getBytes());
+    try
+    {
+      HashUtil.sha3("xyz".getBytes(), null);
+    }
+    catch(NullPointerException e)
+    {
+      // the first input is already in the pooled digest
+    }
+    assertEquals(Hex.toHexString(HashUtil.sha3("abc".getBytes())), Hex.toHexString(expected));
+    assertEquals(Hex.toHexString(expected), Hex.toHexString(HashUtil.sha3("ab".getBytes(), "c".getBytes())));
+
+    try
+    {
+      HashUtil.doubleDigest("xyz".getBytes(), 0, 4);
+    }
+    catch(IllegalArgumentException | IndexOutOfBoundsException e)
+    {
+      // rejected before the digest is touched, but must not leave it dirty either
+    }
+    assertEquals(ABC_DOUBLE_SHA256, Hex.toHexString(HashUtil.doubleDigest("abc".getBytes())));
+  }
+
+  @Test
+  public void testRipemd160()
+  {
+    assertEquals("8eb208f7e05d987a9b044a8e98c6b087f15a0bfc", Hex.toHexString(HashUtil.ripemd160("abc".getBytes())));
+    assertEquals("8eb208f7e05d987a9b044a8e98c6b087f15a0bfc", Hex.toHexString(HashUtil.ripemd160("abc".getBytes())));
+  }
+}
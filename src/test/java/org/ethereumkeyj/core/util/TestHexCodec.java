@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.bouncycastle.util.encoders.Hex;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class TestHexCodec
+{
+
+  @Test
+  public void testEncodeMatchesBouncyCastle()
+  {
+    Random random = new Random(25);
+    for(int length = 0; length < 70; length++)
+    {
+      byte[] data = new byte[length];
+      random.nextBytes(data);
+      String expected = Hex.toHexString(data);
+      assertEquals(expected, HexCodec.encode(data));
+      assertEquals(expected, ByteUtil.toHexString(data));
+
+      char[] chars = new char[2 * length + 3];
+      assertEquals(2 * length + 1, HexCodec.encode(data, 0, length, chars, 1));
+      assertEquals(expected, new String(chars, 1, 2 * length));
+      byte[] ascii = new byte[2 * length + 3];
+      assertEquals(2 * length + 2, HexCodec.encode(data, 0, length, ascii, 2));
+      assertEquals(expected, new String(ascii, 2, 2 * length, StandardCharsets.US_ASCII));
+      assertEquals("0x" + expected, HexCodec.append(new StringBuilder("0x"), data).toString());
+
+      ByteBuffer direct = ByteBuffer.allocateDirect(length + 1);
+      direct.put((byte) 0x7f).put(data).flip().position(1);
+      assertEquals(expected, HexCodec.encode(direct));
+      assertEquals(1, direct.position());
+      byte[] padded = new byte[length + 2];
+      System.arraycopy(data, 0, padded, 1, length);
+      assertEquals(expected, HexCodec.encode(ByteBuffer.wrap(padded, 1, length).slice()));
+
+      assertArrayEquals(data, HexCodec.decode(expected));
+      assertArrayEquals(data, HexCodec.decode("0x" + expected.toUpperCase()));
+      assertArrayEquals(data, HexCodec.decode(new StringBuilder("0X").append(expected)));
+      assertArrayEquals(data, ByteUtil.hexStringToBytes("0x" + expected));
+      ByteBuffer buffer = ByteBuffer.wrap(("0x" + expected).getBytes(StandardCharsets.US_ASCII));
+      assertArrayEquals(data, HexCodec.decode(buffer));
+      assertEquals(buffer.limit(), buffer.position());
+    }
+  }
+
+  @Test
+  public void testDecodeOddLengthAndRange()
+  {
+    assertArrayEquals(new byte[]{0x0a, (byte) 0xbc}, HexCodec.decode("0xabc"));
+    assertArrayEquals(new byte[]{0x0a, (byte) 0xbc}, ByteUtil.hexStringToBytes("abc"));
+    assertArrayEquals(new byte[]{0x0a, (byte) 0xbc}, HexCodec.decode(ByteBuffer.wrap("abc".getBytes())));
+    assertArrayEquals(new byte[0], HexCodec.decode("0x"));
+    assertArrayEquals(new byte[]{0x0f}, HexCodec.decode("0xF"));
+    assertArrayEquals(new byte[]{0x12, 0x34}, HexCodec.decode("xx0x1234yy", 2, 8));
+    assertEquals(2, HexCodec.decodedLength("0x1234", 0, 6));
+
+    byte[] out = new byte[4];
+    assertEquals(3, HexCodec.decode("0x1234", 0, 6, out, 1));
+    assertArrayEquals(new byte[]{0, 0x12, 0x34, 0}, out);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecodeRejectsNonHex()
+  {
+    HexCodec.decode("0x12g4");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecodeRejectsWideCharacter()
+  {
+    // low byte '1' must not alias an ASCII digit
+    HexCodec.decode("\u0131\u0131");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecodeBufferRejectsNonHex()
+  {
+    HexCodec.decode(ByteBuffer.wrap(new byte[]{'1', (byte) 0xb1}));
+  }
+
+  /**
+   * Test vectors of EIP-55.
+   */
+  @Test
+  public void testChecksumHexString()
+  {
+    String[] addresses =
+    {
+      "52908400098527886E0F7030069857D2E4169EE7",
+      "8617E340B3D01FA5F11F306F4090FD50E238070D",
+      "de709f2102306220921060314715629080e2fb77",
+      "27b1fdb04752bbc536007a920d24acb045561c26",
+      "5aAeb6053F3E94C9b9A09f33669435E7Ef1BeAed",
+      "fB6916095ca1df60bB79Ce92cE3Ea74c37c5d359",
+      "dbF03B407c01E7cD3CBea99509d93f8DDDC8C6FB",
+      "D1220A0cf47c7B9Be7A2E6BA89F429762e7b9aDb"
+    };
+    for(String address : addresses)
+    {
+      assertEquals(address, ByteUtil.toChecksumHexString(HexCodec.decode(address)));
+    }
+    assertEquals("", ByteUtil.toChecksumHexString(null));
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 basic.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TestLatencyHistogram
+{
+
+  private static void assertWithin(long expected, long actual)
+  {
+    // eight sub-buckets per power of two: at most 12.5% above the true value
+    assertTrue(expected + " vs " + actual, actual >= expected && actual <= expected + expected / 8);
+  }
+
+  @Test
+  public void testPercentiles()
+  {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentile(50));
+    for(long i = 1; i <= 100000; i++)
+    {
+      histogram.record(i * 1000);
+    }
+    assertEquals(100000, histogram.getCount());
+    assertEquals(100000000L, histogram.getMax());
+    assertEquals(50000500.0, histogram.getMean(), 0.0);
+    assertWithin(50000000L, histogram.getPercentile(50));
+    assertWithin(99000000L, histogram.getPercentile(99));
+    assertEquals(100000000L, histogram.getPercentile(100));
+    assertWithin(1000, histogram.getPercentile(0));
+  }
+
+  @Test
+  public void testSmallValues()
+  {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for(int i = 0; i < 16; i++)
+    {
+      histogram.record(i);
+    }
+    histogram.record(-5);
+    assertEquals(0, histogram.getPercentile(0));
+    assertEquals(7, histogram.getPercentile(50));
+    assertEquals(15, histogram.getPercentile(100));
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 basic.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Iterator;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TestRLP
+{
+
+  private static final byte[] LONG_STRING = new byte[1024];
+
+  static
+  {
+    for(int i = 0; i < LONG_STRING.length; i++)
+    {
+      LONG_STRING[i] = (byte) i;
+    }
+  }
+
+  private static byte[] sample()
+  {
+    return RLP.encodeList(
+            RLP.encodeElement(new byte[0]),
+            RLP.encodeElement(new byte[]{0x7f}),
+            RLP.encodeElement(new byte[]{(byte) 0x80}),
+            RLP.encodeBigInteger(new BigInteger("1000000000000000000")),
+            RLP.encodeElement(LONG_STRING),
+            RLP.encodeList(RLP.encodeString("cat"), RLP.encodeList()),
+            RLP.encodeInt(0x01020304));
+  }
+
+  private static void checkSample(RLPItem list, int base)
+  {
+    assertTrue(list.isList());
+    assertEquals(base, list.getOffset());
+    assertEquals(7, list.size());
+    Iterator<RLPItem> items = list.iterator();
+    assertEquals(0, items.next().getPayloadLength());
+    assertArrayEquals(new byte[]{0x7f}, items.next().getBytes());
+    assertArrayEquals(new byte[]{(byte) 0x80}, items.next().getBytes());
+    assertEquals(new BigInteger("1000000000000000000"), items.next().asBigInteger());
+    RLPItem longString = items.next();
+    assertFalse(longString.isList());
+    assertEquals(1027, longString.getLength());
+    assertArrayEquals(LONG_STRING, longString.getBytes());
+    assertEquals(ByteBuffer.wrap(LONG_STRING), longString.payload());
+    RLPItem nested = items.next();
+    assertEquals("cat", new String(nested.get(0).getBytes()));
+    assertTrue(nested.get(1).isList());
+    assertEquals(0, nested.get(1).size());
+    assertEquals(0x01020304, items.next().asInt());
+    assertFalse(items.hasNext());
+  }
+
+  @Test
+  public void testDecodeArray()
+  {
+    byte[] encoded = sample();
+    RLPItem list = RLP.decode(encoded);
+    checkSample(list, 0);
+    assertArrayEquals(encoded, list.getEncoded());
+
+    byte[] padded = new byte[encoded.length + 10];
+    System.arraycopy(encoded, 0, padded, 5, encoded.length);
+    checkSample(RLP.decode(padded, 5, encoded.length), 5);
+  }
+
+  @Test
+  public void testDecodeDirectBuffer()
+  {
+    byte[] encoded = sample();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.length);
+    buffer.put(encoded).flip();
+    checkSample(RLP.decode(buffer), 0);
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  public void testDecodeMappedFile() throws Exception
+  {
+    File file = File.createTempFile("rlp", ".bin");
+    file.deleteOnExit();
+    Files.write(file.toPath(), sample());
+    checkSample(RLP.decode(file.toPath()), 0);
+  }
+
+  @Test
+  public void testSingleBytes()
+  {
+    assertArrayEquals(new byte[]{0x00}, RLP.decode(new byte[]{0x00}).getBytes());
+    assertEquals(0, RLP.decode(new byte[]{(byte) 0x80}).asLong());
+    assertEquals(0xff, RLP.decode(new byte[]{(byte) 0x81, (byte) 0xff}).asInt());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonCanonicalSingleByte()
+  {
+    RLP.decode(new byte[]{(byte) 0x81, 0x05});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsLeadingZeroInteger()
+  {
+    RLP.decode(new byte[]{(byte) 0x82, 0x00, 0x01}).asInt();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsZeroByteInteger()
+  {
+    RLP.decode(new byte[]{0x00}).asBigInteger();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonCanonicalLength()
+  {
+    RLP.decode(new byte[]{(byte) 0xb8, 0x01, 0x05});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsTruncated()
+  {
+    byte[] encoded = sample();
+    RLP.decode(encoded, 0, encoded.length - 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsTrailingBytes()
+  {
+    RLP.decode(new byte[]{(byte) 0xc0, 0x00});
+  }
+
+  @Test
+  public void testWriterMatchesEncoders()
+  {
+    byte[][] strings = {null, new byte[0], new byte[]{0}, new byte[]{0x7f}, new byte[]{(byte) 0x80}, new byte[55],
+      new byte[56], LONG_STRING};
+    BigInteger[] integers = {BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(0x7f), BigInteger.valueOf(0x80),
+      new BigInteger("ffffffffffffffff", 16), new BigInteger("1000000000000000000000000000", 16)};
+    long[] longs = {0, 1, 0x7f, 0x80, 0x1234, Long.MAX_VALUE};
+
+    byte[][] elements = new byte[strings.length + integers.length + longs.length][];
+    int payloadLength = 0;
+    int e = 0;
+    for(byte[] string : strings)
+    {
+      elements[e++] = string == null ? RLP.encodeElement(null) : RLP.encodeElement(string);
+      payloadLength += RLPWriter.sizeOfString(string);
+    }
+    for(BigInteger integer : integers)
+    {
+      elements[e++] = RLP.encodeBigInteger(integer);
+      payloadLength += RLPWriter.sizeOfBigInteger(integer);
+    }
+    for(long value : longs)
+    {
+      elements[e++] = RLP.encodeBigInteger(BigInteger.valueOf(value));
+      payloadLength += RLPWriter.sizeOfLong(value);
+    }
+    byte[] expected = RLP.encodeList(elements);
+    assertEquals(expected.length, RLPWriter.sizeOfList(payloadLength));
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length + 3);
+    buffer.position(3);
+    RLPWriter writer = new RLPWriter(buffer).writeListHeader(payloadLength);
+    for(byte[] string : strings)
+    {
+      writer.writeString(string);
+    }
+    for(BigInteger integer : integers)
+    {
+      writer.writeBigInteger(integer);
+    }
+    for(long value : longs)
+    {
+      writer.writeLong(value);
+    }
+    assertEquals(expected.length + 3, writer.position());
+    buffer.position(3);
+    byte[] actual = new byte[expected.length];
+    buffer.get(actual);
+    assertArrayEquals(expected, actual);
+  }
+}
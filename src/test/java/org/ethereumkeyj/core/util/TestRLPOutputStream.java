@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 basic.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import org.bouncycastle.util.encoders.Hex;
+import org.ethereumkeyj.core.Transaction;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class TestRLPOutputStream
+{
+
+  private static final String SIGNED = "f86c8085012a05f20082520894718863e4ffc6d9cc4c40ba6abe6ee5a2ec5a395c880de0b6b3a7640000802aa0ad1c2dba8fe9737ca996404d38f1579adb949c4fe81115d53c3cad0753015a9ba028fe692859afa6fa72fbcd687af96c366fc31a7e0ac2a6ab61336ae10f3adf7c";
+
+  private static void writeSample(RLPOutputStream out, byte[] large) throws Exception
+  {
+    int payloadLength = RLPWriter.sizeOfString(large) + RLPWriter.sizeOfLong(1024)
+            + RLPWriter.sizeOfBigInteger(BigInteger.TEN.pow(30)) + RLPWriter.sizeOfString(null) + 1;
+    out.writeListHeader(payloadLength)
+            .writeString(large)
+            .writeLong(1024)
+            .writeBigInteger(BigInteger.TEN.pow(30))
+            .writeString(null)
+            .writeEncoded(new byte[]{(byte) 0xc0});
+  }
+
+  private static byte[] expectedSample(byte[] large)
+  {
+    return RLP.encodeList(RLP.encodeElement(large), RLP.encodeInt(1024),
+            RLP.encodeBigInteger(BigInteger.TEN.pow(30)), RLP.encodeElement(null), RLP.encodeList());
+  }
+
+  @Test
+  public void testOutputStream() throws Exception
+  {
+    byte[] large = new byte[1000];
+    large[999] = 1;
+    for(int bufferSize : new int[]{16, 100, RLPOutputStream.DEFAULT_BUFFER_SIZE})
+    {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try(RLPOutputStream out = new RLPOutputStream(bytes, bufferSize))
+      {
+        writeSample(out, large);
+        assertEquals(expectedSample(large).length, out.getBytesWritten());
+      }
+      assertArrayEquals(expectedSample(large), bytes.toByteArray());
+    }
+  }
+
+  @Test
+  public void testChannel() throws Exception
+  {
+    byte[] large = new byte[300];
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try(RLPOutputStream out = new RLPOutputStream(Channels.newChannel(bytes), 32))
+    {
+      writeSample(out, large);
+    }
+    assertArrayEquals(expectedSample(large), bytes.toByteArray());
+  }
+
+  @Test
+  public void testTransactionList() throws Exception
+  {
+    List<Transaction> transactions = new ArrayList<>();
+    byte[][] encodings = new byte[50][];
+    for(int i = 0; i < encodings.length; i++)
+    {
+      Transaction transaction = new Transaction(Hex.decode(SIGNED));
+      transaction.setData(new byte[i * 10]);
+      transactions.add(transaction);
+      encodings[i] = transaction.getEncoded();
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try(RLPOutputStream out = new RLPOutputStream(bytes, 256))
+    {
+      out.writeList(transactions);
+    }
+    assertArrayEquals(RLP.encodeList(encodings), bytes.toByteArray());
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 basic.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.bouncycastle.util.encoders.Hex;
+import org.ethereumkeyj.core.Transaction;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestRLPReader
+{
+
+  private static final String SIGNED = "f86c8085012a05f20082520894718863e4ffc6d9cc4c40ba6abe6ee5a2ec5a395c880de0b6b3a7640000802aa0ad1c2dba8fe9737ca996404d38f1579adb949c4fe81115d53c3cad0753015a9ba028fe692859afa6fa72fbcd687af96c366fc31a7e0ac2a6ab61336ae10f3adf7c";
+
+  private static final List<Transaction> TRANSACTIONS = new ArrayList<>();
+
+  @BeforeClass
+  public static void setup()
+  {
+    for(int i = 0; i < 500; i++)
+    {
+      Transaction transaction = new Transaction(Hex.decode(SIGNED));
+      transaction.setData(new byte[i % 97]);
+      TRANSACTIONS.add(transaction);
+    }
+  }
+
+  private static File tempFile() throws Exception
+  {
+    File file = File.createTempFile("rlp", ".bin");
+    file.deleteOnExit();
+    return file;
+  }
+
+  @Test
+  public void testConcatenatedItems() throws Exception
+  {
+    File file = tempFile();
+    try(RLPOutputStream out = new RLPOutputStream(new FileOutputStream(file)))
+    {
+      for(Transaction transaction : TRANSACTIONS)
+      {
+        out.writeEncoded(transaction);
+      }
+    }
+    // a small window forces items to straddle window boundaries
+    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    try(RLPReader reader = new RLPReader(channel, 0, channel.size(), 1000))
+    {
+      int i = 0;
+      for(RLPItem item : reader)
+      {
+        assertArrayEquals(TRANSACTIONS.get(i++).getEncoded(), item.getEncoded());
+      }
+      assertEquals(TRANSACTIONS.size(), i);
+      assertEquals(TRANSACTIONS.size(), reader.stream(true).filter(RLPItem::isList).count());
+    }
+  }
+
+  @Test
+  public void testListElements() throws Exception
+  {
+    File file = tempFile();
+    try(RLPOutputStream out = new RLPOutputStream(new FileOutputStream(file)))
+    {
+      out.writeList(TRANSACTIONS);
+    }
+    try(RLPReader reader = RLPReader.openList(file.toPath()))
+    {
+      int i = 0;
+      for(RLPItem item : reader)
+      {
+        Transaction transaction = new Transaction(item.getEncoded());
+        assertArrayEquals(TRANSACTIONS.get(i++).getHash(), transaction.getHash());
+      }
+      assertEquals(TRANSACTIONS.size(), i);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTruncatedFile() throws Exception
+  {
+    File file = tempFile();
+    try(FileOutputStream out = new FileOutputStream(file))
+    {
+      out.write(Hex.decode(SIGNED), 0, 50);
+    }
+    try(RLPReader reader = RLPReader.open(file.toPath()))
+    {
+      reader.iterator().next();
+    }
+  }
+}
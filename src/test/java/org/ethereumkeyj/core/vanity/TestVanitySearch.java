@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 ethereumKeyJ.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereumkeyj.core.vanity;
+
+import java.util.concurrent.TimeUnit;
+import org.ethereumkeyj.core.Wallet;
+import org.ethereumkeyj.core.util.ByteUtil;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TestVanitySearch
+{
+
+  @Test
+  public void testPatternMatching()
+  {
+    byte[] address = ByteUtil.hexStringToBytes("6f5b635f45b745ad2cb5fa42a986259f1a0534df");
+    VanityPattern.Scratch scratch = new VanityPattern.Scratch();
+    assertTrue(VanityPattern.prefix("6F5b").matches(address, scratch));
+    assertTrue(VanityPattern.suffix("34df").matches(address, scratch));
+    assertFalse(VanityPattern.prefix("6f5c").matches(address, scratch));
+    // checksummed form is 0x6f5b635F45b745AD2cb5FA42A986259f1A0534DF
+    assertTrue(new VanityPattern("6f5b635F", "34DF", true).matches(address, scratch));
+    assertFalse(new VanityPattern("6f5b635f", null, true).matches(address, scratch));
+    assertFalse(new VanityPattern(null, "34dF", true).matches(address, scratch));
+  }
+
+  @Test
+  public void testFindsMatchingWallet() throws Exception
+  {
+    VanityPattern pattern = new VanityPattern("A", "0", true);
+    VanitySearch search = new VanitySearch(pattern, 2, 64);
+    search.start();
+    Wallet wallet = search.await(60, TimeUnit.SECONDS);
+    assertTrue(wallet.getAddress(), wallet.getAddress().startsWith("0xA"));
+    assertTrue(wallet.getAddress(), wallet.getAddress().endsWith("0"));
+    assertEquals(wallet.getAddress(), Wallet.loadFromPrivate(wallet.getPrivateKey()).getAddress());
+    assertTrue(search.getKeysChecked() >= 0);
+  }
+
+  @Test
+  public void testCancel() throws Exception
+  {
+    VanitySearch search = new VanitySearch(VanityPattern.prefix("0000000000000000"), 1, 16);
+    search.start();
+    search.cancel();
+    assertNull(search.await());
+    assertTrue(search.isDone());
+  }
+}